@@ -3,23 +3,48 @@ package org.ergoplatform.appkit;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 import org.ergoplatform.appkit.config.ErgoNodeConfig;
+import org.ergoplatform.appkit.config.HttpClientConfig;
 import org.ergoplatform.appkit.impl.BlockchainContextBuilderImpl;
+import org.ergoplatform.appkit.impl.BlockchainContextCache;
+import org.ergoplatform.appkit.impl.BoxCache;
+import org.ergoplatform.appkit.impl.LruBoxCache;
+import org.ergoplatform.appkit.impl.MempoolMirror;
+import org.ergoplatform.appkit.impl.VirtualThreads;
+import org.ergoplatform.appkit.impl.WatchedUtxoIndex;
 import org.ergoplatform.explorer.client.ExplorerApiClient;
 import org.ergoplatform.restapi.client.ApiClient;
 
+import java.io.Closeable;
+import java.io.File;
 import java.net.Proxy;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import javax.annotation.Nullable;
 
 /**
  * This implementation of {@link ErgoClient} uses REST API of Ergo node for communication.
+ * The HTTP clients (with their connection pools and threads) are created once and
+ * shared by all the contexts created by this ErgoClient, use {@link #close()} to release
+ * them when the client is no longer needed.
  */
-public class RestApiErgoClient implements ErgoClient {
+public class RestApiErgoClient implements ErgoClient, Closeable {
     private final String _nodeUrl;
     private final NetworkType _networkType;
     private final ApiClient _client;
     private final String _explorerUrl;
     private final ExplorerApiClient _explorer;
+    private final BlockchainContextCache _contextCache;
+    private volatile ContextFreshness _defaultFreshness = ContextFreshness.LATEST;
+    private volatile boolean _nodeCrossCheck = false;
+    private volatile BoxCache _boxCache;
+    private volatile boolean _binaryBoxes = false;
+    private volatile WatchedUtxoIndex _utxoIndex;
+    private ExecutorService _actionExecutor;
+    private boolean _ownsActionExecutor;
 
     public final static String defaultMainnetExplorerUrl = "https://api.ergoplatform.com";
     public final static String defaultTestnetExplorerUrl = "https://api-testnet.ergoplatform.com";
@@ -38,12 +63,35 @@ public class RestApiErgoClient implements ErgoClient {
      * @param proxy       Requests are passed through this proxy (if non-null).
      */
     RestApiErgoClient(String nodeUrl, NetworkType networkType, String apiKey, String explorerUrl, @Nullable Proxy proxy) {
+        this(nodeUrl, networkType, apiKey, explorerUrl, proxy, null);
+    }
+
+    /**
+     * Create and initialize a new instance.
+     *
+     * @param nodeUrl     http url to Ergo node REST API endpoint of the form
+     *                    `https://host[:port]` where port is optional.
+     * @param networkType type of network (mainnet, testnet) the Ergo node is part of
+     * @param apiKey      api key to authenticate this client
+     * @param explorerUrl Optional http url to Ergo Explorer REST API endpoint of the
+     *                    form `https://host[:port]` where port is optional.
+     *                    If `null` or empty string passed then the Explorer client is not
+     *                    initialized and the client works in the `node only` mode.
+     * @param proxy       Requests are passed through this proxy (if non-null).
+     * @param httpConfig  Optional parameters of HTTP clients, if `null` then the defaults
+     *                    of OkHttp are used.
+     */
+    RestApiErgoClient(String nodeUrl, NetworkType networkType, String apiKey, String explorerUrl,
+                      @Nullable Proxy proxy, @Nullable HttpClientConfig httpConfig) {
         _nodeUrl = nodeUrl;
         _networkType = networkType;
         _client = new ApiClient(_nodeUrl, "ApiKeyAuth", apiKey);
         if (proxy != null) {
             _client.createDefaultAdapter(proxy);
         }
+        if (httpConfig != null) {
+            httpConfig.applyTo(_client.getOkBuilder());
+        }
         _explorerUrl = explorerUrl;
         if (!Strings.isNullOrEmpty(_explorerUrl)) {
             if (proxy != null) {
@@ -52,18 +100,276 @@ public class RestApiErgoClient implements ErgoClient {
             else {
              _explorer = new ExplorerApiClient(_explorerUrl);
             }
+            if (httpConfig != null) {
+                httpConfig.applyTo(_explorer.getOkBuilder());
+            }
         } else {
             _explorer = null;
         }
+        _contextCache = new BlockchainContextCache(this::newContextBuilder, 0);
     }
 
     @Override
     public <T> T execute(Function<BlockchainContext, T> action) {
-        BlockchainContext ctx = new BlockchainContextBuilderImpl(_client, _explorer, _networkType).build();
+        return execute(action, _defaultFreshness);
+    }
+
+    /**
+     * Execute the given action and return action's result. The {@link BlockchainContext}
+     * passed to the action satisfies the given freshness requirement, thus it can be
+     * a context reused from the previous executions.
+     *
+     * @param action    action to execute in the blockchain context
+     * @param freshness how fresh the context should be, use {@link ContextFreshness#LATEST}
+     *                  when the action must see the newest header
+     * @see #withContextCache(long)
+     */
+    public <T> T execute(Function<BlockchainContext, T> action, ContextFreshness freshness) {
+        BlockchainContext ctx;
+        if (freshness == ContextFreshness.LATEST && _defaultFreshness == ContextFreshness.LATEST) {
+            // caching is not enabled, don't keep the context
+            ctx = newContextBuilder().build();
+        } else {
+            ctx = _contextCache.getContext(freshness);
+        }
         T res = action.apply(ctx);
         return res;
     }
 
+    @Override
+    public <T> CompletableFuture<T> executeAsync(Function<BlockchainContext, CompletableFuture<T>> action) {
+        return executeAsync(action, _defaultFreshness);
+    }
+
+    /**
+     * Asynchronous version of {@link #execute(Function, ContextFreshness)}, neither
+     * creation of the context nor the action block the current thread.
+     *
+     * @param action    asynchronous action to execute in the blockchain context
+     * @param freshness how fresh the context should be
+     * @return a future completed with the result of the action
+     */
+    public <T> CompletableFuture<T> executeAsync(
+            Function<BlockchainContext, CompletableFuture<T>> action, ContextFreshness freshness) {
+        CompletableFuture<BlockchainContext> ctx;
+        if (freshness == ContextFreshness.LATEST && _defaultFreshness == ContextFreshness.LATEST) {
+            ctx = newContextBuilder().buildAsync();
+        } else {
+            ctx = _contextCache.getContextAsync(freshness);
+        }
+        return ctx.thenCompose(action);
+    }
+
+    private BlockchainContextBuilderImpl newContextBuilder() {
+        return new BlockchainContextBuilderImpl(_client, _explorer, _networkType)
+            .withNodeCrossCheck(_nodeCrossCheck)
+            .withBoxCache(_boxCache)
+            .withBinaryBoxes(_binaryBoxes)
+            .withUtxoIndex(_utxoIndex);
+    }
+
+    /**
+     * By default, unspent boxes returned by Explorer (see
+     * {@link BlockchainContext#getUnspentBoxesFor(Address, int, int)}) are created from
+     * Explorer data, so that a page of boxes costs a single request. In node cross-check mode
+     * every box is also loaded from the node and the boxes which the node doesn't know are
+     * skipped, which protects from Explorer lagging behind the node.
+     *
+     * @return this client
+     */
+    public RestApiErgoClient withNodeCrossCheck(boolean nodeCrossCheck) {
+        _nodeCrossCheck = nodeCrossCheck;
+        _contextCache.invalidate();
+        return this;
+    }
+
+    /**
+     * Uses the given cache of box contents in all the contexts created by this client.
+     * The same cache can be shared by many clients (e.g. {@link LruBoxCache#shared()}),
+     * so that boxes loaded by one client are not parsed again by others.
+     * The cache doesn't affect which boxes are considered unspent: boxes are taken from the
+     * cache only after the node or Explorer reported them as unspent, so boxes requested
+     * by id are still loaded from the node (see {@link BoxCache}).
+     *
+     * @param boxCache the cache to use, or null to disable caching (the default)
+     * @return this client
+     */
+    public RestApiErgoClient withBoxCache(@Nullable BoxCache boxCache) {
+        _boxCache = boxCache;
+        _contextCache.invalidate();
+        return this;
+    }
+
+    /**
+     * If true, boxes loaded by id (see {@link BlockchainContext#getBoxesById(String...)})
+     * are requested from the binary node endpoints and parsed directly from the serialized
+     * bytes, which is cheaper than parsing JSON. Binary endpoints are not available in old
+     * versions of the node, so this mode is disabled by default.
+     *
+     * @return this client
+     */
+    public RestApiErgoClient withBinaryBoxes(boolean binaryBoxes) {
+        _binaryBoxes = binaryBoxes;
+        _contextCache.invalidate();
+        return this;
+    }
+
+    /**
+     * Uses the given index of unspent boxes in all the contexts created by this client, so
+     * that the unspent boxes of the watched addresses are loaded from the index instead of
+     * Explorer (see {@link BlockchainContext#getUnspentBoxesFor(Address, int, int)}).
+     * The index should be synchronized by the caller, see {@link WatchedUtxoIndex#sync()}.
+     *
+     * @param utxoIndex the index to use, or null to load all boxes from Explorer (the default)
+     * @return this client
+     */
+    public RestApiErgoClient withUtxoIndex(@Nullable WatchedUtxoIndex utxoIndex) {
+        _utxoIndex = utxoIndex;
+        _contextCache.invalidate();
+        return this;
+    }
+
+    /**
+     * Submits the given action to be executed (see {@link #execute(Function)}) on the
+     * action executor of this client. The action can use blocking methods of the context,
+     * which makes this method a simple way to execute many independent actions
+     * concurrently.
+     * <br>
+     * By default, the actions are executed by a pool of platform threads (one per available
+     * processor), use {@link #withVirtualThreads()} or {@link #withPlatformThreads(int)} to
+     * change it. To avoid overloading the node and the explorer with requests, use
+     * {@link HttpClientConfig#withMaxConcurrentRequests(int)}.
+     *
+     * @return a future completed with the result of the action
+     */
+    public <T> CompletableFuture<T> submit(Function<BlockchainContext, T> action) {
+        return CompletableFuture.supplyAsync(() -> execute(action), getActionExecutor());
+    }
+
+    /**
+     * Actions passed to {@link #submit(Function)} are executed on virtual threads, one
+     * virtual thread per action. Virtual threads are cheap to block, so thousands of actions
+     * waiting for HTTP responses can be in progress at the same time.
+     *
+     * @return this client
+     * @throws UnsupportedOperationException if the JVM doesn't support virtual threads
+     *                                       (Java 21 or later is required)
+     * @see VirtualThreads#isSupported()
+     */
+    public RestApiErgoClient withVirtualThreads() {
+        setActionExecutor(VirtualThreads.newVirtualThreadPerTaskExecutor(), true);
+        return this;
+    }
+
+    /**
+     * Actions passed to {@link #submit(Function)} are executed by a fixed pool of the
+     * given number of platform threads.
+     *
+     * @return this client
+     */
+    public RestApiErgoClient withPlatformThreads(int nThreads) {
+        setActionExecutor(newPlatformThreadPool(nThreads), true);
+        return this;
+    }
+
+    /**
+     * Actions passed to {@link #submit(Function)} are executed by the given executor.
+     * The executor is not shut down when this client is closed.
+     *
+     * @return this client
+     */
+    public RestApiErgoClient withActionExecutor(ExecutorService executor) {
+        setActionExecutor(Preconditions.checkNotNull(executor), false);
+        return this;
+    }
+
+    private synchronized void setActionExecutor(ExecutorService executor, boolean owned) {
+        if (_ownsActionExecutor) {
+            _actionExecutor.shutdown();
+        }
+        _actionExecutor = executor;
+        _ownsActionExecutor = owned;
+    }
+
+    private synchronized ExecutorService getActionExecutor() {
+        if (_actionExecutor == null) {
+            _actionExecutor = newPlatformThreadPool(Runtime.getRuntime().availableProcessors());
+            _ownsActionExecutor = true;
+        }
+        return _actionExecutor;
+    }
+
+    private static ExecutorService newPlatformThreadPool(int nThreads) {
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadFactory threadFactory = r -> {
+            Thread t = new Thread(r, "ergo-client-action-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+        return Executors.newFixedThreadPool(nThreads, threadFactory);
+    }
+
+    /**
+     * Enables reuse of the {@link BlockchainContext} between executions of this client.
+     * After this call {@link #execute(Function)} and {@link #executeAsync(Function)} reuse
+     * the same context until the node reports a new best header
+     * (see {@link ContextFreshness#CACHED}).
+     *
+     * @param ttlMillis time (in milliseconds) during which the cached context is used
+     *                  without any requests to the node, when 0 the node is requested on
+     *                  every execution to check the context is still the newest one.
+     * @return this client
+     */
+    public RestApiErgoClient withContextCache(long ttlMillis) {
+        _contextCache.setTtlMillis(ttlMillis);
+        _defaultFreshness = ContextFreshness.CACHED;
+        return this;
+    }
+
+    /**
+     * Forgets the cached {@link BlockchainContext} (if any), so that the next execution
+     * creates a new context.
+     */
+    public void invalidateContextCache() {
+        _contextCache.invalidate();
+    }
+
+    /**
+     * Creates a new mirror of the mempool of the node used by this client. The mirror is
+     * empty until it is synchronized, see {@link MempoolMirror#sync()} and
+     * {@link MempoolMirror#startSync}.
+     */
+    public MempoolMirror createMempoolMirror() {
+        return new MempoolMirror(_client.getRetrofit());
+    }
+
+    /**
+     * Opens the index of unspent boxes stored in the given file, which follows the node used
+     * by this client, see {@link WatchedUtxoIndex}.
+     */
+    public WatchedUtxoIndex openUtxoIndex(File storeFile) {
+        return new WatchedUtxoIndex(_client.getRetrofit(), storeFile);
+    }
+
+    /**
+     * Releases connections and threads of the HTTP clients used by this ErgoClient
+     * together with the threads executing submitted actions.
+     * This client (and contexts created by it) cannot be used after it is closed.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (_ownsActionExecutor) {
+                _actionExecutor.shutdown();
+            }
+        }
+        _contextCache.invalidate();
+        _client.close();
+        if (_explorer != null) {
+            _explorer.close();
+        }
+    }
+
     /**
      * Returns the default URL for the given network type.
      */
@@ -126,6 +432,28 @@ public class RestApiErgoClient implements ErgoClient {
         return new RestApiErgoClient(nodeUrl, networkType, apiKey, explorerUrl, proxy);
     }
 
+    /**
+     * Creates a new {@link RestApiErgoClient} instance connected to a given node of the given
+     *  network type and using the given parameters of HTTP clients.
+     *
+     * @param nodeUrl     http url to Ergo node REST API endpoint of the form
+     * `https://host:port/`
+     * @param networkType type of network (mainnet, testnet) the Ergo node is part of
+     * @param apiKey      api key to authenticate this client
+     * @param explorerUrl optional http url to Explorer REST API endpoint of the form
+     *                    `https://host:port/`. If null or empty, then explorer connection
+     *                    is not initialized so that the resulting {@link ErgoClient} can
+     *                    work in `node-only` mode.
+     * @param proxy       Requests are passed through this proxy (if non-null).
+     * @param httpConfig  parameters of HTTP clients (connection pool, timeouts etc.)
+     * @return a new instance of {@link RestApiErgoClient} connected to a given node
+     */
+    public static RestApiErgoClient createWithHttpConfig(
+            String nodeUrl, NetworkType networkType, String apiKey, String explorerUrl,
+            @Nullable Proxy proxy, HttpClientConfig httpConfig) {
+        return new RestApiErgoClient(nodeUrl, networkType, apiKey, explorerUrl, proxy, httpConfig);
+    }
+
     /**
      * Create a new {@link ErgoClient} instance using node configuration parameters and
      * optional explorerUrl.
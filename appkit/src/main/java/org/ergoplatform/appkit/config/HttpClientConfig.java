@@ -0,0 +1,212 @@
+package org.ergoplatform.appkit.config;
+
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parameters of HTTP clients used to communicate with Ergo node and Explorer.
+ * Each {@link org.ergoplatform.appkit.RestApiErgoClient} creates one long-lived
+ * HTTP client for the node and one for the explorer, all blockchain contexts created by
+ * the ErgoClient share these HTTP clients (together with their connection pools).
+ * <br>
+ * Default values are the same as defaults of OkHttp library.
+ */
+public class HttpClientConfig {
+    private int maxIdleConnections = 5;
+    private long keepAliveMillis = TimeUnit.MINUTES.toMillis(5);
+    private int maxRequests = 64;
+    private int maxRequestsPerHost = 5;
+    private long connectTimeoutMillis = 10_000;
+    private long readTimeoutMillis = 10_000;
+    private long writeTimeoutMillis = 10_000;
+    private boolean http2Enabled = true;
+    private boolean gzipEnabled = true;
+    private int maxConcurrentRequests = 0;
+
+    /**
+     * Maximum number of idle connections kept in the connection pool.
+     */
+    public int getMaxIdleConnections() {
+        return maxIdleConnections;
+    }
+
+    public HttpClientConfig withMaxIdleConnections(int maxIdleConnections) {
+        this.maxIdleConnections = maxIdleConnections;
+        return this;
+    }
+
+    /**
+     * Time (in milliseconds) an idle connection is kept in the pool before it is closed.
+     */
+    public long getKeepAliveMillis() {
+        return keepAliveMillis;
+    }
+
+    public HttpClientConfig withKeepAliveMillis(long keepAliveMillis) {
+        this.keepAliveMillis = keepAliveMillis;
+        return this;
+    }
+
+    /**
+     * Maximum number of asynchronous requests executed concurrently.
+     */
+    public int getMaxRequests() {
+        return maxRequests;
+    }
+
+    public HttpClientConfig withMaxRequests(int maxRequests) {
+        this.maxRequests = maxRequests;
+        return this;
+    }
+
+    /**
+     * Maximum number of asynchronous requests executed concurrently for each host.
+     */
+    public int getMaxRequestsPerHost() {
+        return maxRequestsPerHost;
+    }
+
+    public HttpClientConfig withMaxRequestsPerHost(int maxRequestsPerHost) {
+        this.maxRequestsPerHost = maxRequestsPerHost;
+        return this;
+    }
+
+    public long getConnectTimeoutMillis() {
+        return connectTimeoutMillis;
+    }
+
+    public HttpClientConfig withConnectTimeoutMillis(long connectTimeoutMillis) {
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        return this;
+    }
+
+    public long getReadTimeoutMillis() {
+        return readTimeoutMillis;
+    }
+
+    public HttpClientConfig withReadTimeoutMillis(long readTimeoutMillis) {
+        this.readTimeoutMillis = readTimeoutMillis;
+        return this;
+    }
+
+    public long getWriteTimeoutMillis() {
+        return writeTimeoutMillis;
+    }
+
+    public HttpClientConfig withWriteTimeoutMillis(long writeTimeoutMillis) {
+        this.writeTimeoutMillis = writeTimeoutMillis;
+        return this;
+    }
+
+    /**
+     * If true, HTTP/2 is negotiated with servers which support it (over TLS),
+     * otherwise only HTTP/1.1 is used.
+     */
+    public boolean isHttp2Enabled() {
+        return http2Enabled;
+    }
+
+    public HttpClientConfig withHttp2Enabled(boolean http2Enabled) {
+        this.http2Enabled = http2Enabled;
+        return this;
+    }
+
+    /**
+     * If true, gzip compressed responses are requested (and transparently decompressed),
+     * otherwise uncompressed responses are requested.
+     */
+    public boolean isGzipEnabled() {
+        return gzipEnabled;
+    }
+
+    public HttpClientConfig withGzipEnabled(boolean gzipEnabled) {
+        this.gzipEnabled = gzipEnabled;
+        return this;
+    }
+
+    /**
+     * Maximum number of requests (both synchronous and asynchronous) which are executed
+     * concurrently by one HTTP client, other requests wait until one of the running
+     * requests is completed. Since the node and the explorer have separate HTTP clients,
+     * the limit is applied to each of them independently.
+     * This limit protects the servers when many actions are executed concurrently (for
+     * example on virtual threads). 0 means no limit (the default).
+     */
+    public int getMaxConcurrentRequests() {
+        return maxConcurrentRequests;
+    }
+
+    public HttpClientConfig withMaxConcurrentRequests(int maxConcurrentRequests) {
+        if (maxConcurrentRequests < 0) {
+            throw new IllegalArgumentException("Maximum number of concurrent requests must be >= 0");
+        }
+        this.maxConcurrentRequests = maxConcurrentRequests;
+        return this;
+    }
+
+    /**
+     * Configures the given builder with the parameters of this config.
+     */
+    public OkHttpClient.Builder applyTo(OkHttpClient.Builder builder) {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(maxRequests);
+        dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+        builder
+            .dispatcher(dispatcher)
+            .connectionPool(new ConnectionPool(maxIdleConnections, keepAliveMillis, TimeUnit.MILLISECONDS))
+            .connectTimeout(connectTimeoutMillis, TimeUnit.MILLISECONDS)
+            .readTimeout(readTimeoutMillis, TimeUnit.MILLISECONDS)
+            .writeTimeout(writeTimeoutMillis, TimeUnit.MILLISECONDS)
+            .protocols(http2Enabled
+                ? Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1)
+                : Collections.singletonList(Protocol.HTTP_1_1));
+        if (!gzipEnabled) {
+            // OkHttp requests gzip unless Accept-Encoding is specified explicitly
+            builder.addInterceptor(chain -> chain.proceed(
+                chain.request().newBuilder().header("Accept-Encoding", "identity").build()));
+        }
+        if (maxConcurrentRequests > 0) {
+            // every builder gets its own limiter, so the node and the explorer are limited separately
+            builder.addInterceptor(new ConcurrencyLimiter(maxConcurrentRequests));
+        }
+        return builder;
+    }
+
+    /**
+     * Interceptor which doesn't allow more than the given number of requests to proceed
+     * at the same time.
+     */
+    static class ConcurrencyLimiter implements Interceptor {
+        private final Semaphore permits;
+
+        ConcurrencyLimiter(int maxConcurrentRequests) {
+            permits = new Semaphore(maxConcurrentRequests, true);
+        }
+
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for a request slot");
+            }
+            try {
+                return chain.proceed(chain.request());
+            } finally {
+                permits.release();
+            }
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package org.ergoplatform.appkit
 
 import java.util.function
+import java.util.concurrent.CompletableFuture
 import org.ergoplatform.restapi.client
 import org.ergoplatform.appkit.impl.{BlockchainContextBuilderImpl, ColdBlockchainContext}
 
@@ -10,4 +11,9 @@ class ColdErgoClient(networkType: NetworkType, params: client.Parameters) extend
     val res = action.apply(ctx)
     res
   }
+
+  override def executeAsync[T](action: function.Function[BlockchainContext, CompletableFuture[T]]): CompletableFuture[T] = {
+    val ctx = new ColdBlockchainContext(networkType, params)
+    action.apply(ctx)
+  }
 }
@@ -0,0 +1,54 @@
+package org.ergoplatform.appkit;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.QueueDispatcher;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dispatcher of mocked node responses which serves the requests necessary to create a
+ * {@link BlockchainContext} (node info and last headers) by their path, and all the other
+ * requests from the queue in order.
+ * The context bootstrap requests are sent concurrently, thus their order is not known.
+ * Responses to other concurrent requests can be registered by path using
+ * {@link #withResponse(String, String)}.
+ */
+public class BootstrapQueueDispatcher extends QueueDispatcher {
+    private final String _nodeInfo;
+    private final String _lastHeaders;
+    private final Map<String, String> _responsesByPath = new ConcurrentHashMap<>();
+
+    public BootstrapQueueDispatcher(String nodeInfo, String lastHeaders) {
+        _nodeInfo = nodeInfo;
+        _lastHeaders = lastHeaders;
+    }
+
+    /**
+     * Serves the given response body to every request with the given path.
+     */
+    public BootstrapQueueDispatcher withResponse(String path, String body) {
+        _responsesByPath.put(path, body);
+        return this;
+    }
+
+    static MockResponse jsonResponse(String body) {
+        return new MockResponse()
+            .addHeader("Content-Type", "application/json; charset=utf-8")
+            .setBody(body);
+    }
+
+    @Override
+    public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+        String path = request.getPath();
+        if (path.equals("/info")) {
+            return jsonResponse(_nodeInfo);
+        } else if (path.startsWith("/blocks/lastHeaders/")) {
+            return jsonResponse(_lastHeaders);
+        } else if (_responsesByPath.containsKey(path)) {
+            return jsonResponse(_responsesByPath.get(path));
+        }
+        return super.dispatch(request);
+    }
+}
@@ -0,0 +1,42 @@
+package org.ergoplatform.appkit;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * Dispatcher of mocked node responses which simulates network latency and records the
+ * maximum number of requests processed concurrently.
+ */
+public class ConcurrencyTrackingDispatcher extends BootstrapQueueDispatcher {
+    private final long _latencyMillis;
+    private int _inFlight = 0;
+    private int _maxInFlight = 0;
+
+    public ConcurrencyTrackingDispatcher(String nodeInfo, String lastHeaders, long latencyMillis) {
+        super(nodeInfo, lastHeaders);
+        _latencyMillis = latencyMillis;
+    }
+
+    /**
+     * Maximum number of requests processed at the same time since this dispatcher was created.
+     */
+    public synchronized int getMaxInFlight() {
+        return _maxInFlight;
+    }
+
+    @Override
+    public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+        synchronized (this) {
+            _inFlight++;
+            _maxInFlight = Math.max(_maxInFlight, _inFlight);
+        }
+        try {
+            Thread.sleep(_latencyMillis);
+            return super.dispatch(request);
+        } finally {
+            synchronized (this) {
+                _inFlight--;
+            }
+        }
+    }
+}
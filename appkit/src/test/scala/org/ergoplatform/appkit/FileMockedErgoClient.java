@@ -9,6 +9,7 @@ import org.ergoplatform.restapi.client.ApiClient;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 
 /**
@@ -44,10 +45,33 @@ public class FileMockedErgoClient implements MockedErgoClient {
         }
     }
 
+    /**
+     * The first two node responses are used to create the context (node info and last
+     * headers), they are served by request path, the rest are served in order.
+     */
     @Override
     public <T> T execute(Function<BlockchainContext, T> action) {
+        MockedServers servers = startServers();
+        try {
+            BlockchainContext ctx = servers.newContextBuilder().build();
+            return action.apply(ctx);
+        } finally {
+            servers.shutdown();
+        }
+    }
+
+    @Override
+    public <T> CompletableFuture<T> executeAsync(Function<BlockchainContext, CompletableFuture<T>> action) {
+        MockedServers servers = startServers();
+        return servers.newContextBuilder().buildAsync()
+            .thenCompose(action)
+            .whenComplete((res, t) -> servers.shutdown());
+    }
+
+    private MockedServers startServers() {
         MockWebServer node = new MockWebServer();
-        enqueueResponses(node, _nodeResponses);
+        node.setDispatcher(new BootstrapQueueDispatcher(_nodeResponses.get(0), _nodeResponses.get(1)));
+        enqueueResponses(node, _nodeResponses.subList(2, _nodeResponses.size()));
 
         MockWebServer explorer = new MockWebServer();
         enqueueResponses(explorer, _explorerResponses);
@@ -58,26 +82,40 @@ public class FileMockedErgoClient implements MockedErgoClient {
         } catch (IOException e) {
             throw new ErgoClientException("Cannot start server " + node.toString(), e);
         }
+        return new MockedServers(node, explorer);
+    }
 
-        HttpUrl baseUrl = node.url("/");
-        ApiClient client = new ApiClient(baseUrl.toString());
-        HttpUrl explorerBaseUrl = explorer.url("/");
-        ExplorerApiClient explorerClient = new ExplorerApiClient(explorerBaseUrl.toString());
-
-        BlockchainContext ctx = new BlockchainContextBuilderImpl(
-            client,
-            _nodeOnlyMode ? null : explorerClient,
-            NetworkType.MAINNET).build();
+    private class MockedServers {
+        final MockWebServer node;
+        final MockWebServer explorer;
+        final ApiClient client;
+        final ExplorerApiClient explorerClient;
+
+        MockedServers(MockWebServer node, MockWebServer explorer) {
+            this.node = node;
+            this.explorer = explorer;
+            HttpUrl baseUrl = node.url("/");
+            client = new ApiClient(baseUrl.toString());
+            HttpUrl explorerBaseUrl = explorer.url("/");
+            explorerClient = new ExplorerApiClient(explorerBaseUrl.toString());
+        }
 
-        T res = action.apply(ctx);
+        BlockchainContextBuilderImpl newContextBuilder() {
+            return new BlockchainContextBuilderImpl(
+                client,
+                _nodeOnlyMode ? null : explorerClient,
+                NetworkType.MAINNET);
+        }
 
-        try {
-            explorer.shutdown();
-            node.shutdown();
-        } catch (IOException e) {
-            throw new ErgoClientException("Cannot shutdown server " + node.toString(), e);
+        void shutdown() {
+            client.close();
+            explorerClient.close();
+            try {
+                explorer.shutdown();
+                node.shutdown();
+            } catch (IOException e) {
+                throw new ErgoClientException("Cannot shutdown server " + node.toString(), e);
+            }
         }
-        return res;
     }
 }
-
@@ -7,6 +7,8 @@ import sigmastate.eval._
 import sigmastate.interpreter.CryptoConstants
 import special.sigma.GroupElement
 
+import java.util.concurrent.Executors
+
 import scala.util.Try
 
 class MultiProveDlogSpec extends PropSpec with Matchers
@@ -61,6 +63,19 @@ class MultiProveDlogSpec extends PropSpec with Matchers
       // Dlog with duplicate secrets
       Try(ctx.newProverBuilder().withDLogSecret(x).withDLogSecret(y).withDLogSecret(x).build().sign(unsigned)).isSuccess shouldBe false
 
+      // proofs of the inputs generated concurrently
+      val prover = ctx.newProverBuilder().withDLogSecret(x).withDLogSecret(y).build()
+      val reduced = prover.reduce(unsigned, 0)
+      val executor = Executors.newFixedThreadPool(2)
+      try {
+        val signed = prover.signReduced(reduced, 0, executor)
+        val signedSequentially = prover.signReduced(reduced, 0)
+        signed.getSignedInputs.size() shouldBe 2
+        signed.getId shouldBe signedSequentially.getId
+        signed.getCost shouldBe signedSequentially.getCost
+      } finally {
+        executor.shutdown()
+      }
     }
   }
 }
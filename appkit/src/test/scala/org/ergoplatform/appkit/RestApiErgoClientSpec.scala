@@ -0,0 +1,800 @@
+package org.ergoplatform.appkit
+
+import java.util.concurrent.ExecutionException
+
+import okhttp3.mockwebserver.MockWebServer
+import org.ergoplatform.appkit.config.HttpClientConfig
+import org.ergoplatform.ErgoBox
+import org.ergoplatform.appkit.impl.{BlockchainContextBuilderImpl, BlockchainContextImpl, ExplorerAndPoolUnspentBoxesLoader, InputBoxImpl, LruBoxCache, MempoolMirror, ScalaBridge, ScanUnspentBoxesLoader, TokenFirstUnspentBoxesLoader, VirtualThreads, WatchedUtxoIndex}
+import org.ergoplatform.restapi.client.{ErgoTransactionOutput, JSON, Transactions}
+import org.ergoplatform.settings.ErgoAlgos
+import org.scalatest.{Matchers, PropSpec}
+import org.scalatestplus.scalacheck.ScalaCheckDrivenPropertyChecks
+import sigmastate.helpers.NegativeTesting
+
+class RestApiErgoClientSpec extends PropSpec with Matchers
+    with ScalaCheckDrivenPropertyChecks
+    with HttpClientTesting
+    with NegativeTesting {
+
+  val nodeInfo = loadNodeResponse("response_NodeInfo.json")
+  val lastHeaders = loadNodeResponse("response_LastHeaders.json")
+
+  val boxes = Seq("response_Box1.json", "response_Box2.json", "response_Box3.json").map { name =>
+    val json = loadNodeResponse(name)
+    val id = "\"boxId\": \"([0-9a-f]+)\"".r.findFirstMatchIn(json).get.group(1)
+    id -> json
+  }
+
+  /** Starts mocked node which serves context bootstrap requests, the given responses by
+    * path and then the given responses in order. */
+  def withNodeServer[T](responses: Seq[String] = Nil, byPath: Seq[(String, String)] = Nil)
+                       (block: MockWebServer => T): T = {
+    val node = new MockWebServer()
+    val dispatcher = new BootstrapQueueDispatcher(nodeInfo, lastHeaders)
+    byPath.foreach { case (path, body) => dispatcher.withResponse(path, body) }
+    // unknown requests are answered with 404 instead of waiting for responses
+    dispatcher.setFailFast(true)
+    node.setDispatcher(dispatcher)
+    responses.foreach(r => node.enqueue(BootstrapQueueDispatcher.jsonResponse(r)))
+    node.start()
+    try block(node)
+    finally node.shutdown()
+  }
+
+  def createClient(node: MockWebServer): RestApiErgoClient =
+    new RestApiErgoClient(node.url("/").toString, NetworkType.MAINNET, "", null, null)
+
+  property("context is created for every execution when cache is not enabled") {
+    withNodeServer() { node =>
+      val client = createClient(node)
+      val ctx1 = client.execute { ctx: BlockchainContext => ctx }
+      val ctx2 = client.execute { ctx: BlockchainContext => ctx }
+      (ctx1 eq ctx2) shouldBe false
+      node.getRequestCount shouldBe 4
+    }
+  }
+
+  property("cached context is reused while the node reports the same tip") {
+    withNodeServer() { node =>
+      val client = createClient(node).withContextCache(60 * 1000)
+      val ctx1 = client.execute { ctx: BlockchainContext => ctx }
+      val ctx2 = client.execute { ctx: BlockchainContext => ctx }
+      (ctx1 eq ctx2) shouldBe true
+      node.getRequestCount shouldBe 2
+
+      // probe the node, the best header is the same, so the context is reused
+      val ctx3 = client.execute({ ctx: BlockchainContext => ctx }, ContextFreshness.VERIFIED)
+      (ctx3 eq ctx1) shouldBe true
+      node.getRequestCount shouldBe 3
+    }
+  }
+
+  property("LATEST freshness always creates a new context") {
+    withNodeServer() { node =>
+      val client = createClient(node).withContextCache(60 * 1000)
+      val ctx1 = client.execute { ctx: BlockchainContext => ctx }
+      val ctx2 = client.execute({ ctx: BlockchainContext => ctx }, ContextFreshness.LATEST)
+      (ctx1 eq ctx2) shouldBe false
+      ctx2.getHeight shouldBe ctx1.getHeight
+      node.getRequestCount shouldBe 4
+
+      // the new context replaces the cached one
+      val ctx3 = client.execute { ctx: BlockchainContext => ctx }
+      (ctx3 eq ctx2) shouldBe true
+    }
+  }
+
+  property("HTTP client is shared by contexts and released on close") {
+    withNodeServer() { node =>
+      val client = RestApiErgoClient.createWithHttpConfig(
+        node.url("/").toString, NetworkType.MAINNET, "", null, null,
+        new HttpClientConfig().withMaxIdleConnections(1).withHttp2Enabled(false))
+      val okClient = client.getNodeApiClient.getOkClient
+      client.execute { ctx: BlockchainContext => ctx }
+      client.execute { ctx: BlockchainContext => ctx }
+      (client.getNodeApiClient.getOkClient eq okClient) shouldBe true
+      node.getRequestCount shouldBe 4
+
+      client.close()
+      okClient.dispatcher().executorService().isShutdown shouldBe true
+      assertExceptionThrown(
+        client.execute { ctx: BlockchainContext => ctx },
+        exceptionLike[IllegalStateException]("is closed"))
+    }
+  }
+
+  property("context is built asynchronously with concurrent bootstrap requests") {
+    withNodeServer() { node =>
+      val client = createClient(node)
+      val builder = new BlockchainContextBuilderImpl(client.getNodeApiClient, null, NetworkType.MAINNET)
+      val ctx = builder.buildAsync().get()
+      ctx.getHeight shouldBe 123414
+      node.getRequestCount shouldBe 2
+      val timings = builder.getTimings
+      timings.getNodeInfoNanos should be > 0L
+      timings.getLastHeadersNanos should be > 0L
+      timings.getTotalNanos should be >= math.max(timings.getNodeInfoNanos, timings.getLastHeadersNanos)
+      client.close()
+    }
+  }
+
+  property("context is not built asynchronously when the node returns an error") {
+    val node = new MockWebServer()
+    // both node info and last headers requests fail
+    (1 to 2).foreach(_ => node.enqueue(new okhttp3.mockwebserver.MockResponse().setResponseCode(500).setBody("failed")))
+    node.start()
+    try {
+      val client = createClient(node)
+      val builder = new BlockchainContextBuilderImpl(client.getNodeApiClient, null, NetworkType.MAINNET)
+      val error = the[ExecutionException] thrownBy builder.buildAsync().get()
+      error.getCause shouldBe a[ErgoClientException]
+      error.getCause.getMessage should include("500: failed")
+      client.close()
+    } finally node.shutdown()
+  }
+
+  property("reused context builder loads node info for each context") {
+    withNodeServer() { node =>
+      val client = createClient(node)
+      val builder = new BlockchainContextBuilderImpl(client.getNodeApiClient, null, NetworkType.MAINNET)
+      builder.build()
+      builder.build()
+      node.getRequestCount shouldBe 4
+      builder.getTimings.getNodeInfoNanos should be > 0L
+      client.close()
+    }
+  }
+
+  property("executeAsync loads boxes concurrently and preserves the order of ids") {
+    withNodeServer(byPath = boxes.map { case (id, json) => s"/utxo/byId/$id" -> json }) { node =>
+      val client = createClient(node)
+      val ids = boxes.map(_._1).reverse
+      val loaded = client.executeAsync { ctx: BlockchainContext =>
+        ctx.getBoxesByIdAsync(ids: _*)
+      }.get()
+      loaded.map(_.getId.toString) shouldBe ids
+      node.getRequestCount shouldBe 2 + ids.size
+      client.close()
+    }
+  }
+
+  property("executeAsync completes exceptionally when a box is not found") {
+    withNodeServer() { node =>
+      val client = createClient(node)
+      val missingId = boxes.head._1
+      val future = client.executeAsync { ctx: BlockchainContext =>
+        ctx.getBoxesByIdAsync(missingId)
+      }
+      val error = the[ExecutionException] thrownBy future.get()
+      error.getCause shouldBe a[ErgoClientException]
+      error.getCause.getMessage should include(missingId)
+      client.close()
+    }
+  }
+
+  property("executeAsync reports server errors of box requests as errors, not missing boxes") {
+    withNodeServer() { node =>
+      node.enqueue(new okhttp3.mockwebserver.MockResponse().setResponseCode(503).setBody("overloaded"))
+      val client = createClient(node)
+      val future = client.executeAsync { ctx: BlockchainContext =>
+        ctx.getBoxesByIdAsync(boxes.head._1)
+      }
+      val error = the[ExecutionException] thrownBy future.get()
+      error.getCause shouldBe a[ErgoClientException]
+      error.getCause should not be a[BoxesNotFoundException]
+      error.getCause.getMessage should include("503: overloaded")
+      client.close()
+    }
+  }
+
+  property("executeAsync reuses the cached context") {
+    withNodeServer() { node =>
+      val client = createClient(node).withContextCache(60 * 1000)
+      val ctx1 = client.executeAsync { ctx: BlockchainContext =>
+        java.util.concurrent.CompletableFuture.completedFuture(ctx)
+      }.get()
+      val ctx2 = client.execute { ctx: BlockchainContext => ctx }
+      (ctx1 eq ctx2) shouldBe true
+      node.getRequestCount shouldBe 2
+      client.close()
+    }
+  }
+
+  property("default executeAsync executes the action by execute") {
+    withNodeServer() { node =>
+      val client = createClient(node)
+      val delegating = new ErgoClient {
+        override def execute[T](action: java.util.function.Function[BlockchainContext, T]): T =
+          client.execute(action)
+      }
+      val height = delegating.executeAsync { ctx: BlockchainContext =>
+        java.util.concurrent.CompletableFuture.completedFuture(ctx.getHeight)
+      }.get()
+      height shouldBe 123414
+      client.close()
+    }
+  }
+
+  property("async request completes exceptionally with the error returned by the server") {
+    withNodeServer() { node =>
+      val explorer = new MockWebServer()
+      explorer.enqueue(new okhttp3.mockwebserver.MockResponse().setResponseCode(503).setBody("try later"))
+      explorer.start()
+      try {
+        val client = new RestApiErgoClient(
+          node.url("/").toString, NetworkType.MAINNET, "", explorer.url("/").toString, null)
+        val future = client.executeAsync { ctx: BlockchainContext =>
+          ctx.getUnspentBoxesForAsync(Address.create(addr1), 0, BlockchainContext.DEFAULT_LIMIT_FOR_API)
+        }
+        val error = the[ExecutionException] thrownBy future.get()
+        error.getCause shouldBe a[ErgoClientException]
+        error.getCause.getMessage should include("503: try later")
+        client.close()
+      } finally explorer.shutdown()
+    }
+  }
+
+  property("submitted actions are executed concurrently within the limit of requests") {
+    val dispatcher = new ConcurrencyTrackingDispatcher(nodeInfo, lastHeaders, 20)
+    val node = new MockWebServer()
+    node.setDispatcher(dispatcher)
+    node.start()
+    try {
+      val client = RestApiErgoClient.createWithHttpConfig(
+        node.url("/").toString, NetworkType.MAINNET, "", null, null,
+        new HttpClientConfig().withMaxConcurrentRequests(3))
+        .withPlatformThreads(8)
+      val heights = (1 to 8).map(_ => client.submit { ctx: BlockchainContext => ctx.getHeight })
+      heights.map(_.get()) shouldBe Seq.fill(8)(123414)
+      node.getRequestCount shouldBe 16
+      dispatcher.getMaxInFlight should be <= 3
+      client.close()
+    } finally node.shutdown()
+  }
+
+  property("virtual threads are used when supported by JVM") {
+    withNodeServer() { node =>
+      val client = createClient(node)
+      if (VirtualThreads.isSupported) {
+        val height = client.withVirtualThreads().submit { ctx: BlockchainContext => ctx.getHeight }
+        height.get() shouldBe 123414
+      } else {
+        assertExceptionThrown(
+          client.withVirtualThreads(),
+          exceptionLike[UnsupportedOperationException]("Virtual threads are not supported"))
+      }
+      client.close()
+    }
+  }
+
+  property("getBoxesById preserves the order of ids and reports all missing ids") {
+    val byPath = boxes.take(2).map { case (id, json) => s"/utxo/byId/$id" -> json }
+    withNodeServer(byPath = byPath) { node =>
+      val client = createClient(node)
+      val Seq(id1, id2, id3) = boxes.map(_._1)
+      client.execute { ctx: BlockchainContext =>
+        ctx.getBoxesById(id2, id1).map(_.getId.toString) shouldBe Seq(id2, id1)
+
+        val error = the[BoxesNotFoundException] thrownBy ctx.getBoxesById(id3, id1, "ab" * 32)
+        error.getMissingIds.toArray shouldBe Array(id3, "ab" * 32)
+      }
+      client.close()
+    }
+  }
+
+  property("getBoxesById doesn't send new requests after a box is not found") {
+    withNodeServer() { node =>
+      val client = createClient(node)
+      val ids = (0 until 20).map(i => f"$i%064x")
+      val error = client.execute { ctx: BlockchainContext =>
+        the[BoxesNotFoundException] thrownBy ctx.getBoxesById(ids: _*)
+      }
+      // only the first batch of concurrent requests is sent
+      error.getMissingIds.size should be < ids.size
+      node.getRequestCount shouldBe 2 + error.getMissingIds.size
+      client.close()
+    }
+  }
+
+  property("getBoxesByIdWithMempool loads boxes taking mempool into account") {
+    val (id, json) = boxes.head
+    withNodeServer(byPath = Seq(s"/utxo/withPool/byId/$id" -> json)) { node =>
+      val client = createClient(node)
+      client.execute { ctx: BlockchainContext =>
+        ctx.getBoxesByIdWithMempool(id).map(_.getId.toString) shouldBe Seq(id)
+        // the box is not known without mempool
+        assertExceptionThrown(ctx.getBoxesById(id), exceptionLike[BoxesNotFoundException](id))
+      }
+      client.close()
+    }
+  }
+
+  /** Starts mocked explorer which serves the given responses in order. */
+  def withExplorerServer[T](responses: Seq[String])(block: MockWebServer => T): T = {
+    val explorer = new MockWebServer()
+    responses.foreach(r => explorer.enqueue(BootstrapQueueDispatcher.jsonResponse(r)))
+    explorer.start()
+    try block(explorer)
+    finally explorer.shutdown()
+  }
+
+  // the second box has wrong transaction id in the explorer response
+  val explorerBoxes = loadExplorerResponse("response_boxesByAddressUnspentComplete.json")
+
+  property("unspent boxes are created from explorer data verified by box id") {
+    val (id2, json2) = boxes(1)
+    withNodeServer(byPath = Seq(s"/utxo/byId/$id2" -> json2)) { node =>
+      withExplorerServer(Seq(explorerBoxes)) { explorer =>
+        val client = new RestApiErgoClient(
+          node.url("/").toString, NetworkType.MAINNET, "", explorer.url("/").toString, null)
+        val loaded = client.execute { ctx: BlockchainContext =>
+          ctx.getUnspentBoxesFor(Address.create(addr1), 0, BlockchainContext.DEFAULT_LIMIT_FOR_API)
+        }
+        loaded.toArray.map(_.asInstanceOf[InputBox].getId.toString) shouldBe boxes.map(_._1).toArray
+        // only the box with inconsistent data is loaded from the node
+        node.getRequestCount shouldBe 3
+        explorer.getRequestCount shouldBe 1
+        client.close()
+      }
+    }
+  }
+
+  property("unspent boxes are streamed from explorer as the stream is consumed") {
+    val (id2, json2) = boxes(1)
+    val items = new com.google.gson.JsonParser().parse(explorerBoxes).getAsJsonObject.getAsJsonArray("items")
+    // the same boxes as a JSON array and as a sequence of objects, one per line
+    val array = items.toString
+    val lines = (0 until items.size).map(i => items.get(i).toString).mkString("\n")
+    withNodeServer(byPath = Seq(s"/utxo/byId/$id2" -> json2)) { node =>
+      withExplorerServer(Seq(array, lines, array)) { explorer =>
+        val client = new RestApiErgoClient(
+          node.url("/").toString, NetworkType.MAINNET, "", explorer.url("/").toString, null)
+        val template = ErgoTreeTemplate.fromErgoTree(Address.create(addr1).getErgoAddress.script)
+        val (all, first, byTemplate) = client.execute { ctx: BlockchainContext =>
+          val all = ctx.streamUnspentBoxes(0, 1000).toArray.map(_.asInstanceOf[InputBox].getId.toString)
+          val stream = ctx.streamUnspentBoxesByLastEpochs(5)
+          // the rest of the response is not read
+          val first = try stream.findFirst().get.getId.toString finally stream.close()
+          val byTemplate = ctx.streamUnspentBoxesByErgoTreeTemplate(template, 0, 1000)
+            .toArray.map(_.asInstanceOf[InputBox].getId.toString)
+          (all, first, byTemplate)
+        }
+        all shouldBe boxes.map(_._1).toArray
+        first shouldBe boxes.head._1
+        byTemplate shouldBe all
+        explorer.takeRequest().getPath shouldBe "/api/v1/boxes/unspent/stream?minHeight=0&maxHeight=1000"
+        explorer.takeRequest().getPath shouldBe "/api/v1/boxes/unspent/byLastEpochs/stream?lastEpochs=5"
+        explorer.takeRequest().getPath shouldBe
+          s"/api/v1/boxes/unspent/byErgoTreeTemplateHash/${template.getTemplateHash}/stream?minHeight=0&maxHeight=1000"
+        client.close()
+      }
+    }
+  }
+
+  property("all unspent boxes of ErgoTree template are loaded by concurrent pages") {
+    val (id2, json2) = boxes(1)
+    // Explorer reports 250 boxes, but returns the same page three times
+    val page = explorerBoxes.replace("\"total\": 3", "\"total\": 250")
+    withNodeServer(byPath = Seq(s"/utxo/byId/$id2" -> json2)) { node =>
+      withExplorerServer(Seq(page, page, page)) { explorer =>
+        val client = new RestApiErgoClient(
+          node.url("/").toString, NetworkType.MAINNET, "", explorer.url("/").toString, null)
+        val tree = Address.create(addr1).getErgoAddress.script
+        val template = ErgoTreeTemplate.fromErgoTree(tree)
+        val loaded = client.execute { ctx: BlockchainContext =>
+          ctx.getAllUnspentBoxesByErgoTreeTemplate(template)
+        }
+        // duplicates are skipped
+        loaded.toArray.map(_.asInstanceOf[InputBox].getId.toString) shouldBe boxes.map(_._1).toArray
+        val paths = (1 to 3).map(_ => explorer.takeRequest().getPath)
+        paths.foreach(_ should startWith(
+          s"/api/v1/boxes/unspent/byErgoTreeTemplateHash/${template.getTemplateHash}?"))
+        paths.map("offset=(\\d+)".r.findFirstMatchIn(_).get.group(1).toInt).sorted shouldBe Seq(0, 100, 200)
+        // P2PK tree has no segregated constants
+        loaded.get(0).getErgoTree.bytes shouldBe tree.bytes
+        template.getParameterValues(loaded.get(0).getErgoTree).size shouldBe 0
+        client.close()
+      }
+    }
+  }
+
+  property("no unspent boxes of ErgoTree template are loaded from a page without items") {
+    withNodeServer() { node =>
+      withExplorerServer(Seq("""{"total": 0}""", """{"total": 0}""")) { explorer =>
+        val client = new RestApiErgoClient(
+          node.url("/").toString, NetworkType.MAINNET, "", explorer.url("/").toString, null)
+        val template = ErgoTreeTemplate.fromErgoTree(Address.create(addr1).getErgoAddress.script)
+        val (all, page) = client.execute { ctx: BlockchainContext =>
+          (ctx.getAllUnspentBoxesByErgoTreeTemplate(template),
+            ctx.getUnspentBoxesByErgoTreeTemplate(template, 0, BlockchainContext.DEFAULT_LIMIT_FOR_API))
+        }
+        all.isEmpty shouldBe true
+        page.isEmpty shouldBe true
+        explorer.getRequestCount shouldBe 2
+        client.close()
+      }
+    }
+  }
+
+  property("token-first loader returns the boxes of the address with the tokens first") {
+    val Seq((id1, _), (id2, json2), (id3, json3)) = boxes
+    val tokenId = "aa" * 32
+    val parser = new com.google.gson.JsonParser()
+    val items = parser.parse(explorerBoxes).getAsJsonObject.getAsJsonArray("items")
+    def withToken(i: Int, ergoTree: String) = {
+      val box = items.get(i).deepCopy().getAsJsonObject
+      box.addProperty("ergoTree", ergoTree)
+      box.getAsJsonArray("assets").add(parser.parse(s"""{"tokenId": "$tokenId", "index": 0, "amount": 10}"""))
+      box
+    }
+    val tree = items.get(0).getAsJsonObject.get("ergoTree").getAsString
+    // the first box belongs to another address, the data of both boxes don't match their
+    // ids, so they are loaded from the node
+    val tokenBoxes = s"""{"items": [${withToken(0, "0008cd02" + "11" * 32)}, ${withToken(2, tree)}], "total": 2}"""
+    val byPath = Seq(s"/utxo/byId/$id2" -> json2, s"/utxo/byId/$id3" -> json3)
+    withNodeServer(byPath = byPath) { node =>
+      withExplorerServer(Seq(tokenBoxes, explorerBoxes)) { explorer =>
+        val client = new RestApiErgoClient(
+          node.url("/").toString, NetworkType.MAINNET, "", explorer.url("/").toString, null)
+        val address = Address.create(items.get(0).getAsJsonObject.get("address").getAsString)
+        val loader = new TokenFirstUnspentBoxesLoader()
+        val pages = client.execute { ctx: BlockchainContext =>
+          loader.prepare(ctx, java.util.Arrays.asList(address), Parameters.OneErg,
+            java.util.Arrays.asList(new ErgoToken(tokenId, 5)))
+          loader.prepareForAddress(address)
+          (0 to 1).map(page => loader.loadBoxesPage(ctx, address, page).toArray
+              .map(_.asInstanceOf[InputBox].getId.toString).toSeq)
+        }
+        pages shouldBe Seq(Seq(id3), Seq(id1, id2, id3))
+        // the amount of the token was found on the first page of the token's boxes
+        explorer.takeRequest().getPath shouldBe s"/api/v1/boxes/unspent/byTokenId/$tokenId?offset=0&limit=100"
+        explorer.takeRequest().getPath should startWith(s"/api/v1/boxes/unspent/byAddress/$address")
+        client.close()
+      }
+    }
+  }
+
+  property("token-first loader returns the boxes of the address when no token boxes are found") {
+    val tokenId = "aa" * 32
+    withNodeServer(byPath = boxes.map { case (id, json) => s"/utxo/byId/$id" -> json }) { node =>
+      // Explorer returns a page of the token's boxes without items
+      withExplorerServer(Seq("""{"total": 0}""", explorerBoxes)) { explorer =>
+        val client = new RestApiErgoClient(
+          node.url("/").toString, NetworkType.MAINNET, "", explorer.url("/").toString, null)
+        val address = Address.create(addr1)
+        val loader = new TokenFirstUnspentBoxesLoader()
+        val page = client.execute { ctx: BlockchainContext =>
+          loader.prepare(ctx, java.util.Arrays.asList(address), Parameters.OneErg,
+            java.util.Arrays.asList(new ErgoToken(tokenId, 5)))
+          loader.prepareForAddress(address)
+          loader.loadBoxesPage(ctx, address, 0).toArray.map(_.asInstanceOf[InputBox].getId.toString).toSeq
+        }
+        page shouldBe boxes.map(_._1)
+        explorer.getRequestCount shouldBe 2
+        client.close()
+      }
+    }
+  }
+
+  property("unspent boxes are loaded from the node in cross-check mode") {
+    // the node doesn't know the first box
+    withNodeServer(byPath = boxes.tail.map { case (id, json) => s"/utxo/byId/$id" -> json }) { node =>
+      withExplorerServer(Seq(explorerBoxes)) { explorer =>
+        val client = new RestApiErgoClient(
+          node.url("/").toString, NetworkType.MAINNET, "", explorer.url("/").toString, null)
+          .withNodeCrossCheck(true)
+        val loaded = client.execute { ctx: BlockchainContext =>
+          ctx.getUnspentBoxesFor(Address.create(addr1), 0, BlockchainContext.DEFAULT_LIMIT_FOR_API)
+        }
+        loaded.toArray.map(_.asInstanceOf[InputBox].getId.toString) shouldBe boxes.tail.map(_._1).toArray
+        node.getRequestCount shouldBe 5
+        client.close()
+      }
+    }
+  }
+
+  property("box cache is shared by clients and consulted after the node reports boxes unspent") {
+    val byPath = boxes.map { case (id, json) => s"/utxo/byId/$id" -> json }
+    withNodeServer(byPath = byPath) { node =>
+      val cache = new LruBoxCache(2)
+      val ids = boxes.map(_._1)
+      val client1 = createClient(node).withBoxCache(cache)
+      val client2 = createClient(node).withBoxCache(cache)
+      val loaded1 = client1.execute { ctx: BlockchainContext => ctx.getBoxesById(ids.take(2): _*) }
+      cache.getStats.getMissCount shouldBe 2
+      cache.getStats.getSize shouldBe 2
+
+      val loaded2 = client2.execute { ctx: BlockchainContext => ctx.getBoxesById(ids.take(2): _*) }
+      loaded2.map(_.getId.toString) shouldBe ids.take(2).toArray
+      (loaded2(0).asInstanceOf[InputBoxImpl].getErgoBox eq
+          loaded1(0).asInstanceOf[InputBoxImpl].getErgoBox) shouldBe true
+      cache.getStats.getHitCount shouldBe 2
+      // spent-ness is still checked by the node
+      node.getRequestCount shouldBe 8
+
+      client2.execute { ctx: BlockchainContext => ctx.getBoxesById(ids(2)) }
+      cache.getStats.getEvictionCount shouldBe 1
+      cache.getStats.getSize shouldBe 2
+      client1.close()
+      client2.close()
+    }
+  }
+
+  /** Response of `utxo/byIdBinary` node endpoint for the box with the given JSON. */
+  def serializedBox(json: String): String = {
+    val data = JSON.createGson().create().fromJson(json, classOf[ErgoTransactionOutput])
+    val bytes = ErgoBox.sigmaSerializer.toBytes(ScalaBridge.isoErgoTransactionOutput.to(data))
+    s"""{"boxId": "${data.getBoxId}", "bytes": "${ErgoAlgos.encode(bytes)}"}"""
+  }
+
+  property("boxes are loaded from binary endpoints in binary mode") {
+    val Seq((id1, json1), (id2, json2), _) = boxes
+    val byPath = Seq(
+      s"/utxo/byIdBinary/$id1" -> serializedBox(json1),
+      s"/utxo/withPool/byIdBinary/$id2" -> serializedBox(json2))
+    withNodeServer(byPath = byPath) { node =>
+      val client = createClient(node).withBinaryBoxes(true)
+      client.execute { ctx: BlockchainContext =>
+        val Array(box1) = ctx.getBoxesById(id1)
+        box1.getId.toString shouldBe id1
+        // the box parsed from bytes is the same as the one parsed from JSON
+        box1.toJson(false) shouldBe new InputBoxImpl(
+          ctx.asInstanceOf[BlockchainContextImpl],
+          JSON.createGson().create().fromJson(json1, classOf[ErgoTransactionOutput])).toJson(false)
+
+        ctx.getBoxesByIdWithMempool(id2).map(_.getId.toString) shouldBe Seq(id2)
+        val error = the[BoxesNotFoundException] thrownBy ctx.getBoxesById(id2)
+        error.getMissingIds.toArray shouldBe Array(id2)
+      }
+      client.close()
+    }
+  }
+
+  property("mempool loader refreshes the index of spent boxes between prepare calls") {
+    val gson = JSON.createGson().create()
+    val mempool = loadNodeResponse("response_mempool.json")
+    // the first transaction (spending the first box) left the mempool
+    val txs = gson.fromJson(mempool, classOf[Transactions])
+    val txIds = txs.toArray.map(_.asInstanceOf[org.ergoplatform.restapi.client.ErgoTransaction].getId)
+    val byPath = boxes.map { case (id, json) => s"/utxo/byId/$id" -> json }
+    // the ids of the pool, the new transactions, then the ids of the pool without the first one
+    withNodeServer(Seq(gson.toJson(txIds), mempool, gson.toJson(txIds.tail)), byPath) { node =>
+      val client = createClient(node)
+      val loader = new ExplorerAndPoolUnspentBoxesLoader {
+        def isUsable(box: InputBox): Boolean = canUseBox(box)
+      }
+      client.execute { ctx: BlockchainContext =>
+        val Array(box1, box2, box3) = ctx.getBoxesById(boxes.map(_._1): _*)
+        loader.prepare(ctx, java.util.Collections.emptyList(), 0, java.util.Collections.emptyList())
+        Seq(box1, box2, box3).map(loader.isUsable) shouldBe Seq(false, true, false)
+
+        loader.prepare(ctx, java.util.Collections.emptyList(), 0, java.util.Collections.emptyList())
+        Seq(box1, box2, box3).map(loader.isUsable) shouldBe Seq(true, true, false)
+      }
+      client.close()
+    }
+  }
+
+  property("mempool mirror indexes unconfirmed inputs and outputs") {
+    val gson = JSON.createGson().create()
+    val mempool = loadNodeResponse("response_mempool.json")
+    val Seq(tx1, tx2) = gson.fromJson(mempool, classOf[Transactions]).toArray.toSeq
+        .map(_.asInstanceOf[org.ergoplatform.restapi.client.ErgoTransaction])
+    withNodeServer(Seq(gson.toJson(Array(tx1.getId, tx2.getId)), mempool)) { node =>
+      val client = createClient(node)
+      val mirror: MempoolMirror = client.createMempoolMirror()
+      mirror.getTransactionCount shouldBe 0
+      mirror.sync()
+      mirror.getTransactionCount shouldBe 2
+
+      val Seq(id1, _, id3) = boxes.map(_._1)
+      mirror.isSpent(ErgoId.create(id1)) shouldBe true
+      mirror.getSpendingTransactionId(ErgoId.create(id3)) shouldBe tx2.getId
+      mirror.isSpent(ErgoId.create(boxes(1)._1)) shouldBe false
+
+      // P2PK output of the first transaction, which contains a token
+      val output = tx1.getOutputs.get(2)
+      mirror.getOutput(ErgoId.create(output.getBoxId)).getBoxId shouldBe output.getBoxId
+      val address = Address.fromErgoTree(
+        ScalaBridge.isoStringToErgoTree.to(output.getErgoTree), NetworkType.MAINNET)
+      mirror.getOutputsFor(address).toArray.map(_.asInstanceOf[ErgoTransactionOutput].getBoxId) shouldBe
+          Array(output.getBoxId)
+      val tokenId = ErgoId.create(output.getAssets.get(0).getTokenId)
+      mirror.getOutputsByToken(tokenId).size shouldBe 1
+      // all the requests are answered from memory
+      node.getRequestCount shouldBe 2
+      client.close()
+    }
+  }
+
+  property("mempool mirror loads only the new transactions of the pool") {
+    val gson = JSON.createGson().create()
+    val mempool = loadNodeResponse("response_mempool.json")
+    val Seq(tx1, tx2) = gson.fromJson(mempool, classOf[Transactions]).toArray.toSeq
+        .map(_.asInstanceOf[org.ergoplatform.restapi.client.ErgoTransaction])
+    withNodeServer(Seq(
+      gson.toJson(Array(tx1.getId)), gson.toJson(Array(tx1)),
+      gson.toJson(Array(tx1.getId, tx2.getId)), gson.toJson(Array(tx2)),
+      gson.toJson(Array(tx2.getId)))) { node =>
+      val client = createClient(node)
+      val mirror = client.createMempoolMirror()
+      mirror.sync()
+      mirror.getTransactionCount shouldBe 1
+      mirror.sync()
+      mirror.getTransactionCount shouldBe 2
+      node.takeRequest().getPath shouldBe "/transactions/unconfirmed/transactionIds"
+      node.takeRequest().getBody.readUtf8() shouldBe gson.toJson(Array(tx1.getId))
+      node.takeRequest()
+      // only the transaction which is not in the mirror is requested
+      node.takeRequest().getBody.readUtf8() shouldBe gson.toJson(Array(tx2.getId))
+
+      // the first transaction left the pool, nothing is loaded
+      mirror.sync()
+      mirror.getTransactionCount shouldBe 1
+      mirror.isSpent(ErgoId.create(boxes.head._1)) shouldBe false
+      mirror.getSpendingTransactionId(ErgoId.create(boxes(2)._1)) shouldBe tx2.getId
+      node.getRequestCount shouldBe 5
+      client.close()
+    }
+  }
+
+  property("mempool mirror loads the whole pool from nodes which don't list transaction ids") {
+    val mempool = loadNodeResponse("response_mempool.json")
+    // the ids endpoint is not served, so it is answered with 404
+    withNodeServer(byPath = Seq("/transactions/unconfirmed?limit=1000&offset=0" -> mempool)) { node =>
+      val client = createClient(node)
+      val mirror = client.createMempoolMirror()
+      mirror.sync()
+      mirror.getTransactionCount shouldBe 2
+      mirror.isSpent(ErgoId.create(boxes.head._1)) shouldBe true
+      client.close()
+    }
+  }
+
+  property("UTXO index follows blocks of watched addresses and rolls back on reorg") {
+    val Seq((id1, json1), (id2, json2), (id3, json3)) = boxes
+    def headerId(height: Int, fork: Int = 0) = f"$fork%02x$height%062x"
+    def slice(from: Int, to: Int, ids: String*) =
+      s"/blocks/chainSlice?fromHeight=$from&toHeight=$to" -> ids.zipWithIndex.map { case (id, i) =>
+        s"""{"id": "$id", "height": ${from + i}}"""
+      }.mkString("[", ",", "]")
+    def block(id: String, txs: (Seq[String], Seq[String])*) =
+      s"/blocks/$id/transactions" -> txs.zipWithIndex.map { case ((inputs, outputs), i) =>
+        s"""{"id": "${f"$i%064x"}", "inputs": ${inputs.map(id => s"""{"boxId": "$id"}""").mkString("[", ",", "]")},
+           |"dataInputs": [], "outputs": ${outputs.mkString("[", ",", "]")}}""".stripMargin
+      }.mkString(s"""{"headerId": "$id", "transactions": [""", ",", "]}")
+
+    val node = new MockWebServer()
+    val dispatcher = new BootstrapQueueDispatcher(nodeInfo, lastHeaders)
+    dispatcher.setFailFast(true)
+    // the node's full height is 123414, the index starts after 123411
+    Seq(
+      slice(123411, 123411, headerId(123411)),
+      slice(123411, 123414, headerId(123411), headerId(123412), headerId(123413), headerId(123414)),
+      slice(123414, 123414, headerId(123414)),
+      block(headerId(123412), Seq("ab" * 32) -> Seq(json1, json2)),
+      block(headerId(123413), Seq(id1) -> Seq(json3)),
+      block(headerId(123414))
+    ).foreach { case (path, body) => dispatcher.withResponse(path, body) }
+    node.setDispatcher(dispatcher)
+    node.start()
+    val storeFile = java.io.File.createTempFile("utxo-index", ".bin")
+    storeFile.deleteOnExit()
+    try {
+      val client = createClient(node)
+      // all the boxes are protected by the same tree
+      val tree = "\"ergoTree\": \"([0-9a-f]+)\"".r.findFirstMatchIn(json1).get.group(1)
+      val address = Address.fromErgoTree(ScalaBridge.isoStringToErgoTree.to(tree), NetworkType.MAINNET)
+      val index = client.openUtxoIndex(storeFile)
+      index.watch(address)
+      index.startFromHeight(123411)
+      index.sync() shouldBe 3
+      index.getHeight shouldBe 123414
+      val unspent = client.withUtxoIndex(index).execute { ctx: BlockchainContext =>
+        // the index is used instead of Explorer, which is not configured
+        ctx.getUnspentBoxesFor(address, 0, 100)
+      }
+      unspent.toArray.map(_.asInstanceOf[InputBox].getId.toString) shouldBe Array(id2, id3)
+      index.close()
+
+      // the index is restored from the file, then the last block is replaced by a fork
+      // block spending the third box
+      val reopened = client.openUtxoIndex(storeFile)
+      reopened.getHeight shouldBe 123414
+      reopened.getUnspentCount shouldBe 2
+      Seq(
+        slice(123414, 123414, headerId(123414, fork = 1)),
+        slice(123413, 123414, headerId(123413), headerId(123414, fork = 1)),
+        slice(123414, 123414, headerId(123414, fork = 1)),
+        block(headerId(123414, fork = 1), Seq(id3) -> Nil)
+      ).foreach { case (path, body) => dispatcher.withResponse(path, body) }
+      reopened.sync() shouldBe 0
+      client.execute { ctx: BlockchainContext =>
+        reopened.getUnspentBoxes(ctx, address, 0, 100).toArray
+            .map(_.asInstanceOf[InputBox].getId.toString) shouldBe Array(id2)
+      }
+      // the existing boxes of an address watched later would be missing
+      an[IllegalStateException] should be thrownBy
+          reopened.watch(Address.create("9f4QF8AD1nQ3nJahQVkMj8hFSVVzVom77b52JU7EW71Zexg6N8v"))
+      reopened.compact()
+      reopened.close()
+
+      // the index is restored from the snapshot, including the blocks which can be rolled
+      // back, then the fork block is replaced by the original one
+      val compacted = client.openUtxoIndex(storeFile)
+      compacted.getHeight shouldBe 123414
+      compacted.getUnspentCount shouldBe 1
+      Seq(
+        slice(123414, 123414, headerId(123414)),
+        slice(123413, 123414, headerId(123413), headerId(123414))
+      ).foreach { case (path, body) => dispatcher.withResponse(path, body) }
+      compacted.sync() shouldBe 0
+      client.execute { ctx: BlockchainContext =>
+        compacted.getUnspentBoxes(ctx, address, 0, 100).toArray
+            .map(_.asInstanceOf[InputBox].getId.toString) shouldBe Array(id2, id3)
+      }
+      compacted.close()
+      client.close()
+    } finally node.shutdown()
+  }
+
+  property("scan loader finds the scan of an address by its rule and pages its unspent boxes") {
+    val Seq((id1, json1), (id2, json2), (id3, json3)) = boxes
+    val unspent = Seq(json1, json2, json3)
+        .map(json => s"""{"box": $json, "confirmationsNum": 1, "scans": [7]}""")
+        .mkString("[", ",", "]")
+    // all the boxes are protected by the same tree
+    val tree = "\"ergoTree\": \"([0-9a-f]+)\"".r.findFirstMatchIn(json1).get.group(1)
+    val scans =
+      s"""[{"scanId": 3, "scanName": "token", "trackingRule": {"predicate": "containsAsset", "assetId": "${"ab" * 32}"}},
+         | {"scanId": 7, "scanName": "wallet", "trackingRule": {"predicate": "equals", "register": "R1", "bytes": "$tree"}}]
+         |""".stripMargin
+    val byPath = Seq(
+      "/scan/listAll" -> scans,
+      "/scan/unspentBoxes/7?minConfirmations=0&minInclusionHeight=0" -> unspent)
+    withNodeServer(byPath = byPath) { node =>
+      val client = createClient(node)
+      val address = Address.fromErgoTree(ScalaBridge.isoStringToErgoTree.to(tree), NetworkType.MAINNET)
+      val loader = new ScanUnspentBoxesLoader().withPageSize(2)
+      val pages = client.execute { ctx: BlockchainContext =>
+        loader.prepare(ctx, java.util.Arrays.asList(address), 0, java.util.Collections.emptyList())
+        loader.prepareForAddress(address)
+        // the boxes are loaded by Scan API without Explorer, which is not configured
+        (0 to 2).map(page => loader.loadBoxesPage(ctx, address, page).toArray
+            .map(_.asInstanceOf[InputBox].getId.toString).toSeq)
+      }
+      pages shouldBe Seq(Seq(id1, id2), Seq(id3), Nil)
+      loader.getScanId(address) shouldBe 7
+
+      val requests = (1 to node.getRequestCount).map(_ => node.takeRequest())
+      // scans are looked up once and never registered by the loader
+      requests.count(_.getPath == "/scan/listAll") shouldBe 1
+      requests.count(_.getPath == "/scan/register") shouldBe 0
+      requests.count(_.getPath.startsWith("/scan/unspentBoxes/7")) shouldBe 1
+      client.close()
+    }
+  }
+
+  property("scan loader loads the boxes of addresses without a scan from explorer") {
+    val (id2, json2) = boxes(1)
+    val byPath = Seq("/scan/listAll" -> "[]", s"/utxo/byId/$id2" -> json2)
+    withNodeServer(byPath = byPath) { node =>
+      withExplorerServer(Seq(explorerBoxes)) { explorer =>
+        val client = new RestApiErgoClient(
+          node.url("/").toString, NetworkType.MAINNET, "", explorer.url("/").toString, null)
+        val address = Address.create(addr1)
+        val loader = new ScanUnspentBoxesLoader()
+        val loaded = client.execute { ctx: BlockchainContext =>
+          loader.prepare(ctx, java.util.Arrays.asList(address), 0, java.util.Collections.emptyList())
+          loader.prepareForAddress(address)
+          loader.loadBoxesPage(ctx, address, 0)
+        }
+        loaded.toArray.map(_.asInstanceOf[InputBox].getId.toString) shouldBe boxes.map(_._1).toArray
+        loader.getScanId(address) shouldBe null
+        explorer.getRequestCount shouldBe 1
+        client.close()
+      }
+    }
+  }
+}
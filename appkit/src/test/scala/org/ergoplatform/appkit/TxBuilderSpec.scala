@@ -12,10 +12,12 @@ import scorex.util.ModifierId
 import sigmastate.eval.CBigInt
 import sigmastate.helpers.NegativeTesting
 import sigmastate.interpreter.HintsBag
+import sigmastate.lang.exceptions.CostLimitException
 
 import java.io.File
 import java.math.BigInteger
 import java.util.Arrays
+import java.util.concurrent.Executors
 
 class TxBuilderSpec extends PropSpec with Matchers
   with ScalaCheckDrivenPropertyChecks
@@ -156,6 +158,167 @@ class TxBuilderSpec extends PropSpec with Matchers
     }
   }
   
+  property("Transaction builder selects boxes to spend by box selector") {
+    val ergoClient = createMockedErgoClient(MockData(Nil, Nil))
+    ergoClient.execute { ctx: BlockchainContext =>
+      val txB = ctx.newTxBuilder()
+      val candidates = Seq(50000000L, 20000000L, 9000000L).zipWithIndex.map { case (value, i) =>
+        txB.outBoxBuilder()
+          .value(value)
+          .contract(truePropContract(ctx))
+          .build()
+          .convertToInputWith(mockTxId, i.toShort)
+      }
+      val output = txB.outBoxBuilder()
+        .value(28000000)
+        .contract(truePropContract(ctx)).build()
+
+      val unsigned = txB.boxesToSpend(Arrays.asList(candidates: _*))
+        .withBoxSelector(BoxSelectors.exactMatch())
+        .outputs(output)
+        .fee(1000000)
+        .sendChangeTo(address.getErgoAddress)
+        .build()
+      val prover = ctx.newProverBuilder().build()
+      val signed = prover.sign(unsigned)
+
+      // the second and the third boxes cover the output and the fee exactly, no change
+      signed.getSignedInputs.size() shouldBe 2
+      signed.getOutputsToSpend.size() shouldBe 2
+    }
+  }
+
+  property("signAll signs transactions in order and reports failed ones") {
+    val ergoClient = createMockedErgoClient(MockData(Nil, Nil))
+    ergoClient.execute { ctx: BlockchainContext =>
+      def createTx(script: String, amount: Long): UnsignedTransaction = {
+        val txB = ctx.newTxBuilder()
+        val input = createTestInput(ctx, amount, script)
+        val output = txB.outBoxBuilder()
+          .value(amount - Parameters.MinFee)
+          .contract(truePropContract(ctx)).build()
+        txB.boxesToSpend(Arrays.asList(input))
+          .outputs(output)
+          .fee(Parameters.MinFee)
+          .sendChangeTo(address.getErgoAddress)
+          .build()
+      }
+      val txs = Arrays.asList(
+        createTx("{sigmaProp(true)}", 10000000),
+        createTx("{sigmaProp(false)}", 20000000),
+        createTx("{sigmaProp(true)}", 30000000))
+      val prover = ctx.newProverBuilder().build()
+      val executor = Executors.newFixedThreadPool(2)
+      try {
+        val signed = prover.signAll(Arrays.asList(txs.get(0), txs.get(2)), executor)
+        signed.size() shouldBe 2
+        signed.get(0).getOutputsToSpend.get(0).getValue shouldBe 9000000L
+        signed.get(1).getOutputsToSpend.get(0).getValue shouldBe 29000000L
+
+        val e = the[BatchSigningException] thrownBy prover.signAll(txs, executor)
+        e.getErrors.size() shouldBe 1
+        e.getErrors.firstKey().intValue() shouldBe 1
+        e.getSigned.get(1) shouldBe null
+        e.getSigned.get(2).getId shouldBe signed.get(1).getId
+
+        val reduced = Arrays.asList(prover.reduce(txs.get(0), 0), prover.reduce(txs.get(2), 0))
+        val signedReduced = prover.signAllReduced(reduced, executor)
+        signedReduced.get(0).getId shouldBe signed.get(0).getId
+        signedReduced.get(1).getId shouldBe signed.get(1).getId
+      } finally {
+        executor.shutdown()
+      }
+    }
+  }
+
+  property("parallel reduction gives the same reduced transaction as sequential") {
+    val ergoClient = createMockedErgoClient(MockData(Nil, Nil))
+    ergoClient.execute { ctx: BlockchainContext =>
+      val inputs = (0 until 5).map { i =>
+        ctx.newTxBuilder.outBoxBuilder
+          .value(10000000L * (i + 1))
+          .contract(ctx.compileContract(ConstantsBuilder.empty(),
+            s"{ sigmaProp(HEIGHT > $i && OUTPUTS.size > 0 && SELF.value > ${i * 1000}L) }"))
+          .build()
+          .convertToInputWith(mockTxId, i.toShort)
+      }
+      val txB = ctx.newTxBuilder()
+      val output = txB.outBoxBuilder()
+        .value(100000000)
+        .contract(truePropContract(ctx)).build()
+      val unsigned = txB.boxesToSpend(Arrays.asList(inputs: _*))
+        .outputs(output)
+        .fee(Parameters.MinFee)
+        .sendChangeTo(address.getErgoAddress)
+        .build()
+
+      val executor = Executors.newFixedThreadPool(3)
+      try {
+        val sequential = ctx.newProverBuilder().build().reduce(unsigned, 0)
+        val parallel = ctx.newProverBuilder().withParallelReduction(executor).build().reduce(unsigned, 0)
+        parallel.toBytes shouldBe sequential.toBytes
+        parallel.getCost shouldBe sequential.getCost
+      } finally {
+        executor.shutdown()
+      }
+    }
+  }
+
+  property("parallel reduction fails with the same error as sequential") {
+    val ergoClient = createMockedErgoClient(MockData(Nil, Nil))
+    ergoClient.execute { ctx: BlockchainContext =>
+      // the second input has no R4 register, so its script fails when the limit is enough
+      val inputs = Seq("sigmaProp(HEIGHT > 0)", "sigmaProp(SELF.R4[Int].get > 0)").zipWithIndex.map {
+        case (code, i) =>
+          ctx.newTxBuilder.outBoxBuilder
+            .value(60000000L)
+            .contract(ctx.compileContract(ConstantsBuilder.empty(), code))
+            .build()
+            .convertToInputWith(mockTxId, i.toShort)
+      }
+      val txB = ctx.newTxBuilder()
+      val output = txB.outBoxBuilder()
+        .value(100000000)
+        .contract(truePropContract(ctx)).build()
+      val unsigned = txB.boxesToSpend(Arrays.asList(inputs: _*))
+        .outputs(output)
+        .fee(Parameters.MinFee)
+        .sendChangeTo(address.getErgoAddress)
+        .build()
+
+      def isCostLimitFailure(e: Throwable): Boolean =
+        e != null && (e.isInstanceOf[CostLimitException] || isCostLimitFailure(e.getCause))
+
+      val executor = Executors.newFixedThreadPool(2)
+      try {
+        val sequentialProver = ctx.newProverBuilder().build()
+        val parallelProver = ctx.newProverBuilder().withParallelReduction(executor).build()
+        def checkSameFailure(baseCost: Int): Exception = {
+          val sequential = the[Exception] thrownBy sequentialProver.reduce(unsigned, baseCost)
+          val parallel = the[Exception] thrownBy parallelProver.reduce(unsigned, baseCost)
+          parallel.getClass shouldBe sequential.getClass
+          parallel.getMessage shouldBe sequential.getMessage
+          sequential
+        }
+        isCostLimitFailure(checkSameFailure(0)) shouldBe false
+
+        // the lowest base cost with which the first input leaves too little of the budget
+        // for the second one, which then fails with the cost limit before its script, while
+        // in the parallel pass it is reduced with the limit of the first input
+        // (maxBlockCost of the mocked node is 1000000)
+        var (low, high) = (0, 1000000)
+        while (high - low > 1) {
+          val mid = (low + high) / 2
+          val e = the[Exception] thrownBy sequentialProver.reduce(unsigned, mid)
+          if (isCostLimitFailure(e)) high = mid else low = mid
+        }
+        isCostLimitFailure(checkSameFailure(high)) shouldBe true
+      } finally {
+        executor.shutdown()
+      }
+    }
+  }
+
   property("non-standard fee contract") {
     val ergoClient = createMockedErgoClient(MockData(Nil, Nil))
     ergoClient.execute { ctx: BlockchainContext =>
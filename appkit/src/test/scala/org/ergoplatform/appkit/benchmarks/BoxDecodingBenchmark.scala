@@ -0,0 +1,63 @@
+package org.ergoplatform.appkit.benchmarks
+
+import java.lang.management.ManagementFactory
+
+import org.ergoplatform.ErgoBox
+import org.ergoplatform.appkit.{HttpClientTesting, JavaHelpers}
+import org.ergoplatform.appkit.impl.ScalaBridge
+import org.ergoplatform.restapi.client.{ErgoTransactionOutput, JSON, SerializedBox}
+import org.ergoplatform.settings.ErgoAlgos
+
+/**
+ * Compares CPU time and allocated memory per box of the two ways to load a box by id:
+ * parsing the JSON response of `utxo/byId` and converting it to [[ErgoBox]] (which decodes
+ * the tree and every register from Base16) versus parsing the response of
+ * `utxo/byIdBinary` and deserializing [[ErgoBox]] directly from the bytes.
+ *
+ * Run from the root of the project: `sbt "appkit/test:runMain org.ergoplatform.appkit.benchmarks.BoxDecodingBenchmark"`
+ */
+object BoxDecodingBenchmark extends App with HttpClientTesting {
+  val iterations = 100000
+  val warmUpIterations = 20000
+
+  val gson = JSON.createGson().create()
+  val threadBean = ManagementFactory.getThreadMXBean.asInstanceOf[com.sun.management.ThreadMXBean]
+  val threadId = Thread.currentThread().getId
+
+  val jsonResponses = Seq("response_Box1.json", "response_Box2.json", "response_Box3.json")
+      .map(loadNodeResponse)
+  val binaryResponses = jsonResponses.map { json =>
+    val data = gson.fromJson(json, classOf[ErgoTransactionOutput])
+    val bytes = ErgoBox.sigmaSerializer.toBytes(ScalaBridge.isoErgoTransactionOutput.to(data))
+    gson.toJson(new SerializedBox().boxId(data.getBoxId).bytes(ErgoAlgos.encode(bytes)))
+  }
+
+  def fromJson(response: String): ErgoBox =
+    ScalaBridge.isoErgoTransactionOutput.to(gson.fromJson(response, classOf[ErgoTransactionOutput]))
+
+  def fromBinary(response: String): ErgoBox =
+    JavaHelpers.decodeStringToErgoBox(gson.fromJson(response, classOf[SerializedBox]).getBytes)
+
+  def measure(name: String, responses: Seq[String], decode: String => ErgoBox): Unit = {
+    var sink = 0
+    def run(n: Int): Unit = {
+      var i = 0
+      while (i < n) {
+        // box id is computed lazily, request it to include hashing in both routes
+        sink += decode(responses(i % responses.size)).id.length
+        i += 1
+      }
+    }
+    run(warmUpIterations)
+    val startCpu = threadBean.getThreadCpuTime(threadId)
+    val startAlloc = threadBean.getThreadAllocatedBytes(threadId)
+    run(iterations)
+    val cpuNanos = threadBean.getThreadCpuTime(threadId) - startCpu
+    val allocated = threadBean.getThreadAllocatedBytes(threadId) - startAlloc
+    println(f"$name%-8s: ${cpuNanos.toDouble / iterations}%.0f ns/box, " +
+        f"${allocated.toDouble / iterations}%.0f bytes/box allocated (checksum $sink)")
+  }
+
+  measure("json", jsonResponses, fromJson)
+  measure("binary", binaryResponses, fromBinary)
+}
@@ -0,0 +1,85 @@
+package org.ergoplatform.appkit.benchmarks
+
+import java.lang.management.ManagementFactory
+import java.util
+import java.util.{List => JList}
+
+import org.ergoplatform.appkit.impl.{InputBoxImpl, ScalaBridge}
+import org.ergoplatform.appkit._
+import org.ergoplatform.restapi.client.{Asset, ErgoTransactionOutput, Registers}
+
+import scala.collection.JavaConverters._
+
+import scala.util.Random
+
+/**
+ * Compares the [[BoxSelectors]] strategies over synthetic sets of unspent boxes with
+ * different distributions of values: CPU time of selection and the resulting transaction
+ * cost, i.e. number of inputs (each input adds to the size and validation cost of the
+ * transaction) and the share of selections which need a change box.
+ *
+ * Run from the root of the project: `sbt "appkit/test:runMain org.ergoplatform.appkit.benchmarks.BoxSelectionBenchmark"`
+ */
+object BoxSelectionBenchmark extends App with HttpClientTesting {
+  val numBoxes = 1000
+  val numAmounts = 200
+  val warmUpIterations = 2
+
+  val threadBean = ManagementFactory.getThreadMXBean
+  val ergoTree = ScalaBridge.isoStringToErgoTree.from(Address.create(addr1).getErgoAddress.script)
+  val rnd = new Random(1)
+
+  def createBoxes(values: Seq[Long]): JList[InputBox] = {
+    val boxes = new util.ArrayList[InputBox]()
+    values.zipWithIndex.foreach { case (value, i) =>
+      val output = new ErgoTransactionOutput()
+        .boxId(f"$i%064x").ergoTree(ergoTree).assets(new util.ArrayList[Asset]())
+        .additionalRegisters(new Registers()).index(0).value(value).creationHeight(667)
+      boxes.add(new InputBoxImpl(null, output))
+    }
+    boxes
+  }
+
+  val distributions = Seq(
+    // values spread over several orders of magnitude, like the boxes of a user wallet
+    "log-normal" -> createBoxes((0 until numBoxes).map(_ =>
+      math.max(Parameters.MinChangeValue, (math.exp(rnd.nextGaussian() * 2) * Parameters.OneErg / 10).toLong))),
+    // mostly equal payouts, like the boxes of a pool payout address
+    "payouts" -> createBoxes((0 until numBoxes).map(_ =>
+      if (rnd.nextInt(10) == 0) Parameters.OneErg * (1 + rnd.nextInt(10)) else Parameters.OneErg / 2)),
+    // mostly dust
+    "dusty" -> createBoxes((0 until numBoxes).map(_ =>
+      if (rnd.nextInt(10) == 0) Parameters.OneErg * (1 + rnd.nextInt(100)) else Parameters.MinChangeValue * (1 + rnd.nextInt(10))))
+  )
+
+  val strategies = Seq(
+    "default" -> BoxSelectors.defaultSelector(),
+    "largest first" -> BoxSelectors.largestFirst(),
+    "min inputs" -> BoxSelectors.minInputs(),
+    "exact match" -> BoxSelectors.exactMatch(),
+    "dust consolidating" -> BoxSelectors.dustConsolidating(20, Parameters.OneErg / 100)
+  )
+
+  distributions.foreach { case (distribution, boxes) =>
+    val total = boxes.asScala.map(_.getValue.longValue).sum
+    val amounts = (0 until numAmounts).map(_ => (rnd.nextDouble() * total / 20).toLong + Parameters.MinFee)
+    println(s"$distribution: $numBoxes boxes, $numAmounts amounts")
+
+    strategies.foreach { case (name, selector) =>
+      (0 until warmUpIterations).foreach(_ => amounts.foreach(a => selector.select(boxes, a, util.Collections.emptyList())))
+      var inputs = 0L
+      var withChange = 0
+      val startCpu = threadBean.getCurrentThreadCpuTime
+      amounts.foreach { amount =>
+        val selected = selector.select(boxes, amount, util.Collections.emptyList())
+        val value = selected.asScala.map(_.getValue.longValue).sum
+        inputs += selected.size
+        if (value - amount >= Parameters.MinChangeValue) withChange += 1
+      }
+      val cpuNanos = threadBean.getCurrentThreadCpuTime - startCpu
+      println(f"  $name%-20s: ${cpuNanos.toDouble / numAmounts / 1000}%.1f us, " +
+          f"${inputs.toDouble / numAmounts}%.1f inputs, " +
+          f"change in ${withChange * 100 / numAmounts}%d%% of transactions")
+    }
+  }
+}
@@ -0,0 +1,59 @@
+package org.ergoplatform.appkit.benchmarks
+
+import java.lang.management.ManagementFactory
+
+import org.ergoplatform.appkit._
+import org.ergoplatform.appkit.impl.{ErgoScriptCompileCache, ErgoScriptContract, ErgoTreeContract}
+
+/**
+ * Compares building outputs protected by an ErgoScript contract when the script is
+ * compiled for each output and when the tree is obtained from [[ErgoScriptCompileCache]],
+ * for the same constants and for new values of the constants of each output (like with
+ * [[ErgoContract.substConstant]]).
+ *
+ * Run from the root of the project: `sbt "appkit/test:runMain org.ergoplatform.appkit.benchmarks.ContractCompileBenchmark"`
+ */
+object ContractCompileBenchmark extends App with HttpClientTesting {
+  val iterations = 200
+  val warmUpIterations = 20
+  val code = "sigmaProp(HEIGHT > deadline && OUTPUTS.size == outputs)"
+
+  val threadBean = ManagementFactory.getThreadMXBean
+
+  def constants(i: Int): Constants = {
+    val cs = new Constants
+    cs.put("deadline", Int.box(1000 + i))
+    cs.put("outputs", Int.box(2))
+    cs
+  }
+
+  def measure(name: String)(action: Int => Unit): Unit = {
+    (0 until warmUpIterations).foreach(action)
+    val startCpu = threadBean.getCurrentThreadCpuTime
+    (0 until iterations).foreach(action)
+    val cpuNanos = threadBean.getCurrentThreadCpuTime - startCpu
+    println(f"$name%-32s: ${cpuNanos.toDouble / iterations / 1000}%.1f us per output")
+  }
+
+  val ergoClient = createMockedErgoClient(MockData(Nil, Nil))
+  ergoClient.execute { ctx: BlockchainContext =>
+    val networkType = ctx.getNetworkType
+    def build(contract: ErgoContract): OutBox =
+      ctx.newTxBuilder().outBoxBuilder()
+        .value(Parameters.OneErg)
+        .contract(contract)
+        .build()
+
+    measure("compile, same constants")(_ =>
+      build(new ErgoTreeContract(JavaHelpers.compile(constants(0), code, networkType.networkPrefix))))
+    measure("compile, new values")(i =>
+      build(new ErgoTreeContract(JavaHelpers.compile(constants(i), code, networkType.networkPrefix))))
+
+    ErgoScriptCompileCache.shared().clear()
+    measure("cached, same constants")(_ =>
+      build(ErgoScriptContract.create(constants(0), code, networkType)))
+    measure("cached, new values")(i =>
+      build(ErgoScriptContract.create(constants(i), code, networkType)))
+    println(ErgoScriptCompileCache.shared().getStats)
+  }
+}
@@ -0,0 +1,125 @@
+package org.ergoplatform.appkit.benchmarks
+
+import java.lang.management.ManagementFactory
+import java.util
+import java.util.{List => JList}
+import java.util.function.{Function => JFunction}
+
+import org.ergoplatform.appkit.impl.{InputBoxImpl, ScalaBridge}
+import org.ergoplatform.appkit._
+import org.ergoplatform.restapi.client.{Asset, ErgoTransactionOutput, Registers}
+
+import scala.util.Random
+
+/**
+ * Compares CPU time and allocated memory of covering box selection
+ * ([[BoxOperations.getCoveringBoxesFor]]) over 100k synthetic boxes with the previous
+ * implementation, which is reproduced here: tokens accounted in a map by hex string ids,
+ * duplicates found by a linear scan of the selected boxes and the token list of a box
+ * converted on every access.
+ *
+ * Run from the root of the project: `sbt "appkit/test:runMain org.ergoplatform.appkit.benchmarks.CoveringBoxesBenchmark"`
+ */
+object CoveringBoxesBenchmark extends App with HttpClientTesting {
+  val numBoxes = 100000
+  val pageSize = 100
+  val iterations = 5
+  val warmUpIterations = 2
+
+  val threadBean = ManagementFactory.getThreadMXBean.asInstanceOf[com.sun.management.ThreadMXBean]
+  val threadId = Thread.currentThread().getId
+
+  val ergoTree = ScalaBridge.isoStringToErgoTree.from(Address.create(addr1).getErgoAddress.script)
+  val tokenIds = (0 until 5).map(i => f"$i%064x")
+  // the last token is rare, it is in the last boxes only
+  val rareTokenId = f"${0xff}%064x"
+  val rnd = new Random(1)
+
+  val boxes: IndexedSeq[InputBox] = (0 until numBoxes).map { i =>
+    val assets = new util.ArrayList[Asset]()
+    if (i % 10 == 0) assets.add(new Asset().tokenId(tokenIds(rnd.nextInt(tokenIds.size))).amount(rnd.nextInt(1000) + 1L))
+    if (i >= numBoxes - 3) assets.add(new Asset().tokenId(rareTokenId).amount(1L))
+    val output = new ErgoTransactionOutput()
+        .boxId(f"$i%064x").ergoTree(ergoTree).assets(assets)
+        .additionalRegisters(new Registers()).index(0).value(Parameters.OneErg).creationHeight(667)
+    new InputBoxImpl(null, output): InputBox
+  }
+  // a page is returned by the loader, a few boxes repeat on the next page
+  val loader: JFunction[Integer, JList[InputBox]] = { page =>
+    val from = math.max(0, page * pageSize - 2)
+    val to = math.min(numBoxes, (page + 1) * pageSize)
+    val res = new util.ArrayList[InputBox](to - from)
+    (from until to).foreach(i => res.add(boxes(i)))
+    res
+  }
+
+  /** Previous implementation of [[BoxOperations.getCoveringBoxesFor]]. */
+  def legacyCoveringBoxes(amountToSpend: Long, tokensToSpend: Seq[ErgoToken]): Int = {
+    val tokensLeft = new util.HashMap[String, java.lang.Long]()
+    tokensToSpend.foreach(t => tokensLeft.put(t.getId.toString, t.getValue))
+    def areTokensCovered = !tokensLeft.values().stream().anyMatch(v => v > 0)
+    val selected = new util.ArrayList[InputBox]()
+    var remaining = amountToSpend
+    var page = 0
+    while (true) {
+      val chunk = loader.apply(page)
+      val it = chunk.iterator()
+      while (it.hasNext) {
+        val box = it.next()
+        var alreadyAdded = false
+        val selIt = selected.iterator()
+        while (!alreadyAdded && selIt.hasNext) alreadyAdded = selIt.next().getId.equals(box.getId)
+        if (!alreadyAdded) {
+          var usefulTokens = false
+          val tokens = Iso.isoTokensListToPairsColl.from(box.asInstanceOf[InputBoxImpl].getErgoBox.additionalTokens)
+          val tokIt = tokens.iterator()
+          while (tokIt.hasNext) {
+            val token = tokIt.next()
+            val id = token.getId.toString
+            if (tokensLeft.containsKey(id)) {
+              val current = tokensLeft.get(id)
+              if (current > 0) usefulTokens = true
+              tokensLeft.put(id, current - token.getValue)
+            }
+          }
+          if (usefulTokens || remaining > 0) {
+            selected.add(box)
+            remaining -= box.getValue
+          }
+          if (remaining <= 0 && areTokensCovered) return selected.size
+        }
+      }
+      if (chunk.isEmpty) return selected.size
+      page += 1
+    }
+    selected.size
+  }
+
+  def coveringBoxes(amountToSpend: Long, tokensToSpend: Seq[ErgoToken]): Int = {
+    val tokens = new util.ArrayList[ErgoToken]()
+    tokensToSpend.foreach(t => tokens.add(t))
+    BoxOperations.getCoveringBoxesFor(amountToSpend, tokens, loader).getBoxes.size
+  }
+
+  def measure(name: String, select: () => Int): Unit = {
+    var sink = 0
+    (0 until warmUpIterations).foreach(_ => sink += select())
+    val startCpu = threadBean.getThreadCpuTime(threadId)
+    val startAlloc = threadBean.getThreadAllocatedBytes(threadId)
+    (0 until iterations).foreach(_ => sink += select())
+    val cpuNanos = threadBean.getThreadCpuTime(threadId) - startCpu
+    val allocated = threadBean.getThreadAllocatedBytes(threadId) - startAlloc
+    println(f"$name%-22s: ${cpuNanos.toDouble / iterations / 1000000}%.1f ms, " +
+        f"${allocated.toDouble / iterations / 1024 / 1024}%.1f MB allocated (checksum $sink)")
+  }
+
+  // all the boxes are scanned to find the rare token
+  val rareToken = Seq(new ErgoToken(rareTokenId, 3), new ErgoToken(tokenIds(0), 100))
+  measure("legacy, rare token", () => legacyCoveringBoxes(Parameters.OneErg, rareToken))
+  measure("current, rare token", () => coveringBoxes(Parameters.OneErg, rareToken))
+
+  // 10% of boxes are selected
+  val largeAmount = numBoxes / 10 * Parameters.OneErg
+  measure("legacy, large amount", () => legacyCoveringBoxes(largeAmount, Nil))
+  measure("current, large amount", () => coveringBoxes(largeAmount, Nil))
+}
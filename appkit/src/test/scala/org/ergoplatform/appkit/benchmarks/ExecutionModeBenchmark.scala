@@ -0,0 +1,62 @@
+package org.ergoplatform.appkit.benchmarks
+
+import java.util.concurrent.TimeUnit
+
+import okhttp3.mockwebserver.MockWebServer
+import org.ergoplatform.appkit.config.HttpClientConfig
+import org.ergoplatform.appkit.impl.VirtualThreads
+import org.ergoplatform.appkit.{BlockchainContext, ConcurrencyTrackingDispatcher, HttpClientTesting, NetworkType, RestApiErgoClient}
+
+/**
+ * Compares throughput of actions submitted to [[RestApiErgoClient]] when they are executed
+ * by a pool of platform threads and by virtual threads (when supported by the JVM).
+ * Each action loads one box from the mocked node, which answers with the given latency.
+ *
+ * Run from the root of the project: `sbt "appkit/test:runMain org.ergoplatform.appkit.benchmarks.ExecutionModeBenchmark"`
+ */
+object ExecutionModeBenchmark extends App with HttpClientTesting {
+  val numActions = 2000
+  val latencyMillis = 20
+  val maxConcurrentRequests = 200
+  val platformThreads = 32
+
+  val nodeInfo = loadNodeResponse("response_NodeInfo.json")
+  val lastHeaders = loadNodeResponse("response_LastHeaders.json")
+  val boxId = "d47f958b201dc7162f641f7eb055e9fa7a9cb65cc24d4447a10f86675fc58328"
+  val box = loadNodeResponse("response_Box1.json")
+
+  def measure(name: String, configure: RestApiErgoClient => RestApiErgoClient): Unit = {
+    val dispatcher = new ConcurrencyTrackingDispatcher(nodeInfo, lastHeaders, latencyMillis)
+    dispatcher.withResponse(s"/utxo/byId/$boxId", box)
+    val node = new MockWebServer()
+    node.setDispatcher(dispatcher)
+    node.start()
+    try {
+      val httpConfig = new HttpClientConfig()
+          .withMaxConcurrentRequests(maxConcurrentRequests)
+          .withMaxIdleConnections(maxConcurrentRequests)
+      val client = configure(RestApiErgoClient.createWithHttpConfig(
+        node.url("/").toString, NetworkType.MAINNET, "", null, null, httpConfig)
+          .withContextCache(TimeUnit.MINUTES.toMillis(10)))
+      try {
+        // warm up connections and the cached context
+        client.execute { ctx: BlockchainContext => ctx.getBoxesById(boxId) }
+
+        val start = System.nanoTime()
+        val results = (1 to numActions).map { _ =>
+          client.submit { ctx: BlockchainContext => ctx.getBoxesById(boxId) }
+        }
+        results.foreach(_.get())
+        val seconds = (System.nanoTime() - start) / 1e9
+        println(f"$name%-30s: $numActions actions in $seconds%.2f s, " +
+            f"${numActions / seconds}%.0f actions/s, max concurrent requests: ${dispatcher.getMaxInFlight}")
+      } finally client.close()
+    } finally node.shutdown()
+  }
+
+  measure(s"platform threads ($platformThreads)", _.withPlatformThreads(platformThreads))
+  if (VirtualThreads.isSupported)
+    measure("virtual threads", _.withVirtualThreads())
+  else
+    println(s"virtual threads are not supported by Java ${System.getProperty("java.version")}")
+}
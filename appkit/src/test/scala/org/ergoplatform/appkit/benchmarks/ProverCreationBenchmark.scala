@@ -0,0 +1,65 @@
+package org.ergoplatform.appkit.benchmarks
+
+import java.lang.management.ManagementFactory
+import java.util
+
+import org.ergoplatform.appkit._
+import org.ergoplatform.appkit.impl.ErgoTreeContract
+import org.ergoplatform.appkit.testing.AppkitTesting
+import sigmastate.eval.CompiletimeIRContext
+
+/**
+ * Measures CPU time and allocated bytes of creating a prover and of a request which
+ * creates a prover and signs a P2PK transaction with it (like a service which builds a
+ * prover per request).
+ * Before the provers shared the IR context, each of them created a
+ * [[CompiletimeIRContext]], which is measured separately as the cost saved per prover.
+ *
+ * Run from the root of the project: `sbt "appkit/test:runMain org.ergoplatform.appkit.benchmarks.ProverCreationBenchmark"`
+ */
+object ProverCreationBenchmark extends App with HttpClientTesting with AppkitTesting {
+  val iterations = 100
+  val warmUpIterations = 20
+  val mockTxId = "f9e5ce5aa0d95f5d54a7bc89c46730d9662397067250aa18a0039631c0f5b809"
+
+  val threadBean = ManagementFactory.getThreadMXBean.asInstanceOf[com.sun.management.ThreadMXBean]
+  val threadId = Thread.currentThread().getId
+
+  def measure(name: String)(action: => Unit): Unit = {
+    (0 until warmUpIterations).foreach(_ => action)
+    val startCpu = threadBean.getCurrentThreadCpuTime
+    val startBytes = threadBean.getThreadAllocatedBytes(threadId)
+    (0 until iterations).foreach(_ => action)
+    val cpuNanos = threadBean.getCurrentThreadCpuTime - startCpu
+    val bytes = threadBean.getThreadAllocatedBytes(threadId) - startBytes
+    println(f"$name%-24s: ${cpuNanos.toDouble / iterations / 1000000}%.2f ms, " +
+        f"${bytes.toDouble / iterations / 1024}%.0f KB allocated")
+  }
+
+  val ergoClient = createMockedErgoClient(MockData(Nil, Nil))
+  ergoClient.execute { ctx: BlockchainContext =>
+    def newProver(): ErgoProver = ctx.newProverBuilder()
+      .withMnemonic(mnemonic, SecretString.empty())
+      .build()
+
+    val contract = new ErgoTreeContract(newProver().getAddress.getErgoAddress.script)
+    val txB = ctx.newTxBuilder()
+    val input = txB.outBoxBuilder()
+      .value(Parameters.OneErg)
+      .contract(contract)
+      .build()
+      .convertToInputWith(mockTxId, 0)
+    val output = txB.outBoxBuilder()
+      .value(Parameters.OneErg - Parameters.MinFee)
+      .contract(truePropContract(ctx)).build()
+    val tx = txB.boxesToSpend(util.Arrays.asList(input))
+      .outputs(output)
+      .fee(Parameters.MinFee)
+      .sendChangeTo(address.getErgoAddress)
+      .build()
+
+    measure("IR context (saved)")(new CompiletimeIRContext)
+    measure("prover creation")(newProver())
+    measure("prover creation + sign")(newProver().sign(tx))
+  }
+}
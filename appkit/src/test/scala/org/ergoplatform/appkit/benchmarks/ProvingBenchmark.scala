@@ -0,0 +1,95 @@
+package org.ergoplatform.appkit.benchmarks
+
+import java.util
+import java.util.concurrent.Executors
+
+import org.ergoplatform.appkit._
+import org.ergoplatform.appkit.testing.AppkitTesting
+import sigmastate.eval._
+import sigmastate.interpreter.CryptoConstants
+import special.sigma.GroupElement
+
+/**
+ * Compares sequential and parallel proving of reduced transactions by
+ * [[ErgoProver.signReduced]] for a transaction with many P2PK (proveDlog) inputs and a
+ * transaction with many 2-of-3 threshold signature inputs.
+ *
+ * Run from the root of the project: `sbt "appkit/test:runMain org.ergoplatform.appkit.benchmarks.ProvingBenchmark"`
+ */
+object ProvingBenchmark extends App with HttpClientTesting with AppkitTesting {
+  val numInputs = 50
+  val iterations = 5
+  val mockTxId = "f9e5ce5aa0d95f5d54a7bc89c46730d9662397067250aa18a0039631c0f5b809"
+
+  val g: GroupElement = CryptoConstants.dlogGroup.generator
+  val secrets = Seq(
+    BigInt("187235612876647164378132684712638457631278").bigInteger,
+    BigInt("340956873409567839086738967389673896738906").bigInteger,
+    BigInt("598723659872346598273645987236459872364598").bigInteger)
+  val pubKeys = secrets.map(x => g.exp(x))
+
+  val ergoClient = createMockedErgoClient(MockData(Nil, Nil))
+  ergoClient.execute { ctx: BlockchainContext =>
+    def createTx(script: String): UnsignedTransaction = {
+      val contract = ctx.compileContract(ConstantsBuilder.empty(), script)
+      val inputs = new util.ArrayList[InputBox]()
+      (0 until numInputs).foreach { i =>
+        inputs.add(ctx.newTxBuilder.outBoxBuilder
+          .registers(pubKeys.map(pk => ErgoValue.of(pk)): _*)
+          .value(Parameters.OneErg)
+          .contract(contract)
+          .build()
+          .convertToInputWith(mockTxId, i.toShort))
+      }
+      val txB = ctx.newTxBuilder()
+      val output = txB.outBoxBuilder()
+        .value(numInputs * Parameters.OneErg - Parameters.MinFee)
+        .contract(truePropContract(ctx)).build()
+      txB.boxesToSpend(inputs)
+        .outputs(output)
+        .fee(Parameters.MinFee)
+        .sendChangeTo(address.getErgoAddress)
+        .build()
+    }
+
+    // the prover knows two of the three secrets
+    val prover = ctx.newProverBuilder()
+      .withDLogSecret(secrets(0))
+      .withDLogSecret(secrets(1))
+      .build()
+
+    val txs = Seq(
+      "P2PK" -> createTx("proveDlog(SELF.R4[GroupElement].get)"),
+      "2-of-3 threshold" -> createTx(
+        """atLeast(2, Coll(
+          |  proveDlog(SELF.R4[GroupElement].get),
+          |  proveDlog(SELF.R5[GroupElement].get),
+          |  proveDlog(SELF.R6[GroupElement].get)))""".stripMargin))
+
+    def measure(name: String, sign: () => SignedTransaction): Long = {
+      sign() // warm up
+      val start = System.nanoTime()
+      (0 until iterations).foreach(_ => sign())
+      val nanos = (System.nanoTime() - start) / iterations
+      println(f"  $name%-12s: ${nanos / 1000000}%d ms")
+      nanos
+    }
+
+    val cores = Runtime.getRuntime.availableProcessors()
+    val threadCounts = (Iterator.iterate(2)(_ * 2).takeWhile(_ < cores).toSeq :+ cores).distinct
+    txs.foreach { case (name, tx) =>
+      println(s"$name: $numInputs inputs")
+      val reduced = prover.reduce(tx, 0)
+      val sequential = measure("sequential", () => prover.signReduced(reduced, 0))
+      threadCounts.foreach { threads =>
+        val executor = Executors.newFixedThreadPool(threads)
+        try {
+          val nanos = measure(s"$threads threads", () => prover.signReduced(reduced, 0, executor))
+          println(f"    speedup ${sequential.toDouble / nanos}%.2f")
+        } finally {
+          executor.shutdown()
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,72 @@
+package org.ergoplatform.appkit.benchmarks
+
+import java.util
+import java.util.concurrent.Executors
+
+import org.ergoplatform.appkit._
+import org.ergoplatform.appkit.impl.ErgoTreeContract
+import org.ergoplatform.appkit.testing.AppkitTesting
+
+/**
+ * Measures how signing of independent P2PK transactions by [[ErgoProver.signAll]] scales
+ * with the number of threads, compared to signing them one by one with
+ * [[ErgoProver.sign]].
+ *
+ * Run from the root of the project: `sbt "appkit/test:runMain org.ergoplatform.appkit.benchmarks.SigningBenchmark"`
+ */
+object SigningBenchmark extends App with HttpClientTesting with AppkitTesting {
+  val numTxs = 200
+  val inputsPerTx = 3
+  val mockTxId = "f9e5ce5aa0d95f5d54a7bc89c46730d9662397067250aa18a0039631c0f5b809"
+
+  val ergoClient = createMockedErgoClient(MockData(Nil, Nil))
+  ergoClient.execute { ctx: BlockchainContext =>
+    val prover = ctx.newProverBuilder()
+      .withMnemonic(mnemonic, SecretString.empty())
+      .build()
+    val contract = new ErgoTreeContract(prover.getAddress.getErgoAddress.script)
+
+    val txs = new util.ArrayList[UnsignedTransaction]()
+    (0 until numTxs).foreach { i =>
+      val txB = ctx.newTxBuilder()
+      val inputs = new util.ArrayList[InputBox]()
+      (0 until inputsPerTx).foreach { j =>
+        inputs.add(txB.outBoxBuilder()
+          .value(Parameters.OneErg)
+          .contract(contract)
+          .build()
+          .convertToInputWith(mockTxId, (i * inputsPerTx + j).toShort))
+      }
+      val output = txB.outBoxBuilder()
+        .value(inputsPerTx * Parameters.OneErg - Parameters.MinFee)
+        .contract(truePropContract(ctx)).build()
+      txs.add(txB.boxesToSpend(inputs)
+        .outputs(output)
+        .fee(Parameters.MinFee)
+        .sendChangeTo(prover.getP2PKAddress)
+        .build())
+    }
+
+    def measure(name: String, sign: () => Unit): Long = {
+      sign() // warm up
+      val start = System.nanoTime()
+      sign()
+      val nanos = System.nanoTime() - start
+      println(f"$name%-14s: ${nanos / 1000000}%d ms, ${numTxs * 1000000000L / nanos}%d tx/s")
+      nanos
+    }
+
+    val sequential = measure("sequential", () => (0 until numTxs).foreach(i => prover.sign(txs.get(i))))
+    val cores = Runtime.getRuntime.availableProcessors()
+    val threadCounts = (Iterator.iterate(1)(_ * 2).takeWhile(_ < cores).toSeq :+ cores).distinct
+    threadCounts.foreach { threads =>
+      val executor = Executors.newFixedThreadPool(threads)
+      try {
+        val nanos = measure(s"$threads threads", () => prover.signAll(txs, executor))
+        println(f"  speedup ${sequential.toDouble / nanos}%.2f")
+      } finally {
+        executor.shutdown()
+      }
+    }
+  }
+}
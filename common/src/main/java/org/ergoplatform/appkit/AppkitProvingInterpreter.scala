@@ -5,6 +5,8 @@ import org.ergoplatform.wallet.interpreter.ErgoInterpreter
 import sigmastate.basics.DLogProtocol.{ProveDlog, DLogProverInput}
 import java.util
 import java.util.{List => JList}
+import java.util.concurrent.{CompletableFuture, CompletionException, ConcurrentLinkedQueue, Executor}
+import java.util.function.Supplier
 
 import org.ergoplatform.ErgoBox.TokenId
 import org.ergoplatform.wallet.secrets.ExtendedSecretKey
@@ -13,10 +15,11 @@ import org.ergoplatform._
 import org.ergoplatform.utils.ArithUtils
 import org.ergoplatform.wallet.protocol.context.{ErgoLikeParameters, ErgoLikeStateContext, TransactionContext}
 import scorex.crypto.authds.ADKey
-import sigmastate.Values.{ErgoTree, SigmaBoolean}
+import sigmastate.SType
+import sigmastate.Values.{ErgoTree, SigmaBoolean, Value}
 
-import scala.util.Try
-import sigmastate.eval.CompiletimeIRContext
+import scala.util.{Failure, Success, Try}
+import sigmastate.eval.{CompiletimeIRContext, IRContext}
 import sigmastate.interpreter.Interpreter.{ReductionResult, ScriptEnv}
 import sigmastate.interpreter.{Interpreter, CostedProverResult, ContextExtension, ProverInterpreter, HintsBag}
 import sigmastate.lang.exceptions.CostLimitException
@@ -36,17 +39,34 @@ object Helpers {
 
 /**
  * A class which holds secrets and can sign transactions (aka generate proofs).
+ * <p>
+ * The scripts are reduced by [[ReducingInterpreter]]s borrowed from a pool shared by all
+ * the provers, so a prover doesn't build an IR context of its own and can be used by
+ * several threads at the same time (proving doesn't use the IR context). The inherited
+ * `prove`, `verify`, `fullReduction` and `reduceToCrypto` are reduced by the pooled
+ * interpreters as well. Note, `IR` is shared by all the provers and is not thread-safe,
+ * so the methods which evaluate on it directly (like `checkCost` and `calcResult`) must
+ * not be used.
  *
  * @param secretKeys secrets in extended form to be used by prover
  * @param dhtInputs  prover inputs containing secrets for generating proofs for ProveDHTuple nodes.
  * @param params     ergo blockchain parameters
+ * @param reductionExecutor when defined, the inputs of a transaction are reduced
+ *                          concurrently on this executor, see [[reduceTransaction]]
  */
 class AppkitProvingInterpreter(
       val secretKeys: JList[ExtendedSecretKey],
       val dLogInputs: JList[DLogProverInput],
       val dhtInputs: JList[DiffieHellmanTupleProverInput],
-      params: ErgoLikeParameters)
-  extends ErgoLikeInterpreter()(new CompiletimeIRContext) with ProverInterpreter {
+      val params: ErgoLikeParameters,
+      val reductionExecutor: Option[Executor])
+  extends ErgoLikeInterpreter()(AppkitProvingInterpreter.ProversIRContext) with ProverInterpreter {
+
+  def this(secretKeys: JList[ExtendedSecretKey],
+           dLogInputs: JList[DLogProverInput],
+           dhtInputs: JList[DiffieHellmanTupleProverInput],
+           params: ErgoLikeParameters) =
+    this(secretKeys, dLogInputs, dhtInputs, params, None)
 
   override type CTX = ErgoLikeContext
   import Iso._
@@ -94,6 +114,10 @@ class AppkitProvingInterpreter(
   /** Reduce inputs of the given unsigned transaction to provable sigma propositions using
     * the given context. See [[ReducedErgoLikeTransaction]] for details.
     *
+    * When [[reductionExecutor]] is defined, the inputs are reduced concurrently (each by a
+    * pooled interpreter), but the cost limit is enforced in the order of inputs, so the
+    * result (or the failure) is the same as of sequential reduction.
+    *
     * @note requires `unsignedTx` and `boxesToSpend` have the same boxIds in the same order.
     * @param baseCost the cost accumulated so far and before this operation
     * @return a new reduced transaction with all inputs reduced and the cost of this transaction
@@ -139,7 +163,8 @@ class AppkitProvingInterpreter(
     var currentCost = txCost
     val reducedInputs = mutable.ArrayBuilder.make[ReducedInputData]()
 
-    for ((inputBox, boxIdx) <- boxesToSpend.zipWithIndex) {
+    def reduceInput(boxIdx: Int, costLimit: Long): ReducedInputData = {
+      val inputBox = boxesToSpend(boxIdx)
       val unsignedInput = unsignedTx.inputs(boxIdx)
       require(util.Arrays.equals(unsignedInput.boxId, inputBox.box.id))
 
@@ -153,17 +178,53 @@ class AppkitProvingInterpreter(
         boxIdx.toShort,
         inputBox.extension,
         ValidationRules.currentSettings,
-        costLimit = maxCost - currentCost,
+        costLimit = costLimit,
         initCost = 0,
         activatedScriptVersion = (params.blockVersion - 1).toByte
       )
 
-      val reducedInput = reduce(Interpreter.emptyEnv, inputBox.box.ergoTree, context)
+      reduce(Interpreter.emptyEnv, inputBox.box.ergoTree, context)
+    }
 
-      currentCost = addCostLimited(currentCost,
-        reducedInput.reductionResult.cost, limit = maxCost, msg = inputBox.toString())
+    // With concurrent reduction all the inputs are reduced in advance with the cost limit
+    // of the first input (the costs of previous inputs are not known yet). The results
+    // are then accounted in order, like in sequential reduction. An input which doesn't
+    // fit in its actual limit, or fails while its actual limit is lower (sequential
+    // reduction may then fail with the cost limit before the script is evaluated), is
+    // reduced again with this limit, so that both the result and the failure are the same
+    // as of sequential reduction. The failures with the same limit are rethrown as is.
+    val precomputed: IndexedSeq[CompletableFuture[ReducedInputData]] = reductionExecutor match {
+      case Some(executor) if boxesToSpend.length > 1 =>
+        boxesToSpend.indices.map { boxIdx =>
+          CompletableFuture.supplyAsync(new Supplier[ReducedInputData] {
+            override def get(): ReducedInputData =
+              reduceInput(boxIdx, maxCost - txCost)
+          }, executor)
+        }
+      case _ => IndexedSeq.empty
+    }
 
-      reducedInputs += reducedInput
+    try {
+      for ((inputBox, boxIdx) <- boxesToSpend.zipWithIndex) {
+        val costLimit = maxCost - currentCost
+        val reducedInput = if (precomputed.isEmpty) {
+          reduceInput(boxIdx, costLimit)
+        } else {
+          Try(joinResult(precomputed(boxIdx))) match {
+            case Success(res) if res.reductionResult.cost < costLimit => res
+            case Success(_) => reduceInput(boxIdx, costLimit)
+            case Failure(e) if costLimit == maxCost - txCost => throw e
+            case Failure(_) => reduceInput(boxIdx, costLimit)
+          }
+        }
+
+        currentCost = addCostLimited(currentCost,
+          reducedInput.reductionResult.cost, limit = maxCost, msg = inputBox.toString())
+
+        reducedInputs += reducedInput
+      }
+    } finally {
+      precomputed.foreach(_.cancel(false))
     }
 
     val reducedTx = ReducedErgoLikeTransaction(unsignedTx, reducedInputs.result())
@@ -182,22 +243,53 @@ class AppkitProvingInterpreter(
    */
   def signReduced(
           reducedTx: ReducedErgoLikeTransaction,
-          baseCost: Int): (ErgoLikeTransaction, Int) = {
+          baseCost: Int): (ErgoLikeTransaction, Int) =
+    signReduced(reducedTx, baseCost, None)
+
+  /** Same as `signReduced(reducedTx, baseCost)`, but when the executor is
+   * defined, the proofs of the inputs are generated concurrently on it (proving doesn't
+   * use the IR context, so this interpreter is shared). The cost limit is still checked in
+   * the order of inputs, so the cost and the failure are the same as of sequential proving.
+   *
+   * @param executor executor to generate the proofs of the inputs
+   */
+  def signReduced(
+          reducedTx: ReducedErgoLikeTransaction,
+          baseCost: Int,
+          executor: Option[Executor]): (ErgoLikeTransaction, Int) = {
     val provedInputs = mutable.ArrayBuilder.make[Input]()
     val unsignedTx = reducedTx.unsignedTx
+    // all the inputs sign the same message
+    val message = unsignedTx.messageToSign
 
     val maxCost = params.maxBlockCost
     var currentCost: Long = baseCost
 
-    for ((reducedInput, boxIdx) <- reducedTx.reducedInputs.zipWithIndex ) {
-      val unsignedInput = unsignedTx.inputs(boxIdx)
+    val proofs: IndexedSeq[CompletableFuture[CostedProverResult]] = executor match {
+      case Some(e) if reducedTx.reducedInputs.length > 1 =>
+        reducedTx.reducedInputs.toIndexedSeq.map { reducedInput =>
+          CompletableFuture.supplyAsync(new Supplier[CostedProverResult] {
+            override def get(): CostedProverResult = proveReduced(reducedInput, message)
+          }, e)
+        }
+      case _ => IndexedSeq.empty
+    }
+
+    try {
+      for ((reducedInput, boxIdx) <- reducedTx.reducedInputs.zipWithIndex ) {
+        val unsignedInput = unsignedTx.inputs(boxIdx)
 
-      val proverResult = proveReduced(reducedInput, unsignedTx.messageToSign)
-      val signedInput = Input(unsignedInput.boxId, proverResult)
+        val proverResult =
+          if (proofs.isEmpty) proveReduced(reducedInput, message)
+          else joinResult(proofs(boxIdx))
+        val signedInput = Input(unsignedInput.boxId, proverResult)
 
-      currentCost = addCostLimited(currentCost, proverResult.cost, maxCost, msg = signedInput.toString())
+        currentCost = addCostLimited(currentCost, proverResult.cost, maxCost, msg = signedInput.toString())
 
-      provedInputs += signedInput
+        provedInputs += signedInput
+      }
+    } finally {
+      proofs.foreach(_.cancel(false))
     }
 
     val signedTx = new ErgoLikeTransaction(
@@ -206,6 +298,13 @@ class AppkitProvingInterpreter(
     (signedTx, txCost)
   }
 
+  /** Waits for the result of the given future and rethrows the exception of the task as is. */
+  private def joinResult[T](future: CompletableFuture[T]): T =
+    try future.join()
+    catch {
+      case e: CompletionException => throw e.getCause
+    }
+
   // TODO pull this method up to the base class and reuse in `prove`
   /** Reduces the given ErgoTree in the given context to the sigma proposition.
    *
@@ -216,18 +315,20 @@ class AppkitProvingInterpreter(
    */
   def reduce(env: ScriptEnv,
             ergoTree: ErgoTree,
-            context: CTX): ReducedInputData = {
-    val initCost = ergoTree.complexity + context.initCost
-    val remainingLimit = context.costLimit - initCost
-    if (remainingLimit <= 0)
-      throw new CostLimitException(initCost,
-        s"Estimated execution cost $initCost exceeds the limit ${context.costLimit}", None)
+            context: CTX): ReducedInputData =
+    ReducingInterpreter.withReducer(_.reduce(env, ergoTree, context))
 
-    val ctxUpdInitCost = context.withInitCost(initCost).asInstanceOf[CTX]
+  /** Reduces the given tree by an interpreter borrowed from the pool, since the IR context
+    * of this prover is shared (`prove` and `verify` reduce by this method).
+    */
+  override def fullReduction(ergoTree: ErgoTree,
+                             context: CTX,
+                             env: ScriptEnv): ReductionResult =
+    ReducingInterpreter.withReducer(_.fullReduction(ergoTree, context, env))
 
-    val res = fullReduction(ergoTree, ctxUpdInitCost, env)
-    ReducedInputData(res, ctxUpdInitCost.extension)
-  }
+  /** Reduces the given expression by an interpreter borrowed from the pool, see [[fullReduction]]. */
+  override def reduceToCrypto(context: CTX, env: ScriptEnv, exp: Value[SType]): Try[ReductionResult] =
+    ReducingInterpreter.withReducer(_.reduceToCrypto(context, env, exp))
 
   // TODO pull this method up to the base class and reuse in `prove`
   /** Generates proof (aka signature) for the given message using secrets of this prover.
@@ -244,6 +345,57 @@ class AppkitProvingInterpreter(
 
 }
 
+object AppkitProvingInterpreter {
+  /** IR context of all the provers. It is not used for evaluation (the scripts are
+    * reduced by [[ReducingInterpreter]]s), so the provers don't build one each.
+    * Not thread-safe, see [[AppkitProvingInterpreter]].
+    */
+  private[appkit] lazy val ProversIRContext: IRContext = new CompiletimeIRContext
+}
+
+/** Interpreter which reduces scripts for [[AppkitProvingInterpreter]]s.
+  * The IR context of an interpreter is expensive to create, but it is not thread-safe,
+  * thus the interpreters are pooled and each is used by one thread at a time, see
+  * [[ReducingInterpreter.withReducer]].
+  */
+class ReducingInterpreter extends ErgoLikeInterpreter()(new CompiletimeIRContext) {
+  override type CTX = ErgoLikeContext
+
+  /** Reduces the given ErgoTree in the given context to the sigma proposition, see
+    * [[AppkitProvingInterpreter.reduce]].
+    */
+  def reduce(env: ScriptEnv,
+             ergoTree: ErgoTree,
+             context: CTX): ReducedInputData = {
+    val initCost = ergoTree.complexity + context.initCost
+    val remainingLimit = context.costLimit - initCost
+    if (remainingLimit <= 0)
+      throw new CostLimitException(initCost,
+        s"Estimated execution cost $initCost exceeds the limit ${context.costLimit}", None)
+
+    val ctxUpdInitCost = context.withInitCost(initCost).asInstanceOf[CTX]
+
+    val res = fullReduction(ergoTree, ctxUpdInitCost, env)
+    ReducedInputData(res, ctxUpdInitCost.extension)
+  }
+}
+
+object ReducingInterpreter {
+  /** Max number of idle interpreters kept in the pool. */
+  val MaxIdle: Int = Runtime.getRuntime.availableProcessors()
+
+  private val pool = new ConcurrentLinkedQueue[ReducingInterpreter]()
+
+  /** Calls the given function with an interpreter borrowed from the pool for the time of
+    * the call. A new interpreter is created when all the pooled ones are in use.
+    */
+  def withReducer[T](f: ReducingInterpreter => T): T = {
+    val reducer = Option(pool.poll()).getOrElse(new ReducingInterpreter)
+    try f(reducer)
+    finally if (pool.size < MaxIdle) pool.offer(reducer)
+  }
+}
+
 /** Represents data necessary to sign an input of an unsigend transaction.
   * @param reductionResult result of reducing input script to a sigma proposition
   * @param extension context extensions (aka context variables) used by script and which
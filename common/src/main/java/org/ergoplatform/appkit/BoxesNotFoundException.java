@@ -0,0 +1,23 @@
+package org.ergoplatform.appkit;
+
+import java.util.List;
+
+/**
+ * Thrown when some of the requested boxes cannot be loaded from the node (for example, when
+ * the boxes are already spent or not yet created).
+ */
+public class BoxesNotFoundException extends ErgoClientException {
+    private final List<String> _missingIds;
+
+    public BoxesNotFoundException(List<String> missingIds) {
+        super("Cannot load UTXO boxes " + missingIds, null);
+        _missingIds = missingIds;
+    }
+
+    /**
+     * Ids of the boxes which were not found, in the order they were requested.
+     */
+    public List<String> getMissingIds() {
+        return _missingIds;
+    }
+}
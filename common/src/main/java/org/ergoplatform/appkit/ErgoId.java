@@ -8,6 +8,8 @@ import java.util.Arrays;
  */
 public class ErgoId {
     private final byte[] _idBytes;
+    // computed lazily, ids are used as keys of hash maps and sets
+    private int _hash;
 
     public ErgoId(byte[] idBytes) {
         _idBytes = idBytes;
@@ -22,7 +24,12 @@ public class ErgoId {
 
     @Override
     public int hashCode() {
-        return Arrays.hashCode(_idBytes);
+        int h = _hash;
+        if (h == 0) {
+            h = Arrays.hashCode(_idBytes);
+            _hash = h;
+        }
+        return h;
     }
 
     @Override
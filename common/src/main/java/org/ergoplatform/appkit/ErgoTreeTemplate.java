@@ -57,6 +57,15 @@ public class ErgoTreeTemplate {
      */
     public String getEncodedBytes() { return Base16.encode(getBytes()); }
 
+    /**
+     * Returns hash of the template bytes encoded as Base16 string. Boxes with the same
+     * template can be found by this hash (see
+     * {@code BlockchainContext.getUnspentBoxesByErgoTreeTemplate}).
+     *
+     * @see ErgoTreeTemplate#getBytes
+     */
+    public String getTemplateHash() { return JavaHelpers.ergoTreeTemplateHash(getBytes()); }
+
     /**
      * A number of placeholders in the template, which can be substituted (aka parameters).
      * This is immutable property of a {@link ErgoTreeTemplate}, which counts all the constants in the
@@ -76,6 +85,24 @@ public class ErgoTreeTemplate {
         return ergoValues.stream().map(v -> Iso.isoErgoTypeToSType().from(v.tpe())).collect(Collectors.toList());
     }
 
+    /**
+     * Returns values of all template parameters in the given ErgoTree, which has this
+     * template. The values are typed according to {@link #getParameterTypes()}.
+     *
+     * @param tree ErgoTree with this template, for example of a box found by the template
+     * @return values of parameters in the order of placeholders
+     * @throws IllegalArgumentException if the given tree has a different template
+     */
+    public List<ErgoValue<?>> getParameterValues(Values.ErgoTree tree) {
+        if (!Arrays.equals(_templateBytes, JavaHelpers.ergoTreeTemplateBytes(tree))) {
+            throw new IllegalArgumentException("ErgoTree doesn't have this template: " + tree);
+        }
+        Iso<List<Values.Constant<SType>>, IndexedSeq<Values.Constant<SType>>> iso =
+         Iso.JListToIndexedSeq(Iso.identityIso());
+        List<Values.Constant<SType>> constants = iso.from(tree.constants());
+        return constants.stream().map(c -> Iso.isoErgoValueToSValue().from(c)).collect(Collectors.toList());
+    }
+
     /**
      * Creates a new ErgoTree with new values for all parameters of this template.
      *
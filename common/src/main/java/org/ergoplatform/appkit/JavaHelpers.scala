@@ -16,6 +16,7 @@ import scorex.crypto.hash.Digest32
 import org.ergoplatform.wallet.mnemonic.{Mnemonic => WMnemonic}
 import org.ergoplatform.settings.ErgoAlgos
 import sigmastate.lang.Terms.ValueOps
+import sigmastate.lang.TransformingSigmaBuilder
 import sigmastate.eval.{CompiletimeIRContext, Evaluation, Colls, CostingSigmaDslBuilder, CPreHeader}
 import sigmastate.eval.Extensions._
 import special.sigma.{AnyValue, AvlTree, Header, GroupElement}
@@ -291,6 +292,13 @@ object JavaHelpers {
     ErgoTreeSerializer.DefaultSerializer.deserializeErgoTree(Base16.decode(base16).get)
   }
 
+  /** Decodes this base16 string to byte array and parse it as serialized [[ErgoBox]]
+   * (the format returned by `utxo/byIdBinary` node endpoint).
+   */
+  def decodeStringToErgoBox(base16: String): ErgoBox = {
+    ErgoBox.sigmaSerializer.fromBytes(decodeStringToBytes(base16))
+  }
+
   def createP2PKAddress(pk: ProveDlog, networkPrefix: NetworkPrefix): P2PKAddress = {
     implicit val ergoAddressEncoder: ErgoAddressEncoder = ErgoAddressEncoder(networkPrefix)
     P2PKAddress(pk)
@@ -324,6 +332,69 @@ object JavaHelpers {
     ErgoTree.fromProposition(prop)
   }
 
+  /** Converts the values of the given named constants to ErgoTree constants, like the
+    * compiler does with the constants of [[compile]].
+    *
+    * @return the constants in the order of the map, or null if some of the values is not
+    *         convertible to a constant
+    */
+  def liftConstants(constants: util.Map[String, Object]): Array[Constant[SType]] = {
+    val values = JavaConversions.mapAsScalaMap(constants).values.toArray
+    val lifted = new Array[Constant[SType]](values.length)
+    for (i <- values.indices) {
+      val v = TransformingSigmaBuilder.liftAny(values(i))
+      if (v.isEmpty) return null
+      v.get match {
+        case c: Constant[SType] @unchecked => lifted(i) = c
+        case _ => return null
+      }
+    }
+    lifted
+  }
+
+  /** Finds the position of each of the given constants among the segregated constants of
+    * the tree. The values of the constants can be substituted only when each of them is
+    * found at exactly one position of its own, otherwise (e.g. when a constant is folded
+    * by the compiler or is equal to another constant) null is returned.
+    */
+  def constantPositions(tree: ErgoTree, constants: Array[Constant[SType]]): Array[Int] = {
+    val positions = constants.map { c =>
+      val found = tree.constants.indices.filter(i => tree.constants(i) == c)
+      if (found.size == 1) found.head else -1
+    }
+    if (positions.contains(-1) || positions.distinct.length != positions.length) null
+    else positions
+  }
+
+  /** Creates a copy of the tree with the segregated constants at the given positions
+    * replaced by the given constants of the same types. */
+  def substConstants(tree: ErgoTree, positions: Array[Int], constants: Array[Constant[SType]]): ErgoTree = {
+    val newConstants = tree.constants.toArray
+    for (i <- positions.indices) {
+      newConstants(positions(i)) = constants(i)
+    }
+    ErgoTree(tree.header, newConstants.toIndexedSeq, tree.root.right.get)
+  }
+
+  /** Same as `substConstants`, but returns null when one of the given constants is equal
+    * to another segregated constant of the resulting tree (a literal, another constant or
+    * one of the given ones), since the compiler segregates equal constants only once, so
+    * the tree compiled with these values is different. */
+  def substDistinctConstants(tree: ErgoTree, positions: Array[Int], constants: Array[Constant[SType]]): ErgoTree = {
+    val newConstants = tree.constants.toArray
+    for (i <- positions.indices) {
+      newConstants(positions(i)) = constants(i)
+    }
+    for (i <- positions.indices) {
+      if (newConstants.indices.exists(j => j != positions(i) && newConstants(j) == constants(i))) return null
+    }
+    ErgoTree(tree.header, newConstants.toIndexedSeq, tree.root.right.get)
+  }
+
+  /** Returns true if both trees are serialized to the same bytes. */
+  def sameErgoTree(tree1: ErgoTree, tree2: ErgoTree): Boolean =
+    util.Arrays.equals(tree1.bytes, tree2.bytes)
+
   private def anyValueToConstant(v: AnyValue): Constant[_ <: SType] = {
     val tpe = Evaluation.rtypeToSType(v.tVal)
     Constant(v.value.asInstanceOf[SType#WrappedType], tpe)
@@ -423,6 +494,12 @@ object JavaHelpers {
     ErgoTreeSerializer.DefaultSerializer.deserializeHeaderWithTreeBytes(r)._4
   }
 
+  /** Hash of the template bytes encoded in Base16, which is used by Explorer to find boxes
+    * with the same template. */
+  def ergoTreeTemplateHash(templateBytes: Array[Byte]): String = {
+    ErgoAlgos.encode(ErgoAlgos.hash(templateBytes))
+  }
+
   def createDiffieHellmanTupleProverInput(g: GroupElement,
                                           h: GroupElement,
                                           u: GroupElement,
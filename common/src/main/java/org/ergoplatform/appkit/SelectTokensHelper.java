@@ -3,57 +3,104 @@ package org.ergoplatform.appkit;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Helper class to keep track of amount of tokens to spend and amount of tokens already found
+ * <p>
+ * The tokens are compared by id bytes and the amounts are kept in a primitive array, so
+ * checking the tokens of a box doesn't allocate. Usually only a few tokens are spent, so the
+ * ids are searched linearly, the index by id is only built for many tokens.
  */
 public class SelectTokensHelper {
-    private final HashMap<String, Long> tokensLeft;
+    /** Number of tokens starting from which the ids are searched using a hash index. */
+    static final int MIN_INDEXED_TOKENS = 8;
 
-    public SelectTokensHelper(Iterable<ErgoToken> tokensToSpent) {
-        tokensLeft = new HashMap<>();
+    private final ErgoId[] tokenIds;
+    private final long[] tokensLeft;
+    private final int tokensCount;
+    // index of tokenIds by id, null for few tokens
+    private final HashMap<ErgoId, Integer> tokenIndex;
+    // number of tokens with amount left > 0
+    private int uncoveredCount;
 
+    public SelectTokensHelper(Iterable<ErgoToken> tokensToSpent) {
+        List<ErgoToken> tokens = new ArrayList<>();
         for (ErgoToken ergoToken : tokensToSpent) {
-            tokensLeft.put(ergoToken.getId().toString(), ergoToken.getValue());
+            tokens.add(ergoToken);
+        }
+        tokenIds = new ErgoId[tokens.size()];
+        tokensLeft = new long[tokens.size()];
+        tokenIndex = tokens.size() >= MIN_INDEXED_TOKENS ? new HashMap<>(tokens.size() * 2) : null;
+
+        int count = 0;
+        for (ErgoToken ergoToken : tokens) {
+            int i = indexOf(ergoToken.getId(), count);
+            if (i < 0) {
+                i = count++;
+                tokenIds[i] = ergoToken.getId();
+                if (tokenIndex != null) {
+                    tokenIndex.put(ergoToken.getId(), i);
+                }
+            }
+            // the last amount of the same token is used
+            tokensLeft[i] = ergoToken.getValue();
+        }
+        tokensCount = count;
+        for (int i = 0; i < tokensCount; i++) {
+            if (tokensLeft[i] > 0) {
+                uncoveredCount++;
+            }
         }
     }
 
+    /**
+     * @return index of the given token id among the first count tokens or -1
+     */
+    private int indexOf(ErgoId tokenId, int count) {
+        if (tokenIndex != null) {
+            Integer i = tokenIndex.get(tokenId);
+            return i != null ? i : -1;
+        }
+        for (int i = 0; i < count; i++) {
+            if (tokenIds[i].equals(tokenId)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
     /**
      * @return if the found tokens were needed to fill the tokens left
      */
     public boolean foundNewTokens(Iterable<ErgoToken> foundTokens) {
         boolean tokensNeeded = false;
         for (ErgoToken foundToken : foundTokens) {
-            String tokenId = foundToken.getId().toString();
-            if (tokensLeft.containsKey(tokenId)) {
-                Long currentValue = tokensLeft.get(tokenId);
+            int i = indexOf(foundToken.getId(), tokensCount);
+            if (i >= 0) {
+                long currentValue = tokensLeft[i];
+                long newValue = currentValue - foundToken.getValue();
                 if (currentValue > 0) {
                     tokensNeeded = true;
+                    if (newValue <= 0) {
+                        uncoveredCount--;
+                    }
                 }
-                tokensLeft.put(tokenId, currentValue - foundToken.getValue());
+                tokensLeft[i] = newValue;
             }
         }
         return tokensNeeded;
     }
 
     public boolean areTokensCovered() {
-        boolean success = true;
-        for (Long value : tokensLeft.values()) {
-            if (value > 0) {
-                success = false;
-                break;
-            }
-        }
-        return success;
+        return uncoveredCount == 0;
     }
 
     public List<ErgoToken> getRemainingTokenList() {
         List<ErgoToken> result = new ArrayList<>();
-        for (Map.Entry<String, Long> tokenAmount : tokensLeft.entrySet()) {
-            long amountLeft = tokenAmount.getValue();
+        for (int i = 0; i < tokensCount; i++) {
+            long amountLeft = tokensLeft[i];
             if (amountLeft > 0) {
-                result.add(new ErgoToken(tokenAmount.getKey(), amountLeft));
+                result.add(new ErgoToken(tokenIds[i], amountLeft));
             }
         }
         return result;
@@ -0,0 +1,50 @@
+package org.ergoplatform.appkit.impl;
+
+/**
+ * Usage statistics of an {@link ErgoScriptCompileCache}.
+ */
+public class CompileCacheStats {
+    private final long _hitCount;
+    private final long _missCount;
+    private final long _substitutionCount;
+    private final long _evictionCount;
+    private final long _size;
+
+    public CompileCacheStats(long hitCount, long missCount, long substitutionCount, long evictionCount, long size) {
+        _hitCount = hitCount;
+        _missCount = missCount;
+        _substitutionCount = substitutionCount;
+        _evictionCount = evictionCount;
+        _size = size;
+    }
+
+    /** Number of lookups which returned a tree without compiling the script. */
+    public long getHitCount() { return _hitCount; }
+
+    /** Number of lookups which compiled the script. */
+    public long getMissCount() { return _missCount; }
+
+    /**
+     * Number of hits which substituted new values of the constants into the cached tree
+     * (included in {@link #getHitCount()}).
+     */
+    public long getSubstitutionCount() { return _substitutionCount; }
+
+    /** Number of scripts removed from the cache to respect its maximum size. */
+    public long getEvictionCount() { return _evictionCount; }
+
+    /** Number of scripts in the cache. */
+    public long getSize() { return _size; }
+
+    /** Ratio of lookups which didn't compile the script, 1.0 if there were no lookups. */
+    public double getHitRate() {
+        long requestCount = _hitCount + _missCount;
+        return requestCount == 0 ? 1.0 : (double)_hitCount / requestCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CompileCacheStats(hits: %d, misses: %d, substitutions: %d, evictions: %d, size: %d)",
+            _hitCount, _missCount, _substitutionCount, _evictionCount, _size);
+    }
+}
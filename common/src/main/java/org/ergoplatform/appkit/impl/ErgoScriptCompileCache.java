@@ -0,0 +1,204 @@
+package org.ergoplatform.appkit.impl;
+
+import org.ergoplatform.appkit.Constants;
+import org.ergoplatform.appkit.JavaHelpers;
+import org.ergoplatform.appkit.NetworkType;
+import sigmastate.SType;
+import sigmastate.Values;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Cache of the ErgoTrees compiled from ErgoScript by {@link ErgoScriptContract}, which
+ * keeps up to the given number of scripts and evicts the least recently used one when the
+ * cache is full.
+ * <p>
+ * A script is cached by its source, the names and types of its constants and the network
+ * prefix. When only the values of the constants change (like with
+ * {@link ErgoScriptContract#substConstant(String, Object)}), the new values are substituted
+ * into the segregated constants of the cached tree instead of compiling the script. This
+ * is done only for the scripts where each of the constants is found in the tree as a
+ * segregated constant of its own (the compiler may fold constants into other values) and
+ * after the substitution gave the same tree as the compiler for the second set of values.
+ * The values which are equal to other constants of the tree (including the literals of the
+ * script) are always compiled, since the compiler segregates equal constants only once.
+ * <p>
+ * All the methods are thread-safe, so one instance can be shared by all the contracts of
+ * the process (see {@link #shared()}).
+ */
+public class ErgoScriptCompileCache {
+    /** Maximum number of scripts in the {@link #shared() shared} cache. */
+    public static final int DEFAULT_MAX_SIZE = 1_000;
+
+    private static volatile ErgoScriptCompileCache _shared;
+
+    private final int _maxSize;
+    private final LinkedHashMap<Key, Entry> _entries;
+    private long _hitCount = 0;
+    private long _missCount = 0;
+    private long _substitutionCount = 0;
+    private long _evictionCount = 0;
+
+    /**
+     * @param maxSize maximum number of scripts kept in the cache
+     */
+    public ErgoScriptCompileCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Maximum size of the cache must be > 0");
+        }
+        _maxSize = maxSize;
+        // access order, so that the eldest entry is the least recently used one
+        _entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() > _maxSize) {
+                    _evictionCount++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the cache shared by the process, which is created on first call with
+     * {@link #DEFAULT_MAX_SIZE}.
+     */
+    public static ErgoScriptCompileCache shared() {
+        if (_shared == null) {
+            synchronized (ErgoScriptCompileCache.class) {
+                if (_shared == null) {
+                    _shared = new ErgoScriptCompileCache(DEFAULT_MAX_SIZE);
+                }
+            }
+        }
+        return _shared;
+    }
+
+    public int getMaxSize() {
+        return _maxSize;
+    }
+
+    /**
+     * Returns the ErgoTree of the given script with the given constants, the same as
+     * {@link JavaHelpers#compile} returns.
+     */
+    public Values.ErgoTree getErgoTree(Constants constants, String code, NetworkType networkType) {
+        Values.Constant<SType>[] values = JavaHelpers.liftConstants(constants);
+        if (values == null) {
+            // not cacheable, the compiler reports the invalid constant
+            synchronized (this) {
+                _missCount++;
+            }
+            return JavaHelpers.compile(constants, code, networkType.networkPrefix);
+        }
+        Key key = new Key(code, networkType.networkPrefix, constants, values);
+
+        Entry entry;
+        synchronized (this) {
+            entry = _entries.get(key);
+            if (entry != null && Arrays.equals(entry.values, values)) {
+                _hitCount++;
+                return entry.tree;
+            }
+        }
+        // null when the new values are equal to other constants of the tree
+        Values.ErgoTree substituted = entry != null && entry.positions != null
+            ? JavaHelpers.substDistinctConstants(entry.tree, entry.positions, values)
+            : null;
+        if (substituted != null && entry.verified) {
+            synchronized (this) {
+                _hitCount++;
+                _substitutionCount++;
+            }
+            return substituted;
+        }
+
+        Values.ErgoTree tree = JavaHelpers.compile(constants, code, networkType.networkPrefix);
+        Entry newEntry;
+        if (entry == null) {
+            newEntry = new Entry(tree, values, JavaHelpers.constantPositions(tree, values), false);
+        } else if (entry.positions != null && substituted == null) {
+            // these values cannot be substituted, but other values of the entry still can
+            newEntry = entry;
+        } else if (entry.positions != null) {
+            // the substitution is verified once against the compiler
+            boolean verified = JavaHelpers.sameErgoTree(substituted, tree);
+            newEntry = new Entry(tree, values, verified ? entry.positions : null, verified);
+        } else {
+            newEntry = new Entry(tree, values, null, false);
+        }
+        synchronized (this) {
+            _missCount++;
+            _entries.put(key, newEntry);
+        }
+        return tree;
+    }
+
+    public synchronized void clear() {
+        _entries.clear();
+    }
+
+    public synchronized CompileCacheStats getStats() {
+        return new CompileCacheStats(_hitCount, _missCount, _substitutionCount, _evictionCount, _entries.size());
+    }
+
+    private static class Key {
+        private final String _code;
+        private final byte _networkPrefix;
+        private final List<String> _names;
+        private final List<SType> _types;
+
+        Key(String code, byte networkPrefix, Constants constants, Values.Constant<SType>[] values) {
+            _code = code;
+            _networkPrefix = networkPrefix;
+            _names = new ArrayList<>(constants.keySet());
+            _types = new ArrayList<>(values.length);
+            for (Values.Constant<SType> value : values) {
+                _types.add(value.tpe());
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return _networkPrefix == key._networkPrefix && _code.equals(key._code)
+                && _names.equals(key._names) && _types.equals(key._types);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(_code, _networkPrefix, _names, _types);
+        }
+    }
+
+    /**
+     * Compiled tree of a script with the given values of the constants and the positions
+     * of the constants among the segregated constants of the tree, or null when the values
+     * cannot be substituted.
+     */
+    private static class Entry {
+        final Values.ErgoTree tree;
+        final Values.Constant<SType>[] values;
+        final int[] positions;
+        final boolean verified;
+
+        Entry(Values.ErgoTree tree, Values.Constant<SType>[] values, int[] positions, boolean verified) {
+            this.tree = tree;
+            this.values = values;
+            this.positions = positions;
+            this.verified = verified;
+        }
+    }
+}
@@ -2,7 +2,6 @@ package org.ergoplatform.appkit.impl;
 
 import org.ergoplatform.appkit.Constants;
 import org.ergoplatform.appkit.ErgoContract;
-import org.ergoplatform.appkit.JavaHelpers;
 import org.ergoplatform.appkit.NetworkType;
 import sigmastate.Values;
 
@@ -43,10 +42,13 @@ public class ErgoScriptContract implements ErgoContract {
         return create(cloned, _code, _networkType);
     }
 
+    /**
+     * Returns the tree compiled from the script of this contract, which is obtained from
+     * {@link ErgoScriptCompileCache#shared()}, so the script is not compiled again for the
+     * same constants (or when only their values differ).
+     */
     @Override
     public Values.ErgoTree getErgoTree() {
-        Values.ErgoTree ergoTree = JavaHelpers.compile(
-                _constants, _code, _networkType.networkPrefix);
-        return ergoTree;
+        return ErgoScriptCompileCache.shared().getErgoTree(_constants, _code, _networkType);
     }
 }
@@ -0,0 +1,87 @@
+package org.ergoplatform.appkit.impl
+
+import org.ergoplatform.appkit.{Constants, JavaHelpers, NetworkType}
+import org.scalatest.{PropSpec, Matchers}
+import sigmastate.Values.ErgoTree
+
+class ErgoScriptCompileCacheSpec extends PropSpec with Matchers {
+  val networkType = NetworkType.MAINNET
+
+  def constants(values: (String, Object)*): Constants = {
+    val res = new Constants
+    values.foreach { case (name, value) => res.put(name, value) }
+    res
+  }
+
+  def compiled(cs: Constants, code: String): ErgoTree =
+    JavaHelpers.compile(cs, code, networkType.networkPrefix)
+
+  def checkSame(tree: ErgoTree, expected: ErgoTree) =
+    JavaHelpers.sameErgoTree(tree, expected) shouldBe true
+
+  property("returns cached tree of the same script and constants") {
+    val cache = new ErgoScriptCompileCache(10)
+    val code = "sigmaProp(HEIGHT > deadline)"
+    val cs = constants("deadline" -> Int.box(100))
+    checkSame(cache.getErgoTree(cs, code, networkType), compiled(cs, code))
+    checkSame(cache.getErgoTree(cs, code, networkType), compiled(cs, code))
+    cache.getErgoTree(cs, code, NetworkType.TESTNET)
+
+    val stats = cache.getStats
+    stats.getHitCount shouldBe 1
+    stats.getMissCount shouldBe 2
+    stats.getSize shouldBe 2
+  }
+
+  property("substitutes new values of constants after verifying the substitution") {
+    val cache = new ErgoScriptCompileCache(10)
+    val code = "sigmaProp(HEIGHT > deadline && OUTPUTS.size == outputs)"
+    (1 to 4).foreach { i =>
+      val cs = constants("deadline" -> Int.box(100 * i), "outputs" -> Int.box(10 + i))
+      checkSame(cache.getErgoTree(cs, code, networkType), compiled(cs, code))
+    }
+    val stats = cache.getStats
+    stats.getMissCount shouldBe 2
+    stats.getHitCount shouldBe 2
+    stats.getSubstitutionCount shouldBe 2
+  }
+
+  property("compiles the script when the constants cannot be substituted") {
+    val cache = new ErgoScriptCompileCache(10)
+    // the values of constants may be folded by the compiler or be equal to other constants
+    Seq("sigmaProp(HEIGHT > deadline + 10)", "sigmaProp(HEIGHT > deadline && HEIGHT < other)")
+      .foreach { code =>
+        Seq(100, 200, 300, 200).foreach { v =>
+          val cs = constants("deadline" -> Int.box(v), "other" -> Int.box(200))
+          checkSame(cache.getErgoTree(cs, code, networkType), compiled(cs, code))
+        }
+      }
+  }
+
+  property("compiles the script when new values are equal to other constants") {
+    val cache = new ErgoScriptCompileCache(10)
+    val code = "sigmaProp(HEIGHT > deadline && HEIGHT < 5000 && OUTPUTS.size == outputs)"
+    // the substitution is verified by the second set, then the values are equal to each
+    // other and to the literal, and the last set is substituted again
+    Seq((100, 11), (200, 12), (300, 300), (5000, 13), (400, 14)).foreach { case (deadline, outputs) =>
+      val cs = constants("deadline" -> Int.box(deadline), "outputs" -> Int.box(outputs))
+      checkSame(cache.getErgoTree(cs, code, networkType), compiled(cs, code))
+    }
+    val stats = cache.getStats
+    stats.getMissCount shouldBe 4
+    stats.getSubstitutionCount shouldBe 1
+  }
+
+  property("evicts least recently used scripts") {
+    val cache = new ErgoScriptCompileCache(1)
+    val cs = constants()
+    cache.getErgoTree(cs, "sigmaProp(HEIGHT > 1)", networkType)
+    cache.getErgoTree(cs, "sigmaProp(HEIGHT > 2)", networkType)
+    cache.getErgoTree(cs, "sigmaProp(HEIGHT > 1)", networkType)
+
+    val stats = cache.getStats
+    stats.getMissCount shouldBe 3
+    stats.getEvictionCount shouldBe 2
+    stats.getSize shouldBe 1
+  }
+}
@@ -13,6 +13,7 @@ import retrofit2.converter.scalars.ScalarsConverterFactory;
 import org.ergoplatform.explorer.client.auth.HttpBasicAuth;
 import org.ergoplatform.explorer.client.auth.ApiKeyAuth;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
@@ -22,13 +23,16 @@ import java.time.format.DateTimeFormatter;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
-public class ExplorerApiClient {
+public class ExplorerApiClient implements Closeable {
 
   private String _hostUrl;
   private Map<String, Interceptor> apiAuthorizations;
   private OkHttpClient.Builder okBuilder;
   private Retrofit.Builder adapterBuilder;
   private JSON json;
+  private OkHttpClient okClient;
+  private Retrofit retrofit;
+  private boolean closed;
   private Proxy proxy;
 
   public ExplorerApiClient(String hostUrl) {
@@ -83,6 +87,7 @@ public class ExplorerApiClient {
   public void createDefaultAdapter() {
     json = new JSON();
     okBuilder = new OkHttpClient.Builder();
+    resetSharedClients();
     if (proxy != null) {
         okBuilder.proxy(proxy);
     }
@@ -97,10 +102,53 @@ public class ExplorerApiClient {
   }
 
   public <S> S createService(Class<S> serviceClass) {
-    return adapterBuilder
-      .client(okBuilder.build())
-      .build()
-      .create(serviceClass);
+    return getRetrofit().create(serviceClass);
+  }
+
+  /**
+   * Returns OkHttpClient shared by all requests of this client, so that connections,
+   * TLS sessions and dispatcher threads are reused.
+   * The instance is created from okBuilder on the first call, thus okBuilder should be
+   * configured before any request is made.
+   */
+  public synchronized OkHttpClient getOkClient() {
+    if (closed)
+      throw new IllegalStateException("ExplorerApiClient is closed");
+    if (okClient == null)
+      okClient = okBuilder.build();
+    return okClient;
+  }
+
+  /**
+   * Returns Retrofit instance shared by all requests of this client.
+   * It uses {@link #getOkClient()} to execute requests.
+   */
+  public synchronized Retrofit getRetrofit() {
+    if (retrofit == null)
+      retrofit = adapterBuilder
+        .client(getOkClient())
+        .build();
+    return retrofit;
+  }
+
+  /**
+   * Releases connections and threads of the shared OkHttpClient.
+   * The client cannot be used after it is closed.
+   */
+  @Override
+  public synchronized void close() {
+    if (okClient != null) {
+      okClient.dispatcher().executorService().shutdown();
+      okClient.connectionPool().evictAll();
+    }
+    okClient = null;
+    retrofit = null;
+    closed = true;
+  }
+
+  private synchronized void resetSharedClients() {
+    okClient = null;
+    retrofit = null;
   }
 
   public ExplorerApiClient setDateFormat(DateFormat dateFormat) {
@@ -178,6 +226,7 @@ public class ExplorerApiClient {
     }
     apiAuthorizations.put(authName, authorization);
     okBuilder.addInterceptor(authorization);
+    resetSharedClients();
     return this;
   }
 
@@ -196,6 +245,7 @@ public class ExplorerApiClient {
 
   public ExplorerApiClient setAdapterBuilder(Retrofit.Builder adapterBuilder) {
     this.adapterBuilder = adapterBuilder;
+    resetSharedClients();
     return this;
   }
 
@@ -216,6 +266,7 @@ public class ExplorerApiClient {
   public void configureFromOkclient(OkHttpClient okClient) {
     this.okBuilder = okClient.newBuilder();
     addAuthsToOkBuilder(this.okBuilder);
+    resetSharedClients();
   }
 }
 
@@ -15,6 +15,7 @@ import retrofit2.converter.scalars.ScalarsConverterFactory;
 import org.ergoplatform.restapi.client.auth.HttpBasicAuth;
 import org.ergoplatform.restapi.client.auth.ApiKeyAuth;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
@@ -24,13 +25,16 @@ import java.util.Map;
 import java.util.HashMap;
 import java.net.Proxy;
 
-public class ApiClient {
+public class ApiClient implements Closeable {
 
   private String _hostUrl;
   private Map<String, Interceptor> apiAuthorizations;
   private OkHttpClient.Builder okBuilder;
   private Retrofit.Builder adapterBuilder;
   private JSON json;
+  private OkHttpClient okClient;
+  private Retrofit retrofit;
+  private boolean closed;
 
   public Gson getGson() { return json.getGson(); }
 
@@ -98,6 +102,7 @@ public class ApiClient {
   public void createDefaultAdapter() {
     json = new JSON();
     okBuilder = new OkHttpClient.Builder();
+    resetSharedClients();
 
     if (!_hostUrl.endsWith("/"))
       _hostUrl = _hostUrl + "/";
@@ -112,6 +117,7 @@ public class ApiClient {
   public void createDefaultAdapter(Proxy proxy) {
     json = new JSON();
     okBuilder = new OkHttpClient.Builder();
+    resetSharedClients();
 
     if (proxy != null) {
         okBuilder.proxy(proxy);
@@ -128,10 +134,53 @@ public class ApiClient {
   }
 
   public <S> S createService(Class<S> serviceClass) {
-    return adapterBuilder
-      .client(okBuilder.build())
-      .build()
-      .create(serviceClass);
+    return getRetrofit().create(serviceClass);
+  }
+
+  /**
+   * Returns OkHttpClient shared by all requests of this client, so that connections,
+   * TLS sessions and dispatcher threads are reused.
+   * The instance is created from okBuilder on the first call, thus okBuilder should be
+   * configured before any request is made.
+   */
+  public synchronized OkHttpClient getOkClient() {
+    if (closed)
+      throw new IllegalStateException("ApiClient is closed");
+    if (okClient == null)
+      okClient = okBuilder.build();
+    return okClient;
+  }
+
+  /**
+   * Returns Retrofit instance shared by all requests of this client.
+   * It uses {@link #getOkClient()} to execute requests.
+   */
+  public synchronized Retrofit getRetrofit() {
+    if (retrofit == null)
+      retrofit = adapterBuilder
+        .client(getOkClient())
+        .build();
+    return retrofit;
+  }
+
+  /**
+   * Releases connections and threads of the shared OkHttpClient.
+   * The client cannot be used after it is closed.
+   */
+  @Override
+  public synchronized void close() {
+    if (okClient != null) {
+      okClient.dispatcher().executorService().shutdown();
+      okClient.connectionPool().evictAll();
+    }
+    okClient = null;
+    retrofit = null;
+    closed = true;
+  }
+
+  private synchronized void resetSharedClients() {
+    okClient = null;
+    retrofit = null;
   }
 
   public ApiClient setDateFormat(DateFormat dateFormat) {
@@ -209,6 +258,7 @@ public class ApiClient {
     }
     apiAuthorizations.put(authName, authorization);
     okBuilder.addInterceptor(authorization);
+    resetSharedClients();
     return this;
   }
 
@@ -227,6 +277,7 @@ public class ApiClient {
 
   public ApiClient setAdapterBuilder(Retrofit.Builder adapterBuilder) {
     this.adapterBuilder = adapterBuilder;
+    resetSharedClients();
     return this;
   }
 
@@ -247,6 +298,7 @@ public class ApiClient {
   public void configureFromOkclient(OkHttpClient okClient) {
     this.okBuilder = okClient.newBuilder();
     addAuthsToOkBuilder(this.okBuilder);
+    resetSharedClients();
   }
 
   public <T> T cloneDataObject(T dataObj) {
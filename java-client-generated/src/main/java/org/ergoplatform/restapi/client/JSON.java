@@ -48,6 +48,24 @@ public class JSON {
 
     public static GsonBuilder createGson() {
         GsonFireBuilder fireBuilder = new GsonFireBuilder()
+          // the tracking rules of scans are selected by the values of the "predicate" field
+          // used by the node
+          .registerTypeSelector(ScanningPredicate.class, new TypeSelector() {
+            @Override
+            public Class getClassForElement(JsonElement readElement) {
+                Map classByDiscriminatorValue = new HashMap();
+                classByDiscriminatorValue.put("and".toUpperCase(), AndPredicate.class);
+                classByDiscriminatorValue.put("or".toUpperCase(), OrPredicate.class);
+                classByDiscriminatorValue.put("containsAsset".toUpperCase(), ContainsAssetPredicate.class);
+                classByDiscriminatorValue.put("contains".toUpperCase(), ContainsPredicate.class);
+                classByDiscriminatorValue.put("equals".toUpperCase(), EqualsPredicate.class);
+                JsonElement predicate = readElement.getAsJsonObject().get("predicate");
+                Class clazz = predicate == null ? null
+                    : (Class) classByDiscriminatorValue.get(predicate.getAsString().toUpperCase());
+                // unknown predicates are read as the base class
+                return clazz != null ? clazz : ScanningPredicate.class;
+            }
+          })
 //          .registerTypeSelector(ModifierId.class, new TypeSelector() {
 //            @Override
 //            public Class getClassForElement(JsonElement readElement) {
@@ -13,6 +13,8 @@ import org.ergoplatform.restapi.client.ErgoTransaction;
 import org.ergoplatform.restapi.client.FeeHistogram;
 import org.ergoplatform.restapi.client.Transactions;
 
+import java.util.List;
+
 
 public interface TransactionsApi {
   /**
@@ -77,6 +79,28 @@ public interface TransactionsApi {
         @retrofit2.http.Query("limit") Integer limit                ,     @retrofit2.http.Query("offset") Integer offset                
   );
 
+  /**
+   * Get ids of the transactions in the unconfirmed transactions pool
+   * 
+   * @return Call&lt;List&lt;String&gt;&gt;
+   */
+  @GET("transactions/unconfirmed/transactionIds")
+  Call<List<String>> getUnconfirmedTransactionIds();
+
+  /**
+   * Get the transactions with the given ids from the unconfirmed transactions pool, the ids which are not in the pool are skipped
+   * 
+   * @param body ids of the transactions (required)
+   * @return Call&lt;List&lt;ErgoTransaction&gt;&gt;
+   */
+  @Headers({
+    "Content-Type:application/json"
+  })
+  @POST("transactions/unconfirmed/byTransactionIds")
+  Call<List<ErgoTransaction>> getUnconfirmedTransactionsByIds(
+                    @retrofit2.http.Body List<String> body    
+  );
+
   /**
    * Submit an Ergo transaction to unconfirmed pool to send it over the network
    * 
@@ -0,0 +1,38 @@
+package org.ergoplatform.appkit;
+
+import java.util.List;
+import java.util.SortedMap;
+
+/**
+ * Thrown by {@link ErgoProver#signAll(List)} and {@link ErgoProver#signAllReduced(List)}
+ * when some of the transactions cannot be signed. The transactions which are signed are
+ * still available from {@link #getSigned()}.
+ */
+public class BatchSigningException extends RuntimeException {
+    private final List<SignedTransaction> signed;
+    private final SortedMap<Integer, Throwable> errors;
+
+    public BatchSigningException(List<SignedTransaction> signed, SortedMap<Integer, Throwable> errors) {
+        super(errors.size() + " of " + signed.size() + " transactions cannot be signed, first at index "
+            + errors.firstKey() + ": " + errors.get(errors.firstKey()).getMessage(),
+            errors.get(errors.firstKey()));
+        this.signed = signed;
+        this.errors = errors;
+    }
+
+    /**
+     * Returns the signed transactions in the order of the given ones, with null elements for
+     * the transactions which cannot be signed.
+     */
+    public List<SignedTransaction> getSigned() {
+        return signed;
+    }
+
+    /**
+     * Returns the errors of the transactions which cannot be signed, by index of the
+     * transaction.
+     */
+    public SortedMap<Integer, Throwable> getErrors() {
+        return errors;
+    }
+}
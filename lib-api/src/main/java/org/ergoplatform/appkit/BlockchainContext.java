@@ -2,8 +2,13 @@ package org.ergoplatform.appkit;
 
 import sigmastate.Values;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * This interface represent a specific context of blockchain for execution
@@ -37,14 +42,48 @@ public interface BlockchainContext {
 
     /**
      * Retrieves UTXO boxes available in this blockchain context.
+     * The boxes are requested concurrently (with a bounded number of requests in flight).
      *
      * @param boxIds array of string encoded ids of the boxes in the UTXO.
      * @return an array of requested boxes suitable for spending in transactions
-     * created using this context.
-     * @throws ErgoClientException if some boxes are not available.
+     * created using this context, in the order of the given ids.
+     * @throws BoxesNotFoundException if some boxes are not available, no more requests are
+     * sent after the first missing box is found.
+     * @throws ErgoClientException if the boxes cannot be loaded.
      */
     InputBox[] getBoxesById(String... boxIds) throws ErgoClientException;
 
+    /**
+     * Retrieves boxes taking the current mempool of the node into account, i.e. boxes
+     * created by unconfirmed transactions are available, while boxes spent by unconfirmed
+     * transactions are not.
+     * This is useful to create a chain of transactions without waiting for confirmations.
+     * The default implementation throws {@link UnsupportedOperationException}.
+     *
+     * @param boxIds array of string encoded ids of the boxes.
+     * @return an array of requested boxes in the order of the given ids.
+     * @throws BoxesNotFoundException if some boxes are not available.
+     * @see #getBoxesById(String...)
+     */
+    default InputBox[] getBoxesByIdWithMempool(String... boxIds) throws ErgoClientException {
+        throw new UnsupportedOperationException("getBoxesByIdWithMempool");
+    }
+
+    /**
+     * Retrieves UTXO boxes available in this blockchain context without blocking the
+     * current thread. The default implementation calls {@link #getBoxesById(String...)} on
+     * {@link ForkJoinPool#commonPool()}.
+     *
+     * @param boxIds array of string encoded ids of the boxes in the UTXO.
+     * @return a future completed with the array of requested boxes (in the order of the
+     * given ids), or completed exceptionally with {@link BoxesNotFoundException} if some
+     * boxes are not available.
+     * @see #getBoxesById(String...)
+     */
+    default CompletableFuture<InputBox[]> getBoxesByIdAsync(String... boxIds) {
+        return CompletableFuture.supplyAsync(() -> getBoxesById(boxIds), ForkJoinPool.commonPool());
+    }
+
     /**
      * Creates a new builder of {@link ErgoProver}.
      */
@@ -72,6 +111,19 @@ public interface BlockchainContext {
      */
     String sendTransaction(SignedTransaction tx);
 
+    /**
+     * Sends a signed transaction to a blockchain node without blocking the current thread.
+     * The default implementation calls {@link #sendTransaction(SignedTransaction)} on
+     * {@link ForkJoinPool#commonPool()}.
+     *
+     * @param tx a signed {@link SignedTransaction transaction} to be sent to the blockchain node
+     * @return a future completed with the id of the submitted transaction
+     * @see #sendTransaction(SignedTransaction)
+     */
+    default CompletableFuture<String> sendTransactionAsync(SignedTransaction tx) {
+        return CompletableFuture.supplyAsync(() -> sendTransaction(tx), ForkJoinPool.commonPool());
+    }
+
     ErgoWallet getWallet();
 
     ErgoContract newContract(Values.ErgoTree ergoTree);
@@ -94,6 +146,142 @@ public interface BlockchainContext {
      */
     List<InputBox> getUnspentBoxesFor(Address address, int offset, int limit);
 
+    /**
+     * Get unspent boxes owned by the given address starting from the given offset up to
+     * the given limit without blocking the current thread.
+     * Can be used with {@link BoxOperations#getCoveringBoxesForAsync} to select covering
+     * boxes asynchronously. The default implementation calls
+     * {@link #getUnspentBoxesFor(Address, int, int)} on {@link ForkJoinPool#commonPool()}.
+     *
+     * @return a future completed with the requested chunk of boxes owned by the address
+     * @see #getUnspentBoxesFor(Address, int, int)
+     */
+    default CompletableFuture<List<InputBox>> getUnspentBoxesForAsync(Address address, int offset, int limit) {
+        return CompletableFuture.supplyAsync(
+            () -> getUnspentBoxesFor(address, offset, limit), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Get unspent boxes with the given ErgoTree template, i.e. boxes of the same contract
+     * which may have different constants, starting from the given offset up to the given
+     * limit (basically one page of the boxes).
+     * The values of the constants can be obtained using
+     * {@link ErgoTreeTemplate#getParameterValues}.
+     * The default implementation throws {@link UnsupportedOperationException}.
+     *
+     * @param template template of ErgoTree of the boxes to be retrieved
+     * @param offset   zero based offset of the first box in the list
+     * @param limit    number of boxes to retrieve
+     * @return a requested chunk of boxes with the template
+     */
+    default List<InputBox> getUnspentBoxesByErgoTreeTemplate(ErgoTreeTemplate template, int offset, int limit) {
+        throw new UnsupportedOperationException("getUnspentBoxesByErgoTreeTemplate");
+    }
+
+    /**
+     * Get all unspent boxes with the given ErgoTree template. The pages of boxes are
+     * requested concurrently (with a bounded number of requests in flight).
+     * Boxes created or spent while the pages are loaded may be missed.
+     * The default implementation loads the pages one after another until an empty page.
+     *
+     * @param template template of ErgoTree of the boxes to be retrieved
+     * @return all the boxes with the template, without duplicates
+     * @see #getUnspentBoxesByErgoTreeTemplate(ErgoTreeTemplate, int, int)
+     */
+    default List<InputBox> getAllUnspentBoxesByErgoTreeTemplate(ErgoTreeTemplate template) {
+        LinkedHashMap<ErgoId, InputBox> boxes = new LinkedHashMap<>();
+        int offset = 0;
+        List<InputBox> page = getUnspentBoxesByErgoTreeTemplate(template, offset, DEFAULT_LIMIT_FOR_API);
+        while (!page.isEmpty()) {
+            // the pages may overlap if boxes are spent while loading
+            for (InputBox box : page) {
+                boxes.putIfAbsent(box.getId(), box);
+            }
+            offset += DEFAULT_LIMIT_FOR_API;
+            page = getUnspentBoxesByErgoTreeTemplate(template, offset, DEFAULT_LIMIT_FOR_API);
+        }
+        return new ArrayList<>(boxes.values());
+    }
+
+    /**
+     * Streams all the unspent boxes created in the given range of heights.
+     * The boxes are loaded from Explorer incrementally, as the returned stream is consumed,
+     * so the memory used doesn't depend on the number of boxes.
+     * The returned stream holds an open connection to Explorer and must be closed (for
+     * example, using try-with-resources) if it is not consumed to the end.
+     * The default implementation throws {@link UnsupportedOperationException}.
+     *
+     * @param minHeight min inclusion height of the boxes
+     * @param maxHeight max inclusion height of the boxes
+     * @return stream of the unspent boxes
+     */
+    default Stream<InputBox> streamUnspentBoxes(int minHeight, int maxHeight) {
+        throw new UnsupportedOperationException("streamUnspentBoxes");
+    }
+
+    /**
+     * Streams all the unspent boxes created in the given number of last epochs.
+     * The default implementation throws {@link UnsupportedOperationException}.
+     *
+     * @param lastEpochs number of last epochs
+     * @return stream of the unspent boxes
+     * @see #streamUnspentBoxes(int, int)
+     */
+    default Stream<InputBox> streamUnspentBoxesByLastEpochs(int lastEpochs) {
+        throw new UnsupportedOperationException("streamUnspentBoxesByLastEpochs");
+    }
+
+    /**
+     * Streams all the unspent boxes with the ErgoTree template of the given hash (i.e.
+     * boxes of the same contract with different constants) created in the given range
+     * of heights.
+     * The default implementation throws {@link UnsupportedOperationException}.
+     *
+     * @param templateHash hash of the ErgoTree template encoded in Base16
+     * @param minHeight    min inclusion height of the boxes
+     * @param maxHeight    max inclusion height of the boxes
+     * @return stream of the unspent boxes
+     * @see #streamUnspentBoxes(int, int)
+     */
+    default Stream<InputBox> streamUnspentBoxesByErgoTreeTemplateHash(String templateHash, int minHeight, int maxHeight) {
+        throw new UnsupportedOperationException("streamUnspentBoxesByErgoTreeTemplateHash");
+    }
+
+    /**
+     * Streams all the unspent boxes with the given ErgoTree template (i.e. boxes of the same
+     * contract with different constants) created in the given range of heights.
+     *
+     * @param template  template of ErgoTree of the boxes
+     * @param minHeight min inclusion height of the boxes
+     * @param maxHeight max inclusion height of the boxes
+     * @return stream of the unspent boxes
+     * @see #streamUnspentBoxesByErgoTreeTemplateHash(String, int, int)
+     */
+    default Stream<InputBox> streamUnspentBoxesByErgoTreeTemplate(ErgoTreeTemplate template, int minHeight, int maxHeight) {
+        return streamUnspentBoxesByErgoTreeTemplateHash(template.getTemplateHash(), minHeight, maxHeight);
+    }
+
+    /**
+     * Get unspent boxes found by the scan with the given id, which is registered on the node
+     * connected to (so they are available without Explorer).
+     * The default implementation throws {@link UnsupportedOperationException}.
+     *
+     * @param scanId           identifier of the scan
+     * @param minConfirmations minimal number of confirmations of the returned boxes
+     * @return the unspent boxes of the scan in the order returned by the node
+     */
+    default List<InputBox> getUnspentBoxesForScan(int scanId, int minConfirmations) {
+        throw new UnsupportedOperationException("getUnspentBoxesForScan");
+    }
+
+    /**
+     * Deregisters the scan with the given id, the node stops tracking its boxes.
+     * The default implementation throws {@link UnsupportedOperationException}.
+     */
+    default void deregisterScan(int scanId) {
+        throw new UnsupportedOperationException("deregisterScan");
+    }
+
     /**
      * Get unspent boxes owned by the given address starting from the given offset up to
      * the given limit (basically one page of the boxes).
@@ -1,5 +1,8 @@
 package org.ergoplatform.appkit;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+
 /**
  * An interface used to build new blockchain contexts.
  */
@@ -14,4 +17,17 @@ public interface BlockchainContextBuilder {
      * Builds a new context using parameters collected by this builder.
      */
     BlockchainContext build() throws ErgoClientException;
+
+    /**
+     * Builds a new context without blocking the current thread.
+     * The requests necessary to build the context are executed concurrently.
+     *
+     * @return future which is completed with the new context or with
+     * {@link ErgoClientException} if the context cannot be built
+     * <p>
+     * The default implementation calls {@link #build()} on {@link ForkJoinPool#commonPool()}.
+     */
+    default CompletableFuture<BlockchainContext> buildAsync() {
+        return CompletableFuture.supplyAsync(this::build, ForkJoinPool.commonPool());
+    }
 }
@@ -9,10 +9,17 @@ import com.google.common.base.Preconditions;
 import org.ergoplatform.P2PKAddress;
 import org.ergoplatform.appkit.impl.ErgoTreeContract;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
+import java.util.function.IntFunction;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -27,6 +34,11 @@ public class BoxOperations {
     private List<ErgoToken> tokensToSpend = Collections.emptyList();
     private long feeAmount = MinFee;
     private IUnspentBoxesLoader inputBoxesLoader = new ExplorerApiUnspentLoader();
+    private BoxSelector boxSelector = BoxSelectors.defaultSelector();
+    private int prefetchDepth = 0;
+    private Executor prefetchExecutor;
+    private int maxConcurrentAddresses = 1;
+    private Executor addressesExecutor;
 
     private BoxOperations(List<Address> senders, @Nullable ErgoProver senderProver) {
         this.senders = senders;
@@ -104,6 +116,60 @@ public class BoxOperations {
         return this;
     }
 
+    /**
+     * @param boxSelector strategy used by {@link #loadTop(BlockchainContext)} to select the
+     *                    boxes to spend among the loaded ones, see {@link BoxSelectors}.
+     *                    Default is {@link BoxSelectors#defaultSelector()}
+     */
+    public BoxOperations withBoxSelector(@Nonnull BoxSelector boxSelector) {
+        this.boxSelector = boxSelector;
+        return this;
+    }
+
+    /**
+     * Enables prefetching of pages of unspent boxes by {@link #loadTop(BlockchainContext)}:
+     * up to the given number of next pages are loaded in background while the current page
+     * is scanned. See {@link #getCoveringBoxesFor(long, List, Function, int, Executor)}.
+     *
+     * @param prefetchDepth number of pages loaded ahead, 0 disables prefetching (the default)
+     * @param executor      executor used to load the pages
+     */
+    public BoxOperations withPagePrefetch(int prefetchDepth, @Nonnull Executor executor) {
+        if (prefetchDepth < 0) {
+            throw new IllegalArgumentException("Prefetch depth must be >= 0");
+        }
+        this.prefetchDepth = prefetchDepth;
+        this.prefetchExecutor = executor;
+        return this;
+    }
+
+    /**
+     * Enables concurrent loading of unspent boxes of the sender addresses by
+     * {@link #loadTop(BlockchainContext)}, which is useful when there are many senders
+     * (e.g. EIP-3 addresses of a prover). The first pages of the next senders are loaded
+     * in background, while the boxes are still selected sender after sender with the
+     * amount and tokens which remain to be covered, so the result is the same as with
+     * sequential loading. {@link IUnspentBoxesLoader#prepareForAddress} is called on the
+     * calling thread, but pages of different addresses are loaded at the same time, so the
+     * input boxes loader must allow that.
+     * <p>
+     * Note, when combined with {@link #withPagePrefetch(int, Executor)} different executors
+     * should be used, because a prefetch task of the first page waits for the page loaded
+     * on the executor of addresses.
+     *
+     * @param maxConcurrentAddresses maximum number of addresses loaded at the same time,
+     *                               1 means sequential loading (the default)
+     * @param executor               executor used to load the addresses
+     */
+    public BoxOperations withConcurrentAddresses(int maxConcurrentAddresses, @Nonnull Executor executor) {
+        if (maxConcurrentAddresses < 1) {
+            throw new IllegalArgumentException("Maximum number of concurrent addresses must be >= 1");
+        }
+        this.maxConcurrentAddresses = maxConcurrentAddresses;
+        this.addressesExecutor = executor;
+        return this;
+    }
+
     @Deprecated
     public static ErgoProver createProver(BlockchainContext ctx, Mnemonic mnemonic) {
         ErgoProver prover = ctx.newProverBuilder()
@@ -148,24 +214,59 @@ public class BoxOperations {
      * Load boxes for the given sender addresses covering the given amount of NanoErgs, fee and tokens.
      * The given page of boxes is loaded from each address and concatenated to a single
      * list.
-     * The list is then used to select covering boxes.
+     * The list is then used to select covering boxes by the
+     * {@link #withBoxSelector(BoxSelector) box selector}.
+     * The first pages of the addresses are loaded concurrently when enabled by
+     * {@link #withConcurrentAddresses(int, Executor)}.
      *
      * @param ctx the blockchain context to use for loading
      * @return a list of boxes covering the given amount
      */
     public List<InputBox> loadTop(BlockchainContext ctx) {
-        List<InputBox> unspentBoxes = new ArrayList<>();
         long grossAmount = amountToSpend + feeAmount;
+
+        inputBoxesLoader.prepare(ctx, senders, grossAmount, tokensToSpend);
+
+        List<InputBox> unspentBoxes = maxConcurrentAddresses > 1 && senders.size() > 1
+            ? collectConcurrently(ctx, grossAmount)
+            : collectSequentially(ctx, grossAmount);
+        List<InputBox> selected = boxSelector.select(unspentBoxes, grossAmount, tokensToSpend);
+        return selected;
+    }
+
+    private List<InputBox> collectSequentially(BlockchainContext ctx, long grossAmount) {
+        return collectSequentially(ctx, grossAmount, null);
+    }
+
+    /**
+     * Collects the boxes of the senders one after another, each address covers what remains
+     * of the amount and tokens after the addresses before it.
+     *
+     * @param firstPages if not null, returns the first page of the sender with the given
+     *                   index, for which {@link IUnspentBoxesLoader#prepareForAddress} is
+     *                   already called
+     */
+    private List<InputBox> collectSequentially(BlockchainContext ctx, long grossAmount,
+                                               @Nullable IntFunction<CompletableFuture<List<InputBox>>> firstPages) {
+        List<InputBox> unspentBoxes = new ArrayList<>();
         long remainingAmount = grossAmount;
         SelectTokensHelper tokensHelper = new SelectTokensHelper(tokensToSpend);
         List<ErgoToken> remainingTokens = tokensToSpend;
 
-        inputBoxesLoader.prepare(ctx, senders, grossAmount, tokensToSpend);
-
-        for (Address sender : senders) {
-            inputBoxesLoader.prepareForAddress(sender);
-            CoveringBoxes unspent = getCoveringBoxesFor(remainingAmount, remainingTokens,
-                page -> inputBoxesLoader.loadBoxesPage(ctx, sender, page));
+        for (int i = 0; i < senders.size(); i++) {
+            Address sender = senders.get(i);
+            Function<Integer, List<InputBox>> pageLoader;
+            if (firstPages == null) {
+                inputBoxesLoader.prepareForAddress(sender);
+                pageLoader = page -> inputBoxesLoader.loadBoxesPage(ctx, sender, page);
+            } else {
+                CompletableFuture<List<InputBox>> firstPage = firstPages.apply(i);
+                pageLoader = page -> page == 0
+                    ? join(firstPage)
+                    : inputBoxesLoader.loadBoxesPage(ctx, sender, page);
+            }
+            CoveringBoxes unspent = getCoveringBoxesFor(remainingAmount, remainingTokens, pageLoader,
+                prefetchDepth, inputBoxesLoader.getPageSize(), prefetchExecutor);
             for (InputBox b : unspent.getBoxes()) {
                 unspentBoxes.add(b);
                 tokensHelper.foundNewTokens(b.getTokens());
@@ -178,8 +279,35 @@ public class BoxOperations {
             if (remainingAmount <= 0 && tokensHelper.areTokensCovered()) break;
             remainingTokens = tokensHelper.getRemainingTokenList();
         }
-        List<InputBox> selected = BoxSelectorsJavaHelpers.selectBoxes(unspentBoxes, grossAmount, tokensToSpend);
-        return selected;
+        return unspentBoxes;
+    }
+
+    /**
+     * Same as {@link #collectSequentially(BlockchainContext, long)}, but the first pages of
+     * up to maxConcurrentAddresses senders are loaded at the same time, ahead of the
+     * selection. {@link IUnspentBoxesLoader#prepareForAddress} is called on the current
+     * thread in the order of senders, before the first page of the address is requested.
+     * Once the amount and tokens are covered, the first pages which are not started are
+     * cancelled.
+     */
+    private List<InputBox> collectConcurrently(BlockchainContext ctx, long grossAmount) {
+        List<CompletableFuture<List<InputBox>>> firstPages = new ArrayList<>(senders.size());
+        try {
+            return collectSequentially(ctx, grossAmount, i -> {
+                // keep the first pages of the current address and the next ones loading
+                while (firstPages.size() < senders.size() && firstPages.size() < i + maxConcurrentAddresses) {
+                    Address sender = senders.get(firstPages.size());
+                    inputBoxesLoader.prepareForAddress(sender);
+                    firstPages.add(CompletableFuture.supplyAsync(
+                        () -> inputBoxesLoader.loadBoxesPage(ctx, sender, 0), addressesExecutor));
+                }
+                return firstPages.get(i);
+            });
+        } finally {
+            for (CompletableFuture<List<InputBox>> firstPage : firstPages) {
+                firstPage.cancel(false);
+            }
+        }
     }
 
     /**
@@ -263,51 +391,194 @@ public class BoxOperations {
     public static CoveringBoxes getCoveringBoxesFor(long amountToSpend,
                                                     List<ErgoToken> tokensToSpend,
                                                     Function<Integer, List<InputBox>> inputBoxesLoader) {
-        SelectTokensHelper tokensRemaining = new SelectTokensHelper(tokensToSpend);
-        Preconditions.checkArgument(amountToSpend > 0 ||
-            !tokensRemaining.areTokensCovered(), "amountToSpend or tokens to spend should be > 0");
-        ArrayList<InputBox> selectedCoveringBoxes = new ArrayList<>();
-        long remainingAmountToCover = amountToSpend;
+        CoveringBoxesCollector collector = new CoveringBoxesCollector(amountToSpend, tokensToSpend);
         int page = 0;
-        while (true) {
+        while (!collector.addChunk(inputBoxesLoader.apply(page))) {
+            // this chunk is not enough, step to next chunk
+            page++;
+        }
+        return collector.getResult();
+    }
+
+    /**
+     * Pipelined version of {@link #getCoveringBoxesFor(long, List, Function)}, the same as
+     * {@link #getCoveringBoxesFor(long, List, Function, int, int, Executor)} with unknown
+     * page size, i.e. only an empty page is known to be the last one.
+     */
+    public static CoveringBoxes getCoveringBoxesFor(long amountToSpend,
+                                                    List<ErgoToken> tokensToSpend,
+                                                    Function<Integer, List<InputBox>> inputBoxesLoader,
+                                                    int prefetchDepth,
+                                                    @Nullable Executor executor) {
+        return getCoveringBoxesFor(amountToSpend, tokensToSpend, inputBoxesLoader, prefetchDepth, 0, executor);
+    }
+
+    /**
+     * Pipelined version of {@link #getCoveringBoxesFor(long, List, Function)}: while a page
+     * is scanned, up to prefetchDepth next pages are already being loaded on the given
+     * executor, so the latency of loading is not paid for every page.
+     * As soon as the amount and tokens are covered (or the source is drained) the prefetches
+     * which are not needed are cancelled (the ones already running are not interrupted, but
+     * their results are ignored). No pages are scheduled after the last page was loaded,
+     * which is an empty page or a page with less than pageSize boxes. Without prefetching
+     * only an empty page is the last one.
+     * <p>
+     * Note, the pages may be loaded concurrently and not in order, thus the loader must be
+     * thread-safe and the content of a page must not depend on the pages loaded before.
+     *
+     * @param prefetchDepth number of pages to load ahead of the scanned one, if 0 the pages are
+     *                      loaded one after another on the current thread
+     * @param pageSize      number of boxes in every page but the last one, 0 if unknown (for
+     *                      example, when the loader filters the boxes of a page)
+     * @param executor      executor to load the pages, can be null when prefetchDepth is 0
+     * @return a new instance of {@link CoveringBoxes} set
+     */
+    public static CoveringBoxes getCoveringBoxesFor(long amountToSpend,
+                                                    List<ErgoToken> tokensToSpend,
+                                                    Function<Integer, List<InputBox>> inputBoxesLoader,
+                                                    int prefetchDepth,
+                                                    int pageSize,
+                                                    @Nullable Executor executor) {
+        CoveringBoxesCollector collector = new CoveringBoxesCollector(amountToSpend, tokensToSpend);
+        if (prefetchDepth <= 0) {
+            int page = 0;
             List<InputBox> chunk = inputBoxesLoader.apply(page);
+            // without prefetching nothing is loaded ahead, so only an empty page ends the source
+            while (!collector.addChunk(chunk) && !chunk.isEmpty()) {
+                page++;
+                chunk = inputBoxesLoader.apply(page);
+            }
+            return collector.getResult();
+        }
+        Preconditions.checkNotNull(executor, "executor is required for prefetching");
+        ArrayDeque<CompletableFuture<List<InputBox>>> pages = new ArrayDeque<>();
+        // the lowest page known to be the last one, no pages after it are scheduled
+        AtomicInteger lastPage = new AtomicInteger(Integer.MAX_VALUE);
+        int nextPage = 0;
+        try {
+            boolean done = false;
+            while (!done) {
+                // keep the current page and prefetchDepth next pages in flight
+                while (pages.size() <= prefetchDepth && nextPage <= lastPage.get()) {
+                    int page = nextPage++;
+                    pages.add(CompletableFuture.supplyAsync(() -> {
+                        List<InputBox> chunk = inputBoxesLoader.apply(page);
+                        if (isLastPage(chunk, pageSize)) {
+                            lastPage.accumulateAndGet(page, Math::min);
+                        }
+                        return chunk;
+                    }, executor));
+                }
+                // all the pages before the polled one were full, so it is always scheduled
+                List<InputBox> chunk = join(pages.poll());
+                done = collector.addChunk(chunk) || isLastPage(chunk, pageSize);
+            }
+        } finally {
+            for (CompletableFuture<List<InputBox>> page : pages) {
+                page.cancel(false);
+            }
+        }
+        return collector.getResult();
+    }
+
+    private static boolean isLastPage(List<InputBox> chunk, int pageSize) {
+        return chunk.isEmpty() || chunk.size() < pageSize;
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            // rethrow the exception of the loader as if it was called on this thread
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException)e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Asynchronous version of {@link #getCoveringBoxesFor(long, List, Function)}, the pages
+     * are loaded one after another without blocking the current thread.
+     * For example, the boxes of an address can be loaded using
+     * {@code page -> ctx.getUnspentBoxesForAsync(address, page * DEFAULT_LIMIT_FOR_API, DEFAULT_LIMIT_FOR_API)}
+     *
+     * @param amountToSpend    amount of NanoErgs to be covered
+     * @param tokensToSpend    ErgoToken to spent
+     * @param inputBoxesLoader method returning futures of paged sets of InputBoxes, see
+     *                         {@link #getCoveringBoxesFor(long, List, Function)}
+     * @return a future completed with a new instance of {@link CoveringBoxes} set
+     */
+    public static CompletableFuture<CoveringBoxes> getCoveringBoxesForAsync(
+        long amountToSpend,
+        List<ErgoToken> tokensToSpend,
+        Function<Integer, CompletableFuture<List<InputBox>>> inputBoxesLoader) {
+        CoveringBoxesCollector collector = new CoveringBoxesCollector(amountToSpend, tokensToSpend);
+        return collectPagesAsync(collector, 0, inputBoxesLoader);
+    }
+
+    private static CompletableFuture<CoveringBoxes> collectPagesAsync(
+        CoveringBoxesCollector collector, int page,
+        Function<Integer, CompletableFuture<List<InputBox>>> inputBoxesLoader) {
+        return inputBoxesLoader.apply(page).thenCompose(chunk ->
+            collector.addChunk(chunk)
+                ? CompletableFuture.completedFuture(collector.getResult())
+                : collectPagesAsync(collector, page + 1, inputBoxesLoader));
+    }
+
+    /**
+     * Collects covering boxes from the chunks (pages) of boxes, used by both synchronous and
+     * asynchronous selection.
+     */
+    private static class CoveringBoxesCollector {
+        private final long amountToSpend;
+        private final SelectTokensHelper tokensRemaining;
+        private final ArrayList<InputBox> selectedCoveringBoxes = new ArrayList<>();
+        // ids of selectedCoveringBoxes
+        private final HashSet<ErgoId> selectedIds = new HashSet<>();
+        private long remainingAmountToCover;
+
+        CoveringBoxesCollector(long amountToSpend, List<ErgoToken> tokensToSpend) {
+            this.amountToSpend = amountToSpend;
+            tokensRemaining = new SelectTokensHelper(tokensToSpend);
+            Preconditions.checkArgument(amountToSpend > 0 ||
+                !tokensRemaining.areTokensCovered(), "amountToSpend or tokens to spend should be > 0");
+            remainingAmountToCover = amountToSpend;
+        }
+
+        /**
+         * Selects the boxes of the given chunk.
+         *
+         * @return true when the selection is finished, either because the amount and tokens
+         * are covered or because the chunk is empty (i.e. the source is drained)
+         */
+        boolean addChunk(List<InputBox> chunk) {
             for (InputBox boxCandidate : chunk) {
                 // on rare occasions, chunk can include entries that we already had received on a
                 // previous chunk page. We make sure we don't add any duplicate entries.
-                if (!isAlreadyAdded(selectedCoveringBoxes, boxCandidate)) {
+                if (!selectedIds.contains(boxCandidate.getId())) {
                     boolean usefulTokens = tokensRemaining.foundNewTokens(boxCandidate.getTokens());
                     if (usefulTokens || remainingAmountToCover > 0) {
                         selectedCoveringBoxes.add(boxCandidate);
+                        selectedIds.add(boxCandidate.getId());
                         remainingAmountToCover -= boxCandidate.getValue();
                     }
                     if (remainingAmountToCover <= 0 && tokensRemaining.areTokensCovered())
-                        return new CoveringBoxes(amountToSpend, selectedCoveringBoxes);
+                        return true;
                 }
             }
-            // this chunk is not enough, go to the next (if any)
             if (chunk.size() == 0) {
                 // this was the last chunk, but still remain to collect
                 assert remainingAmountToCover > 0 || !tokensRemaining.areTokensCovered();
                 // cannot satisfy the request, but still return cb, with cb.isCovered == false
-                return new CoveringBoxes(amountToSpend, selectedCoveringBoxes);
+                return true;
             }
-            // step to next chunk
-            page++;
+            return false;
         }
-    }
 
-    /**
-     * @return true when boxCandidate is already added to selectedBoxes list
-     */
-    private static boolean isAlreadyAdded(ArrayList<InputBox> selectedBoxes, InputBox boxCandidate) {
-        boolean alreadyAdded = false;
-        for (InputBox coveringBox : selectedBoxes) {
-            if (coveringBox.getId().equals(boxCandidate.getId())) {
-                alreadyAdded = true;
-                break;
-            }
+        CoveringBoxes getResult() {
+            return new CoveringBoxes(amountToSpend, selectedCoveringBoxes);
         }
-        return alreadyAdded;
     }
 
     /**
@@ -344,6 +615,16 @@ public class BoxOperations {
          */
         @Nonnull
         List<InputBox> loadBoxesPage(@Nonnull BlockchainContext ctx, @Nonnull Address address, @Nonnull Integer integer);
+
+        /**
+         * @return number of boxes in every page returned by
+         * {@link #loadBoxesPage(BlockchainContext, Address, Integer)} but the last one, so that
+         * a page with less boxes is known to be the last one and no further pages are
+         * prefetched. 0 if unknown, then only an empty page is the last one.
+         */
+        default int getPageSize() {
+            return 0;
+        }
     }
 
     /**
@@ -377,6 +658,7 @@ public class BoxOperations {
             }
             return returnedBoxes;
         }
+
     }
 
     /**
@@ -398,5 +680,12 @@ public class BoxOperations {
         public List<InputBox> loadBoxesPage(@Nonnull BlockchainContext ctx, @Nonnull Address address, @Nonnull Integer page) {
             return ctx.getUnspentBoxesFor(address, page * DEFAULT_LIMIT_FOR_API, DEFAULT_LIMIT_FOR_API);
         }
+
+        @Override
+        public int getPageSize() {
+            // the context drops the boxes unknown to the node (and subclasses may filter the
+            // boxes), so a short page is not the last one
+            return 0;
+        }
     }
 }
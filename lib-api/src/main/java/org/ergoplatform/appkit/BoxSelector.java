@@ -0,0 +1,22 @@
+package org.ergoplatform.appkit;
+
+import java.util.List;
+
+/**
+ * Strategy of selecting the boxes to be spent by a transaction among the available ones.
+ * Can be used with {@link BoxOperations#withBoxSelector(BoxSelector)} and
+ * {@link UnsignedTransactionBuilder#withBoxSelector(BoxSelector)}.
+ * The strategies shipped with Appkit are created by {@link BoxSelectors}.
+ */
+public interface BoxSelector {
+    /**
+     * Selects the boxes covering the given amount of NanoErgs and tokens.
+     *
+     * @param inputBoxes    boxes to select from, in the order of preference
+     * @param amountToSpend amount of NanoErgs to be covered
+     * @param tokensToSpend tokens to be covered
+     * @return the selected boxes, in the order they should be spent
+     * @throws InputBoxesSelectionException when the given boxes are not enough
+     */
+    List<InputBox> select(List<InputBox> inputBoxes, long amountToSpend, List<ErgoToken> tokensToSpend);
+}
@@ -0,0 +1,268 @@
+package org.ergoplatform.appkit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Factory of the {@link BoxSelector} strategies shipped with Appkit.
+ * <p>
+ * Except for {@link #dustConsolidating(int, long)}, the strategies order the given boxes
+ * by their preference and then the boxes are picked in this order by the
+ * {@link #defaultSelector() default selector} until the amount and tokens are covered, so
+ * the validation of the selected boxes (including the value of change boxes) is the same
+ * for all of them.
+ */
+public final class BoxSelectors {
+    /** Default number of subsets examined by {@link #exactMatch()}. */
+    public static final int DEFAULT_EXACT_MATCH_TRIES = 100000;
+
+    private static final Comparator<InputBox> LARGEST_FIRST =
+        Comparator.comparingLong(InputBox::getValue).reversed();
+
+    private static final BoxSelector DEFAULT = BoxSelectorsJavaHelpers::selectBoxes;
+
+    private BoxSelectors() {
+    }
+
+    /**
+     * Selects the boxes in the given order until the amount and tokens are covered (the
+     * DefaultBoxSelector of ergo-wallet). Used by default.
+     */
+    public static BoxSelector defaultSelector() {
+        return DEFAULT;
+    }
+
+    /**
+     * Selects the boxes with the largest values first, which makes less inputs than the
+     * default selector when the boxes are not ordered by value.
+     */
+    public static BoxSelector largestFirst() {
+        return (inputBoxes, amountToSpend, tokensToSpend) -> {
+            List<InputBox> ordered = new ArrayList<>(inputBoxes);
+            ordered.sort(LARGEST_FIRST);
+            return DEFAULT.select(ordered, amountToSpend, tokensToSpend);
+        };
+    }
+
+    /**
+     * Minimizes the number of inputs: the tokens are covered by the boxes with the largest
+     * amounts of them, then the rest of the amount is covered by the smallest single box
+     * which is enough, otherwise by the largest boxes.
+     */
+    public static BoxSelector minInputs() {
+        return (inputBoxes, amountToSpend, tokensToSpend) -> {
+            List<InputBox> selected = coverTokens(inputBoxes, tokensToSpend);
+            List<InputBox> rest = notSelected(inputBoxes, selected);
+            rest.sort(LARGEST_FIRST);
+            long amountLeft = amountToSpend - sumOfValues(selected);
+            if (amountLeft > 0) {
+                InputBox smallestCovering = null;
+                for (InputBox box : rest) {
+                    if (box.getValue() < amountLeft) break;
+                    smallestCovering = box;
+                }
+                if (smallestCovering != null) {
+                    selected.add(smallestCovering);
+                    rest.remove(smallestCovering);
+                }
+            }
+            selected.addAll(rest);
+            return DEFAULT.select(selected, amountToSpend, tokensToSpend);
+        };
+    }
+
+    /**
+     * Same as {@link #exactMatch(long, int)} with the excess up to
+     * {@link Parameters#MinChangeValue} and {@value DEFAULT_EXACT_MATCH_TRIES} tries.
+     */
+    public static BoxSelector exactMatch() {
+        return exactMatch(Parameters.MinChangeValue - 1, DEFAULT_EXACT_MATCH_TRIES);
+    }
+
+    /**
+     * Looks for boxes whose values sum up exactly to the amount (up to maxExcess more), so
+     * that no change box is created: an excess below {@link Parameters#MinChangeValue} is
+     * added to the fee by the transaction builder when there is a fee output.
+     * The tokens are covered first (like by {@link #minInputs()}), then the subset of the
+     * boxes without tokens with the smallest excess is searched by branch and bound.
+     * When no such subset is found within maxTries steps, the largest boxes are selected.
+     *
+     * @param maxExcess max value of the selected boxes over the amount to spend
+     * @param maxTries  max number of steps of the search
+     */
+    public static BoxSelector exactMatch(long maxExcess, int maxTries) {
+        if (maxExcess < 0) {
+            throw new IllegalArgumentException("maxExcess should be >= 0: " + maxExcess);
+        }
+        return (inputBoxes, amountToSpend, tokensToSpend) -> {
+            List<InputBox> selected = coverTokens(inputBoxes, tokensToSpend);
+            List<InputBox> rest = notSelected(inputBoxes, selected);
+            rest.sort(LARGEST_FIRST);
+            long amountLeft = amountToSpend - sumOfValues(selected);
+            if (amountLeft > 0) {
+                List<InputBox> candidates = new ArrayList<>();
+                for (InputBox box : rest) {
+                    if (box.getTokens().isEmpty()) candidates.add(box);
+                }
+                List<InputBox> match = findExactMatch(candidates, amountLeft, maxExcess, maxTries);
+                selected.addAll(match);
+                rest.removeAll(match);
+            }
+            selected.addAll(rest);
+            return DEFAULT.select(selected, amountToSpend, tokensToSpend);
+        };
+    }
+
+    /**
+     * Selects the boxes like {@link #minInputs()} and then adds the smallest boxes without
+     * tokens with values below dustThreshold until there are maxInputs inputs, so that small
+     * boxes are consolidated into the change of the transaction.
+     * <p>
+     * Note, the added boxes are not needed to cover the amount, thus the transaction should
+     * spend all the selected boxes (as {@link UnsignedTransactionBuilder} does).
+     *
+     * @param maxInputs     max number of the selected boxes, the boxes needed to cover the
+     *                      amount are selected even if there are more
+     * @param dustThreshold boxes with values below are considered dust
+     */
+    public static BoxSelector dustConsolidating(int maxInputs, long dustThreshold) {
+        if (maxInputs < 1) {
+            throw new IllegalArgumentException("maxInputs should be positive: " + maxInputs);
+        }
+        BoxSelector covering = minInputs();
+        return (inputBoxes, amountToSpend, tokensToSpend) -> {
+            List<InputBox> selected = new ArrayList<>(covering.select(inputBoxes, amountToSpend, tokensToSpend));
+            if (selected.size() >= maxInputs) return selected;
+            List<InputBox> dust = new ArrayList<>();
+            for (InputBox box : notSelected(inputBoxes, selected)) {
+                if (box.getValue() < dustThreshold && box.getTokens().isEmpty()) dust.add(box);
+            }
+            dust.sort(Comparator.comparingLong(InputBox::getValue));
+            selected.addAll(dust.subList(0, Math.min(dust.size(), maxInputs - selected.size())));
+            return selected;
+        };
+    }
+
+    /**
+     * Selects the boxes with the largest amounts of each of the tokens until the amount of
+     * the token is covered.
+     */
+    private static List<InputBox> coverTokens(List<InputBox> inputBoxes, List<ErgoToken> tokensToSpend) {
+        List<InputBox> selected = new ArrayList<>();
+        for (ErgoToken token : tokensToSpend) {
+            ErgoId tokenId = token.getId();
+            long amountLeft = token.getValue();
+            for (InputBox box : selected) {
+                amountLeft -= amountOf(box, tokenId);
+            }
+            if (amountLeft <= 0) continue;
+
+            List<InputBox> candidates = new ArrayList<>();
+            for (InputBox box : notSelected(inputBoxes, selected)) {
+                if (amountOf(box, tokenId) > 0) candidates.add(box);
+            }
+            candidates.sort(Comparator.comparingLong((InputBox box) -> amountOf(box, tokenId)).reversed());
+            for (InputBox box : candidates) {
+                if (amountLeft <= 0) break;
+                selected.add(box);
+                amountLeft -= amountOf(box, tokenId);
+            }
+        }
+        return selected;
+    }
+
+    private static long amountOf(InputBox box, ErgoId tokenId) {
+        long amount = 0;
+        for (ErgoToken token : box.getTokens()) {
+            if (token.getId().equals(tokenId)) amount += token.getValue();
+        }
+        return amount;
+    }
+
+    private static long sumOfValues(List<InputBox> boxes) {
+        long sum = 0;
+        for (InputBox box : boxes) {
+            sum += box.getValue();
+        }
+        return sum;
+    }
+
+    private static List<InputBox> notSelected(List<InputBox> inputBoxes, List<InputBox> selected) {
+        Set<ErgoId> selectedIds = new HashSet<>();
+        for (InputBox box : selected) {
+            selectedIds.add(box.getId());
+        }
+        List<InputBox> rest = new ArrayList<>(inputBoxes.size());
+        for (InputBox box : inputBoxes) {
+            if (selectedIds.add(box.getId())) rest.add(box);
+        }
+        return rest;
+    }
+
+    /**
+     * Branch and bound search of the subset of the given boxes (sorted by value, largest
+     * first) with the sum of values between target and target + maxExcess and the smallest
+     * excess. The subsets are explored depth first, including the next box before excluding
+     * it, and a branch is cut as soon as its sum is over the bound or the remaining boxes
+     * can't reach the target.
+     *
+     * @return the found subset, or an empty list if there is none within maxTries steps
+     */
+    static List<InputBox> findExactMatch(List<InputBox> boxes, long target, long maxExcess, int maxTries) {
+        int n = boxes.size();
+        long[] values = new long[n];
+        // remaining[i] is the sum of values of the boxes starting from i
+        long[] remaining = new long[n + 1];
+        for (int i = n - 1; i >= 0; i--) {
+            values[i] = boxes.get(i).getValue();
+            remaining[i] = remaining[i + 1] + values[i];
+        }
+
+        boolean[] included = new boolean[n];
+        boolean[] best = null;
+        long bestExcess = Long.MAX_VALUE;
+        long sum = 0;
+        int depth = 0;
+        for (int tries = 0; tries < maxTries; tries++) {
+            boolean backtrack;
+            if (sum + remaining[depth] < target || sum - target > maxExcess) {
+                backtrack = true;
+            } else if (sum >= target) {
+                if (sum - target < bestExcess) {
+                    bestExcess = sum - target;
+                    best = Arrays.copyOf(included, depth);
+                    if (bestExcess == 0) break;
+                }
+                backtrack = true;
+            } else {
+                backtrack = false;
+            }
+
+            if (backtrack) {
+                // exclude the last included box, the boxes after it were already excluded
+                do {
+                    depth--;
+                } while (depth >= 0 && !included[depth]);
+                if (depth < 0) break;
+                included[depth] = false;
+                sum -= values[depth];
+            } else {
+                included[depth] = true;
+                sum += values[depth];
+            }
+            depth++;
+        }
+
+        List<InputBox> match = new ArrayList<>();
+        if (best != null) {
+            for (int i = 0; i < best.length; i++) {
+                if (best[i]) match.add(boxes.get(i));
+            }
+        }
+        return match;
+    }
+}
@@ -1,6 +1,8 @@
 package org.ergoplatform.appkit
 
 import scala.collection.mutable
+import org.ergoplatform.wallet.boxes.{BoxSelector => WalletBoxSelector}
+import org.ergoplatform.wallet.boxes.BoxSelector.{BoxSelectionError, BoxSelectionResult}
 import org.ergoplatform.wallet.boxes.DefaultBoxSelector
 import org.ergoplatform.wallet.boxes.DefaultBoxSelector.NotEnoughCoinsForChangeBoxesError
 import org.ergoplatform.wallet.boxes.DefaultBoxSelector.NotEnoughErgsError
@@ -52,4 +54,35 @@ object BoxSelectorsJavaHelpers {
     foundBoxes.convertTo[JList[InputBox]]
   }
 
+  /**
+   * Box selector of ergo-wallet which selects all the given boxes, so that the change is
+   * formed from all of them. Used to build transactions from the boxes which are already
+   * selected (for example, by a [[BoxSelector]]), the selection fails when the boxes
+   * don't cover the target balance and assets.
+   */
+  object AllInputsBoxSelector extends WalletBoxSelector {
+    override def select[T <: ErgoBoxAssets](inputBoxes: Iterator[T],
+                                            filterFn: T => Boolean,
+                                            targetBalance: Long,
+                                            targetAssets: Map[ModifierId, Long]): Either[BoxSelectionError, BoxSelectionResult[T]] = {
+      val boxes = inputBoxes.filter(filterFn).toIndexedSeq
+      var foundBalance = 0L
+      val foundAssets = mutable.Map[ModifierId, Long]()
+      boxes.foreach { box =>
+        foundBalance += box.value
+        box.tokens.foreach { case (id, amount) =>
+          foundAssets.put(id, foundAssets.getOrElse(id, 0L) + amount)
+        }
+      }
+      if (foundBalance < targetBalance)
+        Left(NotEnoughErgsError(
+          s"not enough boxes to meet ERG needs $targetBalance (found only $foundBalance)", foundBalance))
+      else if (!targetAssets.forall { case (id, amount) => foundAssets.getOrElse(id, 0L) >= amount })
+        Left(NotEnoughTokensError(
+          s"not enough boxes to meet token needs $targetAssets (found only $foundAssets)", foundAssets.toMap))
+      else
+        DefaultBoxSelector.formChangeBoxes(foundBalance, targetBalance, foundAssets, targetAssets)
+          .right.map(changeBoxes => new BoxSelectionResult(boxes, changeBoxes))
+    }
+  }
 }
@@ -0,0 +1,28 @@
+package org.ergoplatform.appkit;
+
+/**
+ * Specifies how fresh a {@link BlockchainContext} passed to an action should be, when
+ * the {@link ErgoClient} implementation is able to reuse previously created contexts.
+ * <br>
+ * A context is immutable and represents the blockchain at some block, thus it can be
+ * safely reused until the node reports a new tip of the blockchain.
+ */
+public enum ContextFreshness {
+    /**
+     * A cached context is reused without any requests to the node while its time-to-live
+     * is not expired. After that the context is checked the same way as for {@link #VERIFIED}.
+     */
+    CACHED,
+
+    /**
+     * A cached context is reused only if the node still reports the same best header.
+     * This requires one cheap request to the node for every execution.
+     */
+    VERIFIED,
+
+    /**
+     * A new context is always created with the newest headers loaded from the node.
+     * The new context also replaces the cached one.
+     */
+    LATEST
+}
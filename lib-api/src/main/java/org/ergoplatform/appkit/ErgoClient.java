@@ -1,5 +1,7 @@
 package org.ergoplatform.appkit;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Function;
 
 /**
@@ -23,6 +25,22 @@ public interface ErgoClient {
      */
     <T> T execute(Function<BlockchainContext, T> action);
 
+    /**
+     * Execute the given asynchronous action without blocking the current thread.
+     * The {@link BlockchainContext} is created asynchronously and then passed to the
+     * action, which is expected to use asynchronous methods of the context (like
+     * {@link BlockchainContext#getBoxesByIdAsync(String...)}).
+     *
+     * The default implementation executes the action by {@link #execute(Function)} on
+     * {@link ForkJoinPool#commonPool()}.
+     *
+     * @return a future completed with the result of the future returned by the action
+     */
+    default <T> CompletableFuture<T> executeAsync(Function<BlockchainContext, CompletableFuture<T>> action) {
+        return CompletableFuture.supplyAsync(() -> execute(action), ForkJoinPool.commonPool())
+            .thenCompose(res -> res);
+    }
+
     /**
      * This message is used whenever the explorer is requested in "node-only" mode.
      */
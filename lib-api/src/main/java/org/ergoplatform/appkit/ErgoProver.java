@@ -7,10 +7,18 @@ import special.sigma.BigInt;
 import sigmastate.Values.SigmaBoolean;
 import sigmastate.interpreter.HintsBag;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Interface of the provers that can be used to sign {@link UnsignedTransaction}s.
+ * <p>
+ * A prover is thread-safe and cheap to create: the scripts are reduced by interpreters
+ * (each with its own IR context) borrowed from a pool shared by all the provers.
  */
 public interface ErgoProver {
     /**
@@ -91,6 +99,105 @@ public interface ErgoProver {
 
     SignedTransaction signReduced(ReducedTransaction tx, int baseCost);
 
+    /**
+     * Signs the reduced transaction like {@link #signReduced(ReducedTransaction, int)}, but
+     * the proofs of the inputs are generated concurrently on the given executor, which
+     * speeds up signing of transactions with many inputs. The message to sign is computed
+     * once for all the inputs.
+     *
+     * @param tx       reduced transaction to be signed
+     * @param baseCost computational cost before this transaction validation
+     * <p>
+     * The default implementation generates the proofs sequentially by
+     * {@link #signReduced(ReducedTransaction, int)}, the executor is not used.
+     *
+     * @param executor executor used to generate the proofs
+     * @return new instance of {@link SignedTransaction} which contains necessary proofs
+     */
+    default SignedTransaction signReduced(ReducedTransaction tx, int baseCost, Executor executor) {
+        return signReduced(tx, baseCost);
+    }
+
+    /**
+     * Signs the given independent transactions, see {@link #signAll(List, Executor)}.
+     * The transactions are signed using {@link ForkJoinPool#commonPool()}.
+     */
+    default List<SignedTransaction> signAll(List<UnsignedTransaction> txs) {
+        return signAll(txs, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Signs the given independent transactions concurrently on the given executor. Each
+     * transaction is signed like by {@link #sign(UnsignedTransaction)}, i.e. with baseCost = 0.
+     * <p>
+     * The scripts are reduced by interpreters borrowed from a pool shared by all the
+     * provers, so no interpreter is created per transaction.
+     *
+     * @param txs      transactions to be signed
+     * @param executor executor used to sign the transactions, the number of its threads
+     *                 limits the number of the transactions signed at the same time
+     * @return the signed transactions in the order of the given ones
+     * <p>
+     * The default implementation signs the transactions one after another on the current
+     * thread by {@link #sign(UnsignedTransaction)}, the executor is not used.
+     *
+     * @throws BatchSigningException when some of the transactions cannot be signed, the
+     *                               error of each of them and the signed ones are available
+     *                               from the exception
+     */
+    default List<SignedTransaction> signAll(List<UnsignedTransaction> txs, Executor executor) {
+        List<SignedTransaction> signed = new ArrayList<>(txs.size());
+        SortedMap<Integer, Throwable> errors = new TreeMap<>();
+        for (int i = 0; i < txs.size(); i++) {
+            try {
+                signed.add(sign(txs.get(i)));
+            } catch (Exception e) {
+                signed.add(null);
+                errors.put(i, e);
+            }
+        }
+        if (!errors.isEmpty()) {
+            throw new BatchSigningException(signed, errors);
+        }
+        return signed;
+    }
+
+    /**
+     * Signs the given reduced transactions, see {@link #signAllReduced(List, Executor)}.
+     * The transactions are signed using {@link ForkJoinPool#commonPool()}.
+     */
+    default List<SignedTransaction> signAllReduced(List<ReducedTransaction> txs) {
+        return signAllReduced(txs, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Signs the given reduced transactions concurrently on the given executor, like
+     * {@link #signAll(List, Executor)} signs unsigned ones. Each transaction is signed like
+     * by {@link #signReduced(ReducedTransaction, int)} with baseCost = 0.
+     * <p>
+     * The default implementation signs the transactions one after another on the current
+     * thread, the executor is not used.
+     *
+     * @return the signed transactions in the order of the given ones
+     * @throws BatchSigningException when some of the transactions cannot be signed
+     */
+    default List<SignedTransaction> signAllReduced(List<ReducedTransaction> txs, Executor executor) {
+        List<SignedTransaction> signed = new ArrayList<>(txs.size());
+        SortedMap<Integer, Throwable> errors = new TreeMap<>();
+        for (int i = 0; i < txs.size(); i++) {
+            try {
+                signed.add(signReduced(txs.get(i), 0));
+            } catch (Exception e) {
+                signed.add(null);
+                errors.put(i, e);
+            }
+        }
+        if (!errors.isEmpty()) {
+            throw new BatchSigningException(signed, errors);
+        }
+        return signed;
+    }
+
     /**
      * Verifies a signature on given (arbitrary) message for a given public key.
      *
@@ -3,6 +3,8 @@ package org.ergoplatform.appkit;
 import special.sigma.GroupElement;
 
 import java.math.BigInteger;
+import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * This interface is used to configure and build a new {@link ErgoProver prover}.
@@ -77,6 +79,25 @@ public interface ErgoProverBuilder {
      */
     ErgoProverBuilder withDLogSecret(BigInteger x);
 
+    /**
+     * Enables concurrent reduction of the inputs of a transaction by
+     * {@link ErgoProver#reduce(UnsignedTransaction, int)} and
+     * {@link ErgoProver#sign(UnsignedTransaction)}, which is useful for transactions with many
+     * inputs protected by scripts. The cost limit is enforced in the order of inputs, so the
+     * reduced transaction (or the failure) is the same as with sequential reduction.
+     * <p>
+     * Note, the transactions signed by {@link ErgoProver#signAll(List, Executor)} are reduced
+     * sequentially, because they are already signed concurrently.
+     * <p>
+     * The default implementation returns this builder, i.e. the inputs are reduced
+     * sequentially.
+     *
+     * @param executor executor used to reduce the inputs
+     */
+    default ErgoProverBuilder withParallelReduction(Executor executor) {
+        return this;
+    }
+
     /**
      * Builds a new prover using provided configuration.
      */
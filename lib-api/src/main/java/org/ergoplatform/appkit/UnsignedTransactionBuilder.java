@@ -32,6 +32,19 @@ public interface UnsignedTransactionBuilder {
      */
     UnsignedTransactionBuilder boxesToSpend(List<InputBox> boxes);
 
+    /**
+     * Makes the boxes given to {@link #boxesToSpend(List)} candidates, the boxes which will be
+     * spent are selected among them by the given selector when the transaction is
+     * {@link #build() built}. The selected boxes cover the values of the outputs, the fee and
+     * the tokens of the outputs and the tokens to burn. A candidate whose id is the id of a
+     * token of the outputs (i.e. the token is minted) is always spent as the first input.
+     * <p>
+     * Without a selector all the given boxes are spent.
+     *
+     * @param selector strategy of selecting the boxes, see {@link BoxSelectors}
+     */
+    UnsignedTransactionBuilder withBoxSelector(BoxSelector selector);
+
     /**
      * Specifies boxes that will be used as data-inputs by the transaction when it will be included in a block.
      *
@@ -1,9 +1,14 @@
 package org.ergoplatform.appkit.impl;
 
 import org.ergoplatform.appkit.ErgoClientException;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
 import retrofit2.Retrofit;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 abstract class ApiFacade {
 
@@ -41,4 +46,117 @@ abstract class ApiFacade {
         }
     }
 
+    /**
+     * Helper interface to create a call which is then executed asynchronously
+     */
+    interface CallSupplier<T> {
+        Call<T> get() throws NoSuchMethodException;
+    }
+
+    /**
+     * Helper interface to handle the response of the asynchronous call
+     */
+    interface ResponseHandler<T, R> {
+        R apply(Response<T> response) throws IOException;
+    }
+
+    /**
+     * Executes the call created by the given supplier asynchronously (using
+     * {@link Call#enqueue}), so that the current thread is not blocked.
+     * Cancelling the returned future cancels the HTTP request.
+     *
+     * @param r  Retrofit instance to use for connection
+     * @param callSupplier creates the call to be executed
+     * @return future completed with the body of the response or with {@link ErgoClientException}
+     * (also when the server returns an error, like {@link #getSuccessfulBody(Response)})
+     */
+    static <T> CompletableFuture<T> executeAsync(Retrofit r, CallSupplier<T> callSupplier) {
+        return executeAsync(r, callSupplier, ApiFacade::getSuccessfulBody);
+    }
+
+    /**
+     * Executes the call created by the given supplier asynchronously (using
+     * {@link Call#enqueue}), so that the current thread is not blocked.
+     * Cancelling the returned future cancels the HTTP request.
+     *
+     * @param r  Retrofit instance to use for connection
+     * @param callSupplier creates the call to be executed
+     * @param handler converts the response to the result, it is executed on the thread of
+     *                HTTP client and it can throw {@link ErgoClientException}
+     * @return future completed with the result of the handler or with {@link ErgoClientException}
+     */
+    static <T, R> CompletableFuture<R> executeAsync(
+            Retrofit r, CallSupplier<T> callSupplier, ResponseHandler<T, R> handler) {
+        CompletableFuture<R> future = new CompletableFuture<>();
+        Call<T> call;
+        try {
+            call = callSupplier.get();
+        } catch (NoSuchMethodException e) {
+            future.completeExceptionally(clientError(r, e));
+            return future;
+        }
+        call.enqueue(new Callback<T>() {
+            @Override
+            public void onResponse(Call<T> c, Response<T> response) {
+                try {
+                    future.complete(handler.apply(response));
+                } catch (ErgoClientException e) {
+                    future.completeExceptionally(e);
+                } catch (IOException | RuntimeException e) {
+                    future.completeExceptionally(clientError(r, e));
+                }
+            }
+
+            @Override
+            public void onFailure(Call<T> c, Throwable t) {
+                future.completeExceptionally(clientError(r, t));
+            }
+        });
+        future.whenComplete((res, t) -> {
+            if (future.isCancelled()) call.cancel();
+        });
+        return future;
+    }
+
+    /**
+     * Returns the body of the given response if it is successful.
+     * @throws ErgoClientException with the error returned by the server otherwise
+     */
+    static <T> T getSuccessfulBody(Response<T> response) throws IOException {
+        if (!response.isSuccessful()) {
+            throw new ErgoClientException(response.code() + ": " +
+                (response.errorBody() != null ? response.errorBody().string() : "Server returned error"), null);
+        }
+        return response.body();
+    }
+
+    /**
+     * Returns the body of the given response if it is successful, or null if the requested
+     * entity is not found (HTTP 404).
+     * @throws ErgoClientException with the error returned by the server for other errors
+     */
+    static <T> T getBodyIfFound(Response<T> response) throws IOException {
+        if (response.code() == 404) {
+            return null;
+        }
+        return getSuccessfulBody(response);
+    }
+
+    /**
+     * Waits for the given future and returns its result.
+     * @throws ErgoClientException if the future completed exceptionally, the original
+     * {@link ErgoClientException} is rethrown as is, other exceptions are wrapped.
+     */
+    static <T> T join(CompletableFuture<T> future) throws ErgoClientException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            }
+            throw new ErgoClientException(cause.getMessage(), cause);
+        }
+    }
+
 }
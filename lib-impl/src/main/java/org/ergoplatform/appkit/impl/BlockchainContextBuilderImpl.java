@@ -1,6 +1,5 @@
 package org.ergoplatform.appkit.impl;
 
-import okhttp3.OkHttpClient;
 import org.ergoplatform.appkit.BlockchainContext;
 import org.ergoplatform.appkit.BlockchainContextBuilder;
 import org.ergoplatform.appkit.ErgoClientException;
@@ -14,16 +13,26 @@ import retrofit2.Retrofit;
 import java.math.BigDecimal;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import javax.annotation.Nullable;
 
 public class BlockchainContextBuilderImpl implements BlockchainContextBuilder {
     private final ApiClient _client;
     private ExplorerApiClient _explorer;
     private final NetworkType _networkType;
-    private OkHttpClient _ok;
     private Retrofit _retrofit;
+    // node info given by the caller, the loaded one is not kept, so that each context built
+    // by this builder gets the node info matching its headers
     private NodeInfo _nodeInfo;
-    private List<BlockHeader> _headers;
     private Retrofit _retrofitExplorer;
+    private boolean _nodeCrossCheck = false;
+    private BoxCache _boxCache;
+    private boolean _binaryBoxes = false;
+    private WatchedUtxoIndex _utxoIndex;
+    private volatile long _nodeInfoNanos;
+    private volatile long _lastHeadersNanos;
+    private volatile Timings _timings;
 
     public BlockchainContextBuilderImpl(
             ApiClient client, ExplorerApiClient explorer,
@@ -33,26 +42,161 @@ public class BlockchainContextBuilderImpl implements BlockchainContextBuilder {
         _networkType = networkType;
     }
 
+    /**
+     * Uses the given node info instead of requesting it from the node.
+     * This is useful when the node info has already been loaded, for example to check
+     * whether the node reports a new best header.
+     */
+    public BlockchainContextBuilderImpl withNodeInfo(NodeInfo nodeInfo) {
+        _nodeInfo = nodeInfo;
+        return this;
+    }
+
+    /**
+     * If true, the boxes returned by Explorer are loaded from the node by the created
+     * context, otherwise (by default) the boxes are created from Explorer data.
+     * See {@link BlockchainContextImpl#getUnspentBoxesFor}.
+     */
+    public BlockchainContextBuilderImpl withNodeCrossCheck(boolean nodeCrossCheck) {
+        _nodeCrossCheck = nodeCrossCheck;
+        return this;
+    }
+
+    /**
+     * Sets the cache of box contents used by the created context (null means no cache).
+     * The same cache can be shared by many contexts, see {@link BoxCache}.
+     */
+    public BlockchainContextBuilderImpl withBoxCache(@Nullable BoxCache boxCache) {
+        _boxCache = boxCache;
+        return this;
+    }
+
+    /**
+     * If true, the created context loads boxes by id from the binary node endpoints
+     * ({@code utxo/byIdBinary}) and parses the serialized bytes directly, which avoids
+     * JSON parsing and decoding of every register. By default JSON endpoints are used.
+     */
+    public BlockchainContextBuilderImpl withBinaryBoxes(boolean binaryBoxes) {
+        _binaryBoxes = binaryBoxes;
+        return this;
+    }
+
+    /**
+     * Sets the index of unspent boxes used by the created context for the watched addresses
+     * instead of Explorer (null means no index).
+     */
+    public BlockchainContextBuilderImpl withUtxoIndex(@Nullable WatchedUtxoIndex utxoIndex) {
+        _utxoIndex = utxoIndex;
+        return this;
+    }
+
+    /**
+     * Builds a new context. The node info request is sent asynchronously while the last
+     * headers are loaded on the current thread, thus the latency of this method is
+     * the latency of the slowest request.
+     */
+    @Override
+    public BlockchainContextImpl build() throws ErgoClientException {
+        long start = System.nanoTime();
+        initRetrofit();
+        CompletableFuture<NodeInfo> nodeInfo = loadNodeInfo(start);
+        List<BlockHeader> headers;
+        try {
+            headers = ErgoNodeFacade.getLastHeaders(_retrofit, BigDecimal.valueOf(NUM_LAST_HEADERS));
+        } catch (RuntimeException e) {
+            // the node info is not needed anymore
+            nodeInfo.cancel(false);
+            throw e;
+        }
+        _lastHeadersNanos = System.nanoTime() - start;
+        return createContext(ApiFacade.join(nodeInfo), headers, start);
+    }
+
+    /**
+     * Builds a new context without blocking the current thread. All the requests to the
+     * node are sent concurrently.
+     */
     @Override
-    public BlockchainContext build() throws ErgoClientException {
-        _ok = _client.getOkBuilder().build();
-        _retrofit = _client.getAdapterBuilder()
-                .client(_ok)
-                .build();
+    public CompletableFuture<BlockchainContext> buildAsync() {
+        long start = System.nanoTime();
+        initRetrofit();
+        CompletableFuture<NodeInfo> nodeInfo = loadNodeInfo(start);
+        CompletableFuture<List<BlockHeader>> headers = ErgoNodeFacade
+            .getLastHeadersAsync(_retrofit, BigDecimal.valueOf(NUM_LAST_HEADERS))
+            .whenComplete((res, t) -> _lastHeadersNanos = System.nanoTime() - start);
+        return nodeInfo.<List<BlockHeader>, BlockchainContext>thenCombine(headers,
+            (ni, hs) -> createContext(ni, hs, start));
+    }
+
+    /**
+     * Returns durations of the bootstrap phases of the last built context, or null if
+     * no context has been built yet.
+     */
+    public Timings getTimings() {
+        return _timings;
+    }
+
+    private void initRetrofit() {
+        // HTTP clients are shared between all contexts created for the same api clients
+        _retrofit = _client.getRetrofit();
 
         if (_explorer != null) {
-            OkHttpClient okExplorer = _explorer.getOkBuilder().build();
-            _retrofitExplorer = _explorer.getAdapterBuilder()
-                .client(okExplorer)
-                .build();
+            _retrofitExplorer = _explorer.getRetrofit();
         }
+    }
+
+    private CompletableFuture<NodeInfo> loadNodeInfo(long start) {
+        if (_nodeInfo != null) {
+            _nodeInfoNanos = 0;
+            return CompletableFuture.completedFuture(_nodeInfo);
+        }
+        CompletableFuture<NodeInfo> request = ErgoNodeFacade.getNodeInfoAsync(_retrofit);
+        CompletableFuture<NodeInfo> res = request
+            .whenComplete((ni, t) -> _nodeInfoNanos = System.nanoTime() - start);
+        // cancelling the returned future cancels the request
+        res.whenComplete((ni, t) -> {
+            if (res.isCancelled()) request.cancel(false);
+        });
+        return res;
+    }
 
-        _nodeInfo  = ErgoNodeFacade.getNodeInfo(_retrofit);
-        _headers  = ErgoNodeFacade.getLastHeaders(_retrofit, BigDecimal.valueOf(NUM_LAST_HEADERS));
-        Collections.reverse(_headers);
-        
-        return new BlockchainContextImpl(_client, _retrofit, _explorer, _retrofitExplorer, _networkType, _nodeInfo, _headers);
+    private BlockchainContextImpl createContext(NodeInfo nodeInfo, List<BlockHeader> headers, long start) {
+        Collections.reverse(headers);
+        BlockchainContextImpl ctx = new BlockchainContextImpl(
+            _client, _retrofit, _explorer, _retrofitExplorer, _networkType, nodeInfo, headers,
+            _nodeCrossCheck, _boxCache, _binaryBoxes, _utxoIndex);
+        _timings = new Timings(_nodeInfoNanos, _lastHeadersNanos, System.nanoTime() - start);
+        return ctx;
     }
 
+    /**
+     * Durations (in nanoseconds) of the phases of context creation. The phases are
+     * executed concurrently, so the total time is close to the duration of the slowest phase.
+     */
+    public static class Timings {
+        private final long _nodeInfoNanos;
+        private final long _lastHeadersNanos;
+        private final long _totalNanos;
 
+        Timings(long nodeInfoNanos, long lastHeadersNanos, long totalNanos) {
+            _nodeInfoNanos = nodeInfoNanos;
+            _lastHeadersNanos = lastHeadersNanos;
+            _totalNanos = totalNanos;
+        }
+
+        /** Time of loading the node info (0 if the node info was given to the builder). */
+        public long getNodeInfoNanos() { return _nodeInfoNanos; }
+
+        /** Time of loading the last headers. */
+        public long getLastHeadersNanos() { return _lastHeadersNanos; }
+
+        /** Time from the start of building until the context is created. */
+        public long getTotalNanos() { return _totalNanos; }
+
+        @Override
+        public String toString() {
+            return String.format("Timings(nodeInfo: %d ns, lastHeaders: %d ns, total: %d ns)",
+                _nodeInfoNanos, _lastHeadersNanos, _totalNanos);
+        }
+    }
 }
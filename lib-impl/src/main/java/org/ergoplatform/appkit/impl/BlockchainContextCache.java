@@ -0,0 +1,157 @@
+package org.ergoplatform.appkit.impl;
+
+import org.ergoplatform.appkit.BlockchainContext;
+import org.ergoplatform.appkit.ContextFreshness;
+import org.ergoplatform.appkit.ErgoClientException;
+import org.ergoplatform.appkit.NetworkType;
+import org.ergoplatform.explorer.client.ExplorerApiClient;
+import org.ergoplatform.restapi.client.ApiClient;
+import org.ergoplatform.restapi.client.NodeInfo;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the last {@link BlockchainContextImpl} created for the given node and reuses it
+ * until the node reports a new best header.
+ * <br>
+ * The context is immutable and represents the blockchain at the block of its last header,
+ * so it can be shared between many actions (including concurrent ones) as long as the
+ * tip of the blockchain doesn't change. Note, {@link BlockchainContext#getWallet()} of a
+ * shared context loads the wallet boxes on each call, as they change without a new block.
+ * <br>
+ * The cached context is checked either by time-to-live, or by requesting
+ * {@link NodeInfo} from the node (one cheap request instead of two requests which are
+ * necessary to create a new context).
+ */
+public class BlockchainContextCache {
+    private final Supplier<BlockchainContextBuilderImpl> _builderFactory;
+    private volatile long _ttlMillis;
+    private volatile CachedContext _cached;
+    // a lock instead of synchronized, which would pin the carrier of a virtual thread
+    // waiting for the node response
+    private final ReentrantLock _refreshLock = new ReentrantLock();
+
+    /**
+     * @param ttlMillis time (in milliseconds) during which the cached context is used
+     *                  without checking the node, 0 means the context is always checked.
+     */
+    public BlockchainContextCache(
+            ApiClient client, ExplorerApiClient explorer,
+            NetworkType networkType, long ttlMillis) {
+        this(() -> new BlockchainContextBuilderImpl(client, explorer, networkType), ttlMillis);
+    }
+
+    /**
+     * @param builderFactory creates builders of new contexts (with all the necessary options)
+     * @param ttlMillis      time (in milliseconds) during which the cached context is used
+     *                       without checking the node, 0 means the context is always checked.
+     */
+    public BlockchainContextCache(Supplier<BlockchainContextBuilderImpl> builderFactory, long ttlMillis) {
+        _builderFactory = builderFactory;
+        setTtlMillis(ttlMillis);
+    }
+
+    public long getTtlMillis() {
+        return _ttlMillis;
+    }
+
+    public void setTtlMillis(long ttlMillis) {
+        if (ttlMillis < 0) {
+            throw new IllegalArgumentException("Context time-to-live must be >= 0");
+        }
+        _ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Returns a context satisfying the given freshness requirement, the cached context is
+     * reused whenever possible.
+     */
+    public BlockchainContext getContext(ContextFreshness freshness) throws ErgoClientException {
+        CachedContext cached = _cached;
+        if (freshness == ContextFreshness.CACHED && cached != null && !cached.isExpired(_ttlMillis)) {
+            return cached.ctx;
+        }
+        _refreshLock.lock();
+        try {
+            // another thread may have already refreshed the context while we were waiting
+            if (_cached != cached && _cached != null && freshness != ContextFreshness.LATEST) {
+                return _cached.ctx;
+            }
+            BlockchainContextImpl ctx;
+            if (freshness == ContextFreshness.LATEST || cached == null) {
+                ctx = newBuilder().build();
+            } else {
+                NodeInfo nodeInfo = ErgoNodeFacade.getNodeInfo(cached.ctx.getRetrofit());
+                if (cached.isTip(nodeInfo)) {
+                    // the same block, just restart time-to-live of the cached context
+                    _cached = new CachedContext(cached.ctx);
+                    return cached.ctx;
+                }
+                ctx = newBuilder().withNodeInfo(nodeInfo).build();
+            }
+            _cached = new CachedContext(ctx);
+            return ctx;
+        } finally {
+            _refreshLock.unlock();
+        }
+    }
+
+    /**
+     * Asynchronous version of {@link #getContext(ContextFreshness)}.
+     * Unlike the synchronous version, concurrent refreshes are not coordinated, so several
+     * requests may be sent to the node when the cached context is outdated.
+     */
+    public CompletableFuture<BlockchainContext> getContextAsync(ContextFreshness freshness) {
+        CachedContext cached = _cached;
+        if (freshness == ContextFreshness.CACHED && cached != null && !cached.isExpired(_ttlMillis)) {
+            return CompletableFuture.completedFuture(cached.ctx);
+        }
+        if (freshness == ContextFreshness.LATEST || cached == null) {
+            return newBuilder().buildAsync().thenApply(this::store);
+        }
+        return ErgoNodeFacade.getNodeInfoAsync(cached.ctx.getRetrofit()).thenCompose(nodeInfo -> {
+            if (cached.isTip(nodeInfo)) {
+                return CompletableFuture.completedFuture(store(cached.ctx));
+            }
+            return newBuilder().withNodeInfo(nodeInfo).buildAsync().thenApply(this::store);
+        });
+    }
+
+    private BlockchainContext store(BlockchainContext ctx) {
+        _cached = new CachedContext((BlockchainContextImpl)ctx);
+        return ctx;
+    }
+
+    /**
+     * Forgets the cached context, so that the next request creates a new one.
+     */
+    public void invalidate() {
+        _cached = null;
+    }
+
+    private BlockchainContextBuilderImpl newBuilder() {
+        return _builderFactory.get();
+    }
+
+    private static class CachedContext {
+        final BlockchainContextImpl ctx;
+        final long createdAt;
+
+        CachedContext(BlockchainContextImpl ctx) {
+            this.ctx = ctx;
+            this.createdAt = System.currentTimeMillis();
+        }
+
+        boolean isExpired(long ttlMillis) {
+            return System.currentTimeMillis() - createdAt >= ttlMillis;
+        }
+
+        /** Returns true if the given node info reports the last header of the cached context as best. */
+        boolean isTip(NodeInfo nodeInfo) {
+            String bestHeaderId = nodeInfo.getBestFullHeaderId();
+            return bestHeaderId != null && bestHeaderId.equals(ctx.getHeaders().get(0).getId());
+        }
+    }
+}
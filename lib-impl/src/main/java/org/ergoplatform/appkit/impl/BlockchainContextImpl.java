@@ -2,18 +2,37 @@ package org.ergoplatform.appkit.impl;
 
 import com.google.common.base.Preconditions;
 import com.google.gson.Gson;
+import org.ergoplatform.ErgoBox;
 import org.ergoplatform.ErgoLikeTransaction;
 import org.ergoplatform.appkit.*;
 import org.ergoplatform.explorer.client.ExplorerApiClient;
+import org.ergoplatform.explorer.client.model.ItemsA;
 import org.ergoplatform.explorer.client.model.OutputInfo;
 import org.ergoplatform.restapi.client.*;
 import retrofit2.Retrofit;
 import special.sigma.Header;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import javax.annotation.Nullable;
 
 public class BlockchainContextImpl extends BlockchainContextBase {
+    /** Number of boxes requested from Explorer in one page when all boxes of a template are loaded. */
+    static final int TEMPLATE_PAGE_SIZE = 100;
+    /** Max number of pages of boxes requested from Explorer concurrently. */
+    static final int MAX_CONCURRENT_PAGES = 8;
+
     private final ApiClient _client;
     private final Retrofit _retrofit;
     final PreHeaderImpl _preHeader;
@@ -21,14 +40,41 @@ public class BlockchainContextImpl extends BlockchainContextBase {
     private Retrofit _retrofitExplorer;
     private final NodeInfo _nodeInfo;
     private final List<BlockHeader> _headers;
-    private ErgoWalletImpl _wallet;
+    private final boolean _nodeCrossCheck;
+    private final BoxCache _boxCache;
+    private final boolean _binaryBoxes;
+    private final WatchedUtxoIndex _utxoIndex;
 
     public BlockchainContextImpl(
             ApiClient client, Retrofit retrofit,
             ExplorerApiClient explorer, Retrofit retrofitExplorer,
             NetworkType networkType,
             NodeInfo nodeInfo, List<BlockHeader> headers) {
+        this(client, retrofit, explorer, retrofitExplorer, networkType, nodeInfo, headers, false, null, false, null);
+    }
+
+    /**
+     * @param nodeCrossCheck if true, every box returned by Explorer is loaded from the node
+     *                       (and skipped if the node doesn't know it), otherwise the boxes
+     *                       are created from Explorer data
+     * @param boxCache       optional cache of box contents shared with other contexts
+     * @param binaryBoxes    if true, boxes are loaded by id in serialized form, which is
+     *                       parsed directly into {@link ErgoBox} instead of JSON
+     * @param utxoIndex      optional index of unspent boxes, which is used instead of
+     *                       Explorer for the watched addresses
+     */
+    public BlockchainContextImpl(
+            ApiClient client, Retrofit retrofit,
+            ExplorerApiClient explorer, Retrofit retrofitExplorer,
+            NetworkType networkType,
+            NodeInfo nodeInfo, List<BlockHeader> headers, boolean nodeCrossCheck,
+            @Nullable BoxCache boxCache, boolean binaryBoxes,
+            @Nullable WatchedUtxoIndex utxoIndex) {
         super(networkType);
+        _nodeCrossCheck = nodeCrossCheck;
+        _boxCache = boxCache;
+        _binaryBoxes = binaryBoxes;
+        _utxoIndex = utxoIndex;
         _client = client;
         _retrofit = retrofit;
         _explorer = explorer;
@@ -59,15 +105,35 @@ public class BlockchainContextImpl extends BlockchainContextBase {
 
     @Override
     public InputBox[] getBoxesById(String... boxIds) throws ErgoClientException {
-        List<InputBox> list = new ArrayList<>();
-        for (String id : boxIds) {
-            ErgoTransactionOutput boxData = ErgoNodeFacade.getBoxById(_retrofit, id);
-            if (boxData == null) {
-                throw new ErgoClientException("Cannot load UTXO box " + id, null);
-            }
-            list.add(new InputBoxImpl(this, boxData));
+        return ApiFacade.join(getBoxesByIdAsync(boxIds));
+    }
+
+    @Override
+    public CompletableFuture<InputBox[]> getBoxesByIdAsync(String... boxIds) {
+        return loadBoxes(false, boxIds);
+    }
+
+    @Override
+    public InputBox[] getBoxesByIdWithMempool(String... boxIds) throws ErgoClientException {
+        return ApiFacade.join(loadBoxes(true, boxIds));
+    }
+
+    private CompletableFuture<InputBox[]> loadBoxes(boolean withPool, String[] boxIds) {
+        int maxRequests = BoxesByIdLoader.DEFAULT_MAX_CONCURRENT_REQUESTS;
+        if (_binaryBoxes) {
+            return BoxesByIdLoader.binary(_retrofit, withPool, maxRequests).load(boxIds)
+                .thenApply(boxesData -> toInputBoxes(boxesData, this::newInputBox));
+        }
+        return BoxesByIdLoader.json(_retrofit, withPool, maxRequests).load(boxIds)
+            .thenApply(boxesData -> toInputBoxes(boxesData, this::newInputBox));
+    }
+
+    private static <T> InputBox[] toInputBoxes(List<T> boxesData, Function<T, InputBox> newBox) {
+        InputBox[] boxes = new InputBox[boxesData.size()];
+        for (int i = 0; i < boxes.length; i++) {
+            boxes[i] = newBox.apply(boxesData.get(i));
         }
-        return list.toArray(new InputBox[0]);
+        return boxes;
     }
 
     @Override
@@ -94,24 +160,161 @@ public class BlockchainContextImpl extends BlockchainContextBase {
     }
 
     /**
-     * This method should be private. No classes of HTTP client should ever leak into interfaces.
+     * This method should not be public. No classes of HTTP client should ever leak into interfaces.
+     * <br>
+     * The boxes are created from the given Explorer data when possible, thus a page of boxes
+     * costs a single request to Explorer. The node is requested for the boxes which cannot
+     * be created from Explorer data and for all the boxes in node cross-check mode.
      */
-    private List<InputBox> getInputBoxes(List<OutputInfo> boxes) {
+    List<InputBox> getInputBoxes(List<OutputInfo> boxes) {
         ArrayList<InputBox> returnList = new ArrayList<>(boxes.size());
 
         for (OutputInfo box : boxes) {
-            String boxId = box.getBoxId();
-            ErgoTransactionOutput boxInfo = ErgoNodeFacade.getBoxById(_retrofit, boxId);
+            InputBox inputBox = getInputBox(box);
             // can be null if node does not know about the box (yet)
             // instead of throwing an error, we continue with the boxes actually known
-            if (boxInfo != null) {
-                returnList.add(new InputBoxImpl(this, boxInfo));
+            if (inputBox != null) {
+                returnList.add(inputBox);
             }
         }
 
         return returnList;
     }
 
+    /**
+     * Creates the input box from the given Explorer data or loads it from the node, see
+     * {@link #getInputBoxes(List)}.
+     *
+     * @return the box or null if the node doesn't know the box
+     */
+    @Nullable
+    private InputBox getInputBox(OutputInfo box) {
+        ErgoBox ergoBox = _nodeCrossCheck ? null : boxFromExplorerOrCache(box);
+        if (ergoBox != null) {
+            return new InputBoxImpl(this, ergoBox);
+        }
+        ErgoTransactionOutput boxInfo = ErgoNodeFacade.getBoxById(_retrofit, box.getBoxId());
+        return boxInfo != null ? newInputBox(boxInfo) : null;
+    }
+
+    /**
+     * Converts the boxes of the given Explorer stream to input boxes as the returned
+     * stream is consumed. Closing the returned stream closes the Explorer stream.
+     */
+    private Stream<InputBox> toInputBoxStream(ExplorerBoxStream boxes) {
+        Spliterator<OutputInfo> spliterator = Spliterators.spliteratorUnknownSize(
+            boxes, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false)
+            .onClose(boxes::close)
+            .map(this::getInputBox)
+            .filter(Objects::nonNull);
+    }
+
+    /**
+     * Asynchronous version of {@link #getInputBoxes(List)}, all the boxes which need to be
+     * loaded from the node are requested concurrently.
+     */
+    private CompletableFuture<List<InputBox>> getInputBoxesAsync(List<OutputInfo> boxes) {
+        List<CompletableFuture<InputBox>> requests = new ArrayList<>(boxes.size());
+        for (OutputInfo box : boxes) {
+            ErgoBox ergoBox = _nodeCrossCheck ? null : boxFromExplorerOrCache(box);
+            if (ergoBox != null) {
+                requests.add(CompletableFuture.completedFuture(new InputBoxImpl(this, ergoBox)));
+            } else {
+                requests.add(ErgoNodeFacade.getBoxByIdAsync(_retrofit, box.getBoxId())
+                    .thenApply(boxInfo -> boxInfo != null ? newInputBox(boxInfo) : null));
+            }
+        }
+        return CompletableFuture.allOf(requests.toArray(new CompletableFuture[0])).thenApply(done -> {
+            ArrayList<InputBox> returnList = new ArrayList<>(boxes.size());
+            for (CompletableFuture<InputBox> request : requests) {
+                InputBox inputBox = request.join();
+                // can be null if node does not know about the box (yet)
+                if (inputBox != null) {
+                    returnList.add(inputBox);
+                }
+            }
+            return returnList;
+        });
+    }
+
+    /**
+     * Returns the cached box with the id of the given Explorer output (Explorer reported the
+     * box as unspent), or the box created from the Explorer data, which is then cached.
+     *
+     * @return the box or null if the box cannot be created from Explorer data
+     */
+    private ErgoBox boxFromExplorerOrCache(OutputInfo box) {
+        ErgoBox ergoBox = getCachedBox(box.getBoxId());
+        if (ergoBox == null) {
+            ergoBox = boxFromExplorer(box);
+            if (ergoBox != null && _boxCache != null) {
+                _boxCache.put(ergoBox);
+            }
+        }
+        return ergoBox;
+    }
+
+    /**
+     * Returns the box with the given id from the box cache of this context, or null if
+     * there is no cache or the box is not cached.
+     * Note, the cache doesn't know whether the box is spent, this must be checked by the caller.
+     */
+    @Nullable
+    ErgoBox getCachedBox(String boxId) {
+        return _boxCache != null ? _boxCache.get(ErgoId.create(boxId)) : null;
+    }
+
+    /**
+     * Creates a new input box from the data loaded from the node. The content of the box is
+     * taken from the box cache when possible (to avoid parsing), otherwise the parsed
+     * box is cached.
+     */
+    InputBoxImpl newInputBox(ErgoTransactionOutput boxData) {
+        if (_boxCache == null) {
+            return new InputBoxImpl(this, boxData);
+        }
+        ErgoBox cached = _boxCache.get(ErgoId.create(boxData.getBoxId()));
+        if (cached != null) {
+            return new InputBoxImpl(this, cached);
+        }
+        InputBoxImpl box = new InputBoxImpl(this, boxData);
+        _boxCache.put(box.getErgoBox());
+        return box;
+    }
+
+    /**
+     * Creates a new input box from the serialized box loaded from the node. The bytes are
+     * parsed directly into {@link ErgoBox}, unless the box is found in the box cache.
+     */
+    InputBoxImpl newInputBox(SerializedBox boxData) {
+        ErgoBox ergoBox = getCachedBox(boxData.getBoxId());
+        if (ergoBox == null) {
+            ergoBox = JavaHelpers.decodeStringToErgoBox(boxData.getBytes());
+            if (_boxCache != null) {
+                _boxCache.put(ergoBox);
+            }
+        }
+        return new InputBoxImpl(this, ergoBox);
+    }
+
+    /**
+     * Creates the box from Explorer data. The id of the created box is the hash of its
+     * content, so comparing it with the id reported by Explorer verifies the data.
+     *
+     * @return the box or null if the data is incomplete or doesn't match the box id
+     */
+    static ErgoBox boxFromExplorer(OutputInfo box) {
+        ErgoBox ergoBox;
+        try {
+            ergoBox = ScalaBridge.isoExplOutputInfo().to(box);
+        } catch (RuntimeException e) {
+            // missing fields or data which cannot be parsed
+            return null;
+        }
+        return new ErgoId(ergoBox.id()).toString().equals(box.getBoxId()) ? ergoBox : null;
+    }
+
     @Override
     public NodeInfo getNodeInfo() {
         return _nodeInfo;
@@ -127,6 +330,15 @@ public class BlockchainContextImpl extends BlockchainContextBase {
 
     @Override
     public String sendTransaction(SignedTransaction tx) {
+        return ErgoNodeFacade.sendTransaction(_retrofit, toTransactionData(tx));
+    }
+
+    @Override
+    public CompletableFuture<String> sendTransactionAsync(SignedTransaction tx) {
+        return ErgoNodeFacade.sendTransactionAsync(_retrofit, toTransactionData(tx));
+    }
+
+    private ErgoTransaction toTransactionData(SignedTransaction tx) {
         ErgoLikeTransaction ergoTx = ((SignedTransactionImpl)tx).getTx();
         List<ErgoTransactionDataInput> dataInputsData =
                 Iso.JListToIndexedSeq(ScalaBridge.isoErgoTransactionDataInput()).from(ergoTx.dataInputs());
@@ -139,21 +351,27 @@ public class BlockchainContextImpl extends BlockchainContextBase {
                 .dataInputs(dataInputsData)
                 .inputs(inputsData)
                 .outputs(outputsData);
-        return ErgoNodeFacade.sendTransaction(_retrofit, txData);
+        return txData;
     }
 
+    /**
+     * Returns the wallet of the node with the unspent boxes loaded by this call. The wallet
+     * is not kept by the context, because the wallet boxes change without a new block, while
+     * the context may be shared until the next block (see {@link BlockchainContextCache}).
+     */
     @Override
     public ErgoWallet getWallet() {
-        if (_wallet == null) {
-            List<WalletBox> unspentBoxes = ErgoNodeFacade.getWalletUnspentBoxes(_retrofit, 0, 0);
-            _wallet = new ErgoWalletImpl(unspentBoxes);
-            _wallet.setContext(this);
-        }
-        return _wallet;
+        List<WalletBox> unspentBoxes = ErgoNodeFacade.getWalletUnspentBoxes(_retrofit, 0, 0);
+        ErgoWalletImpl wallet = new ErgoWalletImpl(unspentBoxes);
+        wallet.setContext(this);
+        return wallet;
     }
 
     @Override
     public List<InputBox> getUnspentBoxesFor(Address address, int offset, int limit) {
+        if (_utxoIndex != null && _utxoIndex.isWatched(address)) {
+            return _utxoIndex.getUnspentBoxes(this, address, offset, limit);
+        }
         Preconditions.checkNotNull(_retrofitExplorer, ErgoClient.explorerUrlNotSpecifiedMessage);
         List<OutputInfo> boxes = ExplorerFacade
                 .transactionsBoxesByAddressUnspentIdGet(
@@ -161,6 +379,131 @@ public class BlockchainContextImpl extends BlockchainContextBase {
         return getInputBoxes(boxes);
     }
 
+    @Override
+    public CompletableFuture<List<InputBox>> getUnspentBoxesForAsync(Address address, int offset, int limit) {
+        if (_utxoIndex != null && _utxoIndex.isWatched(address)) {
+            return CompletableFuture.completedFuture(_utxoIndex.getUnspentBoxes(this, address, offset, limit));
+        }
+        Preconditions.checkNotNull(_retrofitExplorer, ErgoClient.explorerUrlNotSpecifiedMessage);
+        return ExplorerFacade
+                .transactionsBoxesByAddressUnspentIdGetAsync(
+                    _retrofitExplorer, address.toString(), offset, limit)
+                .thenCompose(this::getInputBoxesAsync);
+    }
+
+    /**
+     * Registers a scan on the node, so that the node tracks the boxes satisfying the given
+     * rule (see {@link ScanningPredicates}). The boxes are then available from
+     * {@link #getUnspentBoxesForScan(int, int)} without Explorer.
+     * Note, the node only tracks boxes created after the scan is registered.
+     *
+     * @param scanName     name of the scan
+     * @param trackingRule predicate selecting the boxes to track
+     * @return identifier of the registered scan
+     */
+    public int registerScan(String scanName, ScanningPredicate trackingRule) {
+        ScanRequest request = new ScanRequest().scanName(scanName).trackingRule(trackingRule);
+        return ErgoNodeFacade.registerScan(_retrofit, request).getScanId();
+    }
+
+    /**
+     * Returns the scans registered on the node.
+     */
+    public List<Scan> getScans() {
+        return ErgoNodeFacade.listAllScans(_retrofit);
+    }
+
+    @Override
+    public void deregisterScan(int scanId) {
+        ErgoNodeFacade.deregisterScan(_retrofit, new ScanId().scanId(scanId));
+    }
+
+    @Override
+    public List<InputBox> getUnspentBoxesForScan(int scanId, int minConfirmations) {
+        List<WalletBox> boxes = ErgoNodeFacade.listUnspentScans(_retrofit, scanId, minConfirmations, 0);
+        List<InputBox> res = new ArrayList<>(boxes.size());
+        for (WalletBox box : boxes) {
+            res.add(newInputBox(box.getBox()));
+        }
+        return res;
+    }
+
+    @Override
+    public List<InputBox> getUnspentBoxesByErgoTreeTemplate(ErgoTreeTemplate template, int offset, int limit) {
+        Preconditions.checkNotNull(_retrofitExplorer, ErgoClient.explorerUrlNotSpecifiedMessage);
+        ItemsA boxes = ExplorerFacade.boxesUnspentByErgoTreeTemplateHash(
+            _retrofitExplorer, template.getTemplateHash(), offset, limit);
+        return getInputBoxes(itemsOf(boxes));
+    }
+
+    @Override
+    public List<InputBox> getAllUnspentBoxesByErgoTreeTemplate(ErgoTreeTemplate template) {
+        Preconditions.checkNotNull(_retrofitExplorer, ErgoClient.explorerUrlNotSpecifiedMessage);
+        String templateHash = template.getTemplateHash();
+        // the first page tells the total number of boxes, then the other pages are loaded
+        // concurrently, but collected in order
+        ItemsA first = ExplorerFacade.boxesUnspentByErgoTreeTemplateHash(
+            _retrofitExplorer, templateHash, 0, TEMPLATE_PAGE_SIZE);
+        List<OutputInfo> firstItems = itemsOf(first);
+        int total = first.getTotal() != null ? first.getTotal() : firstItems.size();
+        // sized by the received boxes, not by the total reported by the server
+        LinkedHashMap<ErgoId, InputBox> boxes = new LinkedHashMap<>(firstItems.size() * 2);
+        for (InputBox box : getInputBoxes(firstItems)) {
+            boxes.put(box.getId(), box);
+        }
+        ArrayDeque<CompletableFuture<List<InputBox>>> pages = new ArrayDeque<>();
+        int offset = TEMPLATE_PAGE_SIZE;
+        try {
+            while (true) {
+                while (pages.size() < MAX_CONCURRENT_PAGES && offset < total) {
+                    pages.add(ExplorerFacade
+                        .boxesUnspentByErgoTreeTemplateHashAsync(
+                            _retrofitExplorer, templateHash, offset, TEMPLATE_PAGE_SIZE)
+                        .thenCompose(page -> getInputBoxesAsync(itemsOf(page))));
+                    offset += TEMPLATE_PAGE_SIZE;
+                }
+                CompletableFuture<List<InputBox>> page = pages.poll();
+                if (page == null) break;
+                // the pages may overlap if boxes are spent while loading
+                for (InputBox box : ApiFacade.join(page)) {
+                    boxes.putIfAbsent(box.getId(), box);
+                }
+            }
+        } finally {
+            for (CompletableFuture<List<InputBox>> page : pages) {
+                page.cancel(false);
+            }
+        }
+        return new ArrayList<>(boxes.values());
+    }
+
+    /**
+     * Returns the boxes of the given page of Explorer, or an empty list if the page has no
+     * items.
+     */
+    static List<OutputInfo> itemsOf(ItemsA page) {
+        return page.getItems() != null ? page.getItems() : Collections.<OutputInfo>emptyList();
+    }
+
+    @Override
+    public Stream<InputBox> streamUnspentBoxes(int minHeight, int maxHeight) {
+        Preconditions.checkNotNull(_retrofitExplorer, ErgoClient.explorerUrlNotSpecifiedMessage);
+        return toInputBoxStream(ExplorerFacade.streamUnspentBoxes(_retrofitExplorer, minHeight, maxHeight));
+    }
+
+    @Override
+    public Stream<InputBox> streamUnspentBoxesByLastEpochs(int lastEpochs) {
+        Preconditions.checkNotNull(_retrofitExplorer, ErgoClient.explorerUrlNotSpecifiedMessage);
+        return toInputBoxStream(ExplorerFacade.streamUnspentBoxesByLastEpochs(_retrofitExplorer, lastEpochs));
+    }
+
+    @Override
+    public Stream<InputBox> streamUnspentBoxesByErgoTreeTemplateHash(String templateHash, int minHeight, int maxHeight) {
+        Preconditions.checkNotNull(_retrofitExplorer, ErgoClient.explorerUrlNotSpecifiedMessage);
+        return toInputBoxStream(ExplorerFacade.streamUnspentBoxesByErgoTreeTemplateHash(
+            _retrofitExplorer, templateHash, minHeight, maxHeight));
+    }
+
     @Override
     public CoveringBoxes getCoveringBoxesFor(Address address, long amountToSpend, List<ErgoToken> tokensToSpend) {
         return BoxOperations.getCoveringBoxesFor(amountToSpend, tokensToSpend,
@@ -0,0 +1,50 @@
+package org.ergoplatform.appkit.impl;
+
+import org.ergoplatform.ErgoBox;
+import org.ergoplatform.appkit.ErgoId;
+
+import javax.annotation.Nullable;
+
+/**
+ * Cache of box contents keyed by box id.
+ * <br>
+ * The content of a box never changes (the id of a box is the hash of its content), so a
+ * cached box can be safely shared between all contexts and clients of the process.
+ * However, the cache knows nothing about whether a box is spent, so it is consulted only
+ * after the box is known to be unspent (for example, the node or Explorer reported it
+ * as unspent). Thus the cache mostly avoids parsing of the box content: e.g. boxes
+ * requested by id are still loaded from the node, which reports whether they are unspent.
+ * A box is not loaded from the node again only when it is reported as unspent by Explorer
+ * and found in the cache.
+ *
+ * @see LruBoxCache
+ */
+public interface BoxCache {
+    /**
+     * Returns the cached box with the given id or null if the box is not in the cache.
+     *
+     * @param boxId id of the box
+     */
+    @Nullable
+    ErgoBox get(ErgoId boxId);
+
+    /**
+     * Puts the given box into the cache, the box id is used as a key.
+     */
+    void put(ErgoBox box);
+
+    /**
+     * Removes the box with the given id from the cache (if present).
+     */
+    void invalidate(ErgoId boxId);
+
+    /**
+     * Removes all boxes from the cache.
+     */
+    void clear();
+
+    /**
+     * Returns a snapshot of usage statistics of this cache.
+     */
+    BoxCacheStats getStats();
+}
@@ -0,0 +1,42 @@
+package org.ergoplatform.appkit.impl;
+
+/**
+ * Usage statistics of a {@link BoxCache}.
+ */
+public class BoxCacheStats {
+    private final long _hitCount;
+    private final long _missCount;
+    private final long _evictionCount;
+    private final long _size;
+
+    public BoxCacheStats(long hitCount, long missCount, long evictionCount, long size) {
+        _hitCount = hitCount;
+        _missCount = missCount;
+        _evictionCount = evictionCount;
+        _size = size;
+    }
+
+    /** Number of lookups which found the box in the cache. */
+    public long getHitCount() { return _hitCount; }
+
+    /** Number of lookups which didn't find the box in the cache. */
+    public long getMissCount() { return _missCount; }
+
+    /** Number of boxes removed from the cache to respect its maximum size. */
+    public long getEvictionCount() { return _evictionCount; }
+
+    /** Number of boxes in the cache. */
+    public long getSize() { return _size; }
+
+    /** Ratio of lookups which found the box in the cache, 1.0 if there were no lookups. */
+    public double getHitRate() {
+        long requestCount = _hitCount + _missCount;
+        return requestCount == 0 ? 1.0 : (double)_hitCount / requestCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BoxCacheStats(hits: %d, misses: %d, evictions: %d, size: %d)",
+            _hitCount, _missCount, _evictionCount, _size);
+    }
+}
@@ -0,0 +1,144 @@
+package org.ergoplatform.appkit.impl;
+
+import org.ergoplatform.appkit.BoxesNotFoundException;
+import org.ergoplatform.restapi.client.ErgoTransactionOutput;
+import org.ergoplatform.restapi.client.SerializedBox;
+import retrofit2.Retrofit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Loads a batch of boxes from the node by their ids. The requests are sent concurrently,
+ * but no more than the given number of requests are in flight at the same time, so a big
+ * batch doesn't occupy all the connections to the node.
+ * <br>
+ * Loading fails fast: after a box is not found (or a request fails) no new requests are
+ * sent. The requests already in flight are completed, so that all the missing ids found
+ * are reported by {@link BoxesNotFoundException}.
+ *
+ * @param <T> type of the box data returned by the node (JSON or serialized box)
+ */
+class BoxesByIdLoader<T> {
+    /** Default number of box requests of one batch which can be in flight at the same time. */
+    static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 8;
+
+    private final Function<String, CompletableFuture<T>> _request;
+    private final int _maxConcurrentRequests;
+
+    /**
+     * @param request sends the request of one box, the future is completed with null if
+     *                the box is not found (HTTP 404) and exceptionally on other errors, so
+     *                that only the boxes reported missing by the node are reported by
+     *                {@link BoxesNotFoundException}
+     */
+    BoxesByIdLoader(Function<String, CompletableFuture<T>> request, int maxConcurrentRequests) {
+        if (maxConcurrentRequests <= 0) {
+            throw new IllegalArgumentException("Maximum number of concurrent requests must be > 0");
+        }
+        _request = request;
+        _maxConcurrentRequests = maxConcurrentRequests;
+    }
+
+    /**
+     * Creates a loader of box contents in JSON format.
+     *
+     * @param withPool if true, the boxes are loaded taking the mempool into account, i.e.
+     *                 the boxes created by unconfirmed transactions are returned and the
+     *                 boxes spent by them are not
+     */
+    static BoxesByIdLoader<ErgoTransactionOutput> json(
+            Retrofit retrofit, boolean withPool, int maxConcurrentRequests) {
+        return new BoxesByIdLoader<>(withPool
+            ? boxId -> ErgoNodeFacade.getBoxWithPoolByIdAsync(retrofit, boxId)
+            : boxId -> ErgoNodeFacade.getBoxByIdAsync(retrofit, boxId), maxConcurrentRequests);
+    }
+
+    /**
+     * Creates a loader of serialized boxes, see {@link #json} for the meaning of parameters.
+     */
+    static BoxesByIdLoader<SerializedBox> binary(
+            Retrofit retrofit, boolean withPool, int maxConcurrentRequests) {
+        return new BoxesByIdLoader<>(withPool
+            ? boxId -> ErgoNodeFacade.getBoxWithPoolByIdBinaryAsync(retrofit, boxId)
+            : boxId -> ErgoNodeFacade.getBoxByIdBinaryAsync(retrofit, boxId), maxConcurrentRequests);
+    }
+
+    /**
+     * Loads the boxes with the given ids.
+     *
+     * @return future completed with the boxes in the order of the given ids, or completed
+     * exceptionally with {@link BoxesNotFoundException} if some boxes were not found
+     */
+    CompletableFuture<List<T>> load(String[] boxIds) {
+        Batch batch = new Batch(boxIds);
+        batch.sendRequests();
+        return batch.result;
+    }
+
+    private class Batch {
+        final String[] ids;
+        final Object[] boxes;
+        final boolean[] missing;
+        final CompletableFuture<List<T>> result = new CompletableFuture<>();
+        int nextIndex = 0;
+        int inFlight = 0;
+        boolean failed = false;
+        Throwable error;
+
+        Batch(String[] ids) {
+            this.ids = ids;
+            boxes = new Object[ids.length];
+            missing = new boolean[ids.length];
+        }
+
+        synchronized void sendRequests() {
+            while (!failed && inFlight < _maxConcurrentRequests && nextIndex < ids.length) {
+                int i = nextIndex++;
+                inFlight++;
+                _request.apply(ids[i]).whenComplete((box, t) -> onResponse(i, box, t));
+            }
+            if (inFlight == 0 && !result.isDone()) {
+                complete();
+            }
+        }
+
+        synchronized void onResponse(int i, T box, Throwable t) {
+            inFlight--;
+            if (t != null) {
+                failed = true;
+                if (error == null) {
+                    error = t instanceof CompletionException && t.getCause() != null ? t.getCause() : t;
+                }
+            } else if (box == null) {
+                failed = true;
+                missing[i] = true;
+            } else {
+                boxes[i] = box;
+            }
+            sendRequests();
+        }
+
+        private void complete() {
+            if (error != null) {
+                result.completeExceptionally(error);
+                return;
+            }
+            List<String> missingIds = new ArrayList<>();
+            for (int i = 0; i < ids.length; i++) {
+                if (missing[i]) missingIds.add(ids[i]);
+            }
+            if (missingIds.isEmpty()) {
+                @SuppressWarnings("unchecked")
+                List<T> loaded = (List<T>)Arrays.asList(boxes);
+                result.complete(loaded);
+            } else {
+                result.completeExceptionally(new BoxesNotFoundException(missingIds));
+            }
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package org.ergoplatform.appkit.impl
 
 import java.util
+import java.util.concurrent.CompletableFuture
+import java.util.stream.Stream
 
-import org.ergoplatform.appkit.{InputBox, CoveringBoxes, ErgoProverBuilder, UnsignedTransactionBuilder, Address, ErgoWallet, Constants, ErgoToken, PreHeaderBuilder, SignedTransaction, NetworkType, ErgoContract, BlockchainContext}
+import org.ergoplatform.appkit.{InputBox, ErgoTreeTemplate, CoveringBoxes, ErgoProverBuilder, UnsignedTransactionBuilder, Address, ErgoWallet, Constants, ErgoToken, PreHeaderBuilder, SignedTransaction, NetworkType, ErgoContract, BlockchainContext}
 import org.ergoplatform.restapi.client.{ApiClient, NodeInfo, Parameters}
 import sigmastate.Values
 
@@ -22,18 +24,46 @@ class ColdBlockchainContext(networkType: NetworkType, params: Parameters) extend
 
   override def getBoxesById(boxIds: String*): Array[InputBox] = ???
 
+  override def getBoxesByIdAsync(boxIds: String*): CompletableFuture[Array[InputBox]] = ???
+
+  override def getBoxesByIdWithMempool(boxIds: String*): Array[InputBox] = ???
+
   override def newProverBuilder(): ErgoProverBuilder = new ErgoProverBuilderImpl(this)
 
   override def getHeight: Int = ???
 
   override def sendTransaction(tx: SignedTransaction): String = ???
 
+  override def sendTransactionAsync(tx: SignedTransaction): CompletableFuture[String] = ???
+
   override def getWallet: ErgoWallet = ???
 
   override def getUnspentBoxesFor(address: Address,
                                   offset: Int,
                                   limit: Int): util.List[InputBox] = ???
 
+  override def getUnspentBoxesForAsync(address: Address,
+                                       offset: Int,
+                                       limit: Int): CompletableFuture[util.List[InputBox]] = ???
+
+  override def getUnspentBoxesByErgoTreeTemplate(template: ErgoTreeTemplate,
+                                                 offset: Int,
+                                                 limit: Int): util.List[InputBox] = ???
+
+  override def getAllUnspentBoxesByErgoTreeTemplate(template: ErgoTreeTemplate): util.List[InputBox] = ???
+
+  override def streamUnspentBoxes(minHeight: Int, maxHeight: Int): Stream[InputBox] = ???
+
+  override def streamUnspentBoxesByLastEpochs(lastEpochs: Int): Stream[InputBox] = ???
+
+  override def streamUnspentBoxesByErgoTreeTemplateHash(templateHash: String,
+                                                        minHeight: Int,
+                                                        maxHeight: Int): Stream[InputBox] = ???
+
+  override def getUnspentBoxesForScan(scanId: Int, minConfirmations: Int): util.List[InputBox] = ???
+
+  override def deregisterScan(scanId: Int): Unit = ???
+
   override def getCoveringBoxesFor(address: Address,
                                    amountToSpend: Long,
                                    tokensToSpend: util.List[ErgoToken]): CoveringBoxes = ???
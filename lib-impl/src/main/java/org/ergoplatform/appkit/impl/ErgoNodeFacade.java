@@ -11,6 +11,9 @@ import java.io.IOException;
 import java.lang.reflect.Method;
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import javax.annotation.Nullable;
 
 /**
  * This class implements typed facade with Ergo node API invocation methods.
@@ -46,6 +49,61 @@ public class ErgoNodeFacade extends ApiFacade {
         });
     }
 
+    /**
+     * Get headers of the best chain in a specified range of heights (inclusive).
+     *
+     * @param fromHeight Min header height (required)
+     * @param toHeight   Max header height (required)
+     * @return List&lt;BlockHeader&gt; in the order of heights
+     */
+    static public List<BlockHeader> getChainSlice(Retrofit r, int fromHeight, int toHeight) throws ErgoClientException {
+        return execute(r, () -> {
+            Method method = BlocksApi.class.getMethod("getChainSlice", Integer.class, Integer.class);
+            Response<List<BlockHeader>> response = RetrofitUtil.<List<BlockHeader>>invokeServiceMethod(r, method,
+                new Object[]{fromHeight, toHeight}).execute();
+            return getSuccessfulBody(response);
+        });
+    }
+
+    /**
+     * Get the transactions of the block with the given header id.
+     *
+     * @param headerId ID of a wanted block (required)
+     * @return BlockTransactions
+     */
+    static public BlockTransactions getBlockTransactionsById(Retrofit r, String headerId) throws ErgoClientException {
+        return execute(r, () -> {
+            Method method = BlocksApi.class.getMethod("getBlockTransactionsById", String.class);
+            Response<BlockTransactions> response = RetrofitUtil.<BlockTransactions>invokeServiceMethod(r, method,
+                new Object[]{headerId}).execute();
+            return getSuccessfulBody(response);
+        });
+    }
+
+    /**
+     * Get the information about the Node asynchronously.
+     *
+     * @see #getNodeInfo(Retrofit)
+     */
+    static public CompletableFuture<NodeInfo> getNodeInfoAsync(Retrofit r) {
+        return executeAsync(r, () -> {
+            Method method = InfoApi.class.getMethod("getNodeInfo");
+            return RetrofitUtil.<NodeInfo>invokeServiceMethod(r, method, null);
+        });
+    }
+
+    /**
+     * Get the last headers objects asynchronously.
+     *
+     * @see #getLastHeaders(Retrofit, BigDecimal)
+     */
+    static public CompletableFuture<List<BlockHeader>> getLastHeadersAsync(Retrofit r, BigDecimal count) {
+        return executeAsync(r, () -> {
+            Method method = BlocksApi.class.getMethod("getLastHeaders", BigDecimal.class);
+            return RetrofitUtil.<List<BlockHeader>>invokeServiceMethod(r, method, new Object[]{count});
+        });
+    }
+
     /**
      * Get box contents for a box by a unique identifier.
      *
@@ -61,6 +119,19 @@ public class ErgoNodeFacade extends ApiFacade {
         });
     }
 
+    /**
+     * Get box contents for a box by a unique identifier asynchronously. The future is
+     * completed with null if the box is not found (HTTP 404) and exceptionally on other errors.
+     *
+     * @see #getBoxById(Retrofit, String)
+     */
+    static public CompletableFuture<ErgoTransactionOutput> getBoxByIdAsync(Retrofit r, String boxId) {
+        return executeAsync(r, () -> {
+            Method method = UtxoApi.class.getMethod("getBoxById", String.class);
+            return RetrofitUtil.<ErgoTransactionOutput>invokeServiceMethod(r, method, new Object[]{boxId});
+        }, ApiFacade::getBodyIfFound);
+    }
+
     /**
      * Get box contents for a box by a unique identifier, takes current mempool into account.
      *
@@ -76,6 +147,49 @@ public class ErgoNodeFacade extends ApiFacade {
         });
     }
 
+    /**
+     * Get box contents for a box by a unique identifier asynchronously, takes current
+     * mempool into account. The future is completed with null if the box is not found
+     * (HTTP 404) and exceptionally on other errors.
+     *
+     * @see #getBoxWithPoolById(Retrofit, String)
+     */
+    static public CompletableFuture<ErgoTransactionOutput> getBoxWithPoolByIdAsync(Retrofit r, String boxId) {
+        return executeAsync(r, () -> {
+            Method method = UtxoApi.class.getMethod("getBoxWithPoolById", String.class);
+            return RetrofitUtil.<ErgoTransactionOutput>invokeServiceMethod(r, method, new Object[]{boxId});
+        }, ApiFacade::getBodyIfFound);
+    }
+
+    /**
+     * Get serialized box from UTXO pool in Base16 encoding by an identifier, asynchronously.
+     *
+     * @param boxId ID of a wanted box (required)
+     * @return future of SerializedBox, completed with null if the box is not found
+     * (HTTP 404) and exceptionally on other errors
+     */
+    static public CompletableFuture<SerializedBox> getBoxByIdBinaryAsync(Retrofit r, String boxId) {
+        return executeAsync(r, () -> {
+            Method method = UtxoApi.class.getMethod("getBoxByIdBinary", String.class);
+            return RetrofitUtil.<SerializedBox>invokeServiceMethod(r, method, new Object[]{boxId});
+        }, ApiFacade::getBodyIfFound);
+    }
+
+    /**
+     * Get serialized box in Base16 encoding by an identifier, considering also the mempool,
+     * asynchronously.
+     *
+     * @param boxId ID of a wanted box (required)
+     * @return future of SerializedBox, completed with null if the box is not found
+     * (HTTP 404) and exceptionally on other errors
+     */
+    static public CompletableFuture<SerializedBox> getBoxWithPoolByIdBinaryAsync(Retrofit r, String boxId) {
+        return executeAsync(r, () -> {
+            Method method = UtxoApi.class.getMethod("getBoxWithPoolByIdBinary", String.class);
+            return RetrofitUtil.<SerializedBox>invokeServiceMethod(r, method, new Object[]{boxId});
+        }, ApiFacade::getBodyIfFound);
+    }
+
     /**
      * Get a list of unspent boxes  @GET("wallet/boxes/unspent")
      *
@@ -93,6 +207,70 @@ public class ErgoNodeFacade extends ApiFacade {
         });
     }
 
+    /**
+     * Register a scan, i.e. make the node track the boxes satisfying the given rule.
+     * POST("scan/register")
+     *
+     * @param request name and tracking rule of the scan (required)
+     * @return identifier of the registered scan
+     */
+    static public ScanId registerScan(Retrofit r, ScanRequest request) throws ErgoClientException {
+        return execute(r, () -> {
+            Method method = ScanApi.class.getMethod("registerScan", ScanRequest.class);
+            Response<ScanId> response = RetrofitUtil.<ScanId>invokeServiceMethod(r, method,
+                new Object[]{request}).execute();
+            return getSuccessfulBody(response);
+        });
+    }
+
+    /**
+     * Stop tracking and deregister a scan.
+     * POST("scan/deregister")
+     *
+     * @param scanId identifier of the scan to deregister (required)
+     * @return identifier of the deregistered scan
+     */
+    static public ScanId deregisterScan(Retrofit r, ScanId scanId) throws ErgoClientException {
+        return execute(r, () -> {
+            Method method = ScanApi.class.getMethod("deregisterScan", ScanId.class);
+            Response<ScanId> response = RetrofitUtil.<ScanId>invokeServiceMethod(r, method,
+                new Object[]{scanId}).execute();
+            return getSuccessfulBody(response);
+        });
+    }
+
+    /**
+     * List all the scans registered on the node  @GET("scan/listAll")
+     *
+     * @return List&lt;Scan&gt;
+     */
+    static public List<Scan> listAllScans(Retrofit r) throws ErgoClientException {
+        return execute(r, () -> {
+            Method method = ScanApi.class.getMethod("listAllScans");
+            Response<List<Scan>> response = RetrofitUtil.<List<Scan>>invokeServiceMethod(r, method,
+                new Object[]{}).execute();
+            return getSuccessfulBody(response);
+        });
+    }
+
+    /**
+     * List unspent boxes found by a scan  @GET("scan/unspentBoxes/{scanId}")
+     *
+     * @param scanId             identifier of a scan (required)
+     * @param minConfirmations   Minimal number of confirmations (optional)
+     * @param minInclusionHeight Minimal box inclusion height (optional)
+     * @return List&lt;WalletBox&gt;
+     */
+    static public List<WalletBox> listUnspentScans(
+            Retrofit r, int scanId, Integer minConfirmations, Integer minInclusionHeight) throws ErgoClientException {
+        return execute(r, () -> {
+            Method method = ScanApi.class.getMethod("listUnspentScans", Integer.class, Integer.class, Integer.class);
+            Response<List<WalletBox>> response = RetrofitUtil.<List<WalletBox>>invokeServiceMethod(r, method,
+                new Object[]{scanId, minConfirmations, minInclusionHeight}).execute();
+            return getSuccessfulBody(response);
+        });
+    }
+
     /**
      * Send an Ergo transaction
      * Headers({ "Content-Type:application/json" })
@@ -107,28 +285,62 @@ public class ErgoNodeFacade extends ApiFacade {
             Method method = TransactionsApi.class.getMethod("sendTransaction", ErgoTransaction.class);
             Response<String> response = RetrofitUtil.<String>invokeServiceMethod(r, method,
                 new Object[]{tx}).execute();
-
-            if (!response.isSuccessful()) {
-                throw new ErgoClientException(response.code() + ": " +
-                    (response.errorBody() != null ? response.errorBody().string() : "Server returned error"), null);
-            } else {
-                return response.body();
-            }
+            return getSuccessfulBody(response);
         });
     }
+
+    /**
+     * Send an Ergo transaction asynchronously.
+     *
+     * @see #sendTransaction(Retrofit, ErgoTransaction)
+     */
+    static public CompletableFuture<String> sendTransactionAsync(Retrofit r, ErgoTransaction tx) {
+        return executeAsync(r, () -> {
+            Method method = TransactionsApi.class.getMethod("sendTransaction", ErgoTransaction.class);
+            return RetrofitUtil.<String>invokeServiceMethod(r, method, new Object[]{tx});
+        }, ApiFacade::getSuccessfulBody);
+    }
+
     static public Transactions getUnconfirmedTransactions(
             Retrofit r, int limit, int offset) throws ErgoClientException {
         return execute(r, () -> {
             Method method = TransactionsApi.class.getMethod("getUnconfirmedTransactions", Integer.class, Integer.class);
             Response<Transactions> response = RetrofitUtil.<Transactions>invokeServiceMethod(r, method,
                 new Object[]{limit, offset}).execute();
+            return getSuccessfulBody(response);
+        });
+    }
 
-            if (!response.isSuccessful()) {
-                throw new ErgoClientException(response.code() + ": " +
-                    (response.errorBody() != null ? response.errorBody().string() : "Server returned error"), null);
-            } else {
-                return response.body();
-            }
+    /**
+     * Get ids of the transactions in the pool  @GET("transactions/unconfirmed/transactionIds")
+     *
+     * @return ids of the unconfirmed transactions, or null if the node doesn't support the
+     * endpoint (HTTP 404)
+     */
+    @Nullable
+    static public List<String> getUnconfirmedTransactionIds(Retrofit r) throws ErgoClientException {
+        return execute(r, () -> {
+            Method method = TransactionsApi.class.getMethod("getUnconfirmedTransactionIds");
+            Response<List<String>> response = RetrofitUtil.<List<String>>invokeServiceMethod(r, method,
+                new Object[]{}).execute();
+            return getBodyIfFound(response);
+        });
+    }
+
+    /**
+     * Get the transactions with the given ids from the pool, the ids which are not in the
+     * pool are skipped.
+     * POST("transactions/unconfirmed/byTransactionIds")
+     *
+     * @param txIds ids of the transactions (required)
+     */
+    static public List<ErgoTransaction> getUnconfirmedTransactionsByIds(
+            Retrofit r, List<String> txIds) throws ErgoClientException {
+        return execute(r, () -> {
+            Method method = TransactionsApi.class.getMethod("getUnconfirmedTransactionsByIds", List.class);
+            Response<List<ErgoTransaction>> response = RetrofitUtil.<List<ErgoTransaction>>invokeServiceMethod(r, method,
+                new Object[]{txIds}).execute();
+            return getSuccessfulBody(response);
         });
     }
 
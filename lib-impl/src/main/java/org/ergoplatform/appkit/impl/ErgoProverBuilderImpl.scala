@@ -7,6 +7,7 @@ import sigmastate.basics.{DLogProtocol, DiffieHellmanTupleProverInput}
 import special.sigma.GroupElement
 import java.math.BigInteger
 import java.util
+import java.util.concurrent.Executor
 import JavaHelpers._
 import scala.collection.mutable.ArrayBuffer
 
@@ -18,6 +19,7 @@ class ErgoProverBuilderImpl(_ctx: BlockchainContextBase) extends ErgoProverBuild
 
   private val _dhtSecrets = new util.ArrayList[DiffieHellmanTupleProverInput]
   private val _dLogSecrets = new util.ArrayList[DLogProtocol.DLogProverInput]
+  private var _reductionExecutor: Option[Executor] = None
 
   override def withMnemonic(mnemonicPhrase: SecretString,
                             mnemonicPass: SecretString): ErgoProverBuilder = {
@@ -66,6 +68,11 @@ class ErgoProverBuilderImpl(_ctx: BlockchainContextBase) extends ErgoProverBuild
     this
   }
 
+  override def withParallelReduction(executor: Executor): ErgoProverBuilder = {
+    _reductionExecutor = Some(executor)
+    this
+  }
+
   override def build: ErgoProver = {
     val parameters = new ErgoLikeParameters() {
       private[impl] val _params = _ctx.getNodeInfo.getParameters
@@ -87,7 +94,7 @@ class ErgoProverBuilderImpl(_ctx: BlockchainContextBase) extends ErgoProverBuild
       keys.add(_masterKey)
       keys.addAll(_eip2Keys.map(_._2).to[IndexedSeq].convertTo[util.List[ExtendedSecretKey]])
     }
-    val interpreter = new AppkitProvingInterpreter(keys, _dLogSecrets, _dhtSecrets, parameters)
+    val interpreter = new AppkitProvingInterpreter(keys, _dLogSecrets, _dhtSecrets, parameters, _reductionExecutor)
     new ErgoProverImpl(_ctx, interpreter)
   }
 }
@@ -1,6 +1,8 @@
 package org.ergoplatform.appkit.impl
 
 import java.util
+import java.util.concurrent.{CompletableFuture, CompletionException, Executor, ForkJoinPool}
+import java.util.function.Supplier
 
 import org.ergoplatform.P2PKAddress
 import org.ergoplatform.appkit._
@@ -16,6 +18,12 @@ class ErgoProverImpl(_ctx: BlockchainContextBase,
                      _prover: AppkitProvingInterpreter) extends ErgoProver {
   private def networkPrefix = _ctx.getNetworkType.networkPrefix
 
+  // prover used by signAll, the transactions are already signed concurrently, so their
+  // inputs are reduced sequentially (the interpreter is thread-safe and shared by the tasks)
+  private lazy val _batchProver =
+    if (_prover.reductionExecutor.isEmpty) _prover
+    else new AppkitProvingInterpreter(_prover.secretKeys, _prover.dLogInputs, _prover.dhtInputs, _prover.params)
+
   override def getP2PKAddress: P2PKAddress = {
     val pk = _prover.pubKeys(0)
     JavaHelpers.createP2PKAddress(pk, networkPrefix)
@@ -40,11 +48,14 @@ class ErgoProverImpl(_ctx: BlockchainContextBase,
   override def sign(tx: UnsignedTransaction): SignedTransaction =
     sign(tx, baseCost = 0)
 
-  override def sign(tx: UnsignedTransaction, baseCost: Int): SignedTransaction = {
+  override def sign(tx: UnsignedTransaction, baseCost: Int): SignedTransaction =
+    signWith(_prover, tx, baseCost)
+
+  private def signWith(prover: AppkitProvingInterpreter, tx: UnsignedTransaction, baseCost: Int): SignedTransaction = {
     val txImpl = tx.asInstanceOf[UnsignedTransactionImpl]
     val boxesToSpend = JavaHelpers.toIndexedSeq(txImpl.getBoxesToSpend)
     val dataBoxes = JavaHelpers.toIndexedSeq(txImpl.getDataBoxes)
-    val (signed, cost) = _prover.sign(txImpl.getTx, boxesToSpend, dataBoxes, txImpl.getStateContext, baseCost).getOrThrow
+    val (signed, cost) = prover.sign(txImpl.getTx, boxesToSpend, dataBoxes, txImpl.getStateContext, baseCost).getOrThrow
     new SignedTransactionImpl(_ctx, signed, cost)
   }
 
@@ -69,6 +80,51 @@ class ErgoProverImpl(_ctx: BlockchainContextBase,
     new SignedTransactionImpl(_ctx, signed, cost)
   }
 
+  override def signReduced(tx: ReducedTransaction, baseCost: Int, executor: Executor): SignedTransaction = {
+    val (signed, cost) = _prover.signReduced(tx.getTx, baseCost, Some(executor))
+    new SignedTransactionImpl(_ctx, signed, cost)
+  }
+
+  override def signAll(txs: util.List[UnsignedTransaction]): util.List[SignedTransaction] =
+    signAll(txs, ForkJoinPool.commonPool())
+
+  override def signAll(txs: util.List[UnsignedTransaction], executor: Executor): util.List[SignedTransaction] =
+    signConcurrently(txs, executor)(tx => signWith(_batchProver, tx, baseCost = 0))
+
+  override def signAllReduced(txs: util.List[ReducedTransaction]): util.List[SignedTransaction] =
+    signAllReduced(txs, ForkJoinPool.commonPool())
+
+  override def signAllReduced(txs: util.List[ReducedTransaction], executor: Executor): util.List[SignedTransaction] =
+    signConcurrently(txs, executor)(tx => signReduced(tx, baseCost = 0))
+
+  /**
+   * Signs each of the given transactions by a separate task on the given executor and
+   * collects the results in the order of the transactions.
+   */
+  private def signConcurrently[T](txs: util.List[T], executor: Executor)
+                                 (sign: T => SignedTransaction): util.List[SignedTransaction] = {
+    val tasks = new util.ArrayList[CompletableFuture[SignedTransaction]](txs.size)
+    for (i <- 0 until txs.size) {
+      val tx = txs.get(i)
+      tasks.add(CompletableFuture.supplyAsync(new Supplier[SignedTransaction] {
+        override def get(): SignedTransaction = sign(tx)
+      }, executor))
+    }
+    val signed = new util.ArrayList[SignedTransaction](txs.size)
+    val errors = new util.TreeMap[Integer, Throwable]()
+    for (i <- 0 until tasks.size) {
+      try {
+        signed.add(tasks.get(i).join())
+      } catch {
+        case e: CompletionException =>
+          signed.add(null)
+          errors.put(i, e.getCause)
+      }
+    }
+    if (!errors.isEmpty) throw new BatchSigningException(signed, errors)
+    signed
+  }
+
   override def verifySignature(sigmaTree: SigmaBoolean, message: Array[Byte], signedMessage: Array[Byte]): Boolean = {
     _prover.verifySignature(sigmaTree, message, signedMessage)
   }
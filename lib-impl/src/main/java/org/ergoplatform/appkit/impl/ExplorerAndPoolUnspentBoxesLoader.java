@@ -5,15 +5,11 @@ import org.ergoplatform.appkit.BlockchainContext;
 import org.ergoplatform.appkit.BoxOperations;
 import org.ergoplatform.appkit.ErgoToken;
 import org.ergoplatform.appkit.InputBox;
-import org.ergoplatform.explorer.client.model.OutputInfo;
-import org.ergoplatform.explorer.client.model.TransactionInfo;
-import org.ergoplatform.restapi.client.ErgoTransaction;
-import org.ergoplatform.restapi.client.ErgoTransactionInput;
 import org.ergoplatform.restapi.client.ErgoTransactionOutput;
-import org.ergoplatform.restapi.client.Transactions;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.annotation.Nonnull;
 
@@ -24,44 +20,65 @@ import javax.annotation.Nonnull;
  * Instead of the default implementation, this one fetches the mempool from the node connected to
  * and blacklists the inputs so they aren't used for transactions made by {@link BoxOperations}
  * methods.
+ * The mempool is mirrored by {@link MempoolMirror}, which is synchronized with the node on
+ * every {@link #prepare} call, unless an external mirror is given (see
+ * {@link #withMempoolMirror(MempoolMirror)}).
  * <p>
  * Optionally, you can also use boxes available on mempool to be spent, allowing to make chained tx.
  */
 public class ExplorerAndPoolUnspentBoxesLoader extends BoxOperations.ExplorerApiWithCheckerLoader {
-    private final List<String> unconfirmedSpentBoxesIds = new ArrayList<>();
-    private boolean unconfirmedBoxesFetched;
+    private MempoolMirror mempool;
+    private boolean ownsMempool;
+    // addresses whose unconfirmed boxes are already returned, the pages of different
+    // addresses may be loaded concurrently (see BoxOperations#withConcurrentAddresses)
+    private final Set<Address> unconfirmedBoxesFetched = ConcurrentHashMap.newKeySet();
     private boolean allowChainedTx = false;
 
+    /**
+     * If true, the unconfirmed boxes of the address are returned as the page following the
+     * last page of Explorer. This depends on the order of loaded pages, so it should not be
+     * used with {@link BoxOperations#withPagePrefetch page prefetching}.
+     */
     public ExplorerAndPoolUnspentBoxesLoader withAllowChainedTx(boolean allowChainedTx) {
         this.allowChainedTx = allowChainedTx;
         return this;
     }
 
+    /**
+     * Uses the given mirror of the mempool, which is synchronized by its owner (for example on
+     * a schedule, see {@link MempoolMirror#startSync}), so that {@link #prepare} doesn't
+     * request the node.
+     */
+    public ExplorerAndPoolUnspentBoxesLoader withMempoolMirror(MempoolMirror mempool) {
+        this.mempool = mempool;
+        this.ownsMempool = false;
+        return this;
+    }
+
     @Override
     public void prepare(@Nonnull BlockchainContext ctx, List<Address> addresses, long grossAmount, @Nonnull List<ErgoToken> tokensToSpend) {
         if (!(ctx instanceof BlockchainContextImpl)) {
             throw new IllegalArgumentException("This loader needs to be used with BlockchainContextImpl");
         }
 
-        unconfirmedSpentBoxesIds.clear();
-
-        Transactions unconfirmedTransactions = ErgoNodeFacade.getUnconfirmedTransactions(((BlockchainContextImpl) ctx)
-            .getRetrofit(), 1000, 0);
-        for (ErgoTransaction unconfirmedTx : unconfirmedTransactions) {
-            for (ErgoTransactionInput txInput : unconfirmedTx.getInputs()) {
-                unconfirmedSpentBoxesIds.add(txInput.getBoxId());
-            }
+        if (mempool == null) {
+            mempool = new MempoolMirror();
+            ownsMempool = true;
+        }
+        if (ownsMempool) {
+            // the node of the given context, the loader may be used with several clients
+            mempool.sync(((BlockchainContextImpl) ctx).getRetrofit());
         }
     }
 
     @Override
     public void prepareForAddress(Address address) {
-        unconfirmedBoxesFetched = false;
+        unconfirmedBoxesFetched.remove(address);
     }
 
     @Override
     protected boolean canUseBox(InputBox box) {
-        return !unconfirmedSpentBoxesIds.contains(box.getId().toString());
+        return !mempool.isSpent(box.getId());
     }
 
     @Nonnull
@@ -69,31 +86,12 @@ public class ExplorerAndPoolUnspentBoxesLoader extends BoxOperations.ExplorerApi
     public List<InputBox> loadBoxesPage(@Nonnull BlockchainContext ctx, @Nonnull Address sender, @Nonnull Integer page) {
         List<InputBox> inputBoxes = super.loadBoxesPage(ctx, sender, page);
 
-        if (inputBoxes.isEmpty() && allowChainedTx && !unconfirmedBoxesFetched) {
-            // needed to not go into an infinite loop for the last page
-            unconfirmedBoxesFetched = true;
-
-            // fetch unconfirmed transactions for this address and add its boxes as last page
-            try {
-                String senderAddress = sender.toString();
-                BlockchainContextImpl ctxImpl = (BlockchainContextImpl) ctx;
-                List<TransactionInfo> mempoolTx = ExplorerFacade.getApiV1MempoolTransactionsByaddressP1(ctxImpl.getRetrofitExplorer(),
-                    senderAddress, 0, 50);
-
-                // now check if we have boxes on the address
-                for (TransactionInfo tx : mempoolTx) {
-                    for (OutputInfo output : tx.getOutputs()) {
-                        if (output.getAddress().equals(senderAddress) && output.getSpentTransactionId() == null) {
-                            // we have an unconfirmed box - get info from node for it
-                            ErgoTransactionOutput boxInfo = ErgoNodeFacade.getBoxWithPoolById(((BlockchainContextImpl) ctx).getRetrofit(), output.getBoxId());
-                            if (boxInfo != null) {
-                                inputBoxes.add(new InputBoxImpl(ctxImpl, boxInfo));
-                            }
-                        }
-                    }
-                }
-            } catch (Throwable t) {
-                // something did not work - bad luck but just proceed without chained tx
+        // needed to not go into an infinite loop for the last page
+        if (inputBoxes.isEmpty() && allowChainedTx && unconfirmedBoxesFetched.add(sender)) {
+            // add unconfirmed boxes of this address from the mempool as last page
+            BlockchainContextImpl ctxImpl = (BlockchainContextImpl) ctx;
+            for (ErgoTransactionOutput output : mempool.getOutputsFor(sender)) {
+                inputBoxes.add(ctxImpl.newInputBox(output));
             }
         }
 
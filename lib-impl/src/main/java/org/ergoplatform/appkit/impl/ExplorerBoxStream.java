@@ -0,0 +1,86 @@
+package org.ergoplatform.appkit.impl;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import org.ergoplatform.explorer.client.JSON;
+import org.ergoplatform.explorer.client.model.OutputInfo;
+import okhttp3.ResponseBody;
+import retrofit2.Retrofit;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterator over the boxes of a streaming Explorer response (the {@code /stream} endpoints).
+ * The boxes are parsed one by one as they arrive, so only the current box is kept in
+ * memory. Both a JSON array of boxes and a sequence of JSON objects (one per line) are
+ * accepted.
+ * <br>
+ * The response is released when the last box is read, by {@link #close()} or when parsing
+ * fails, so an iterator which is not read to the end must be closed.
+ */
+public class ExplorerBoxStream implements Iterator<OutputInfo>, Closeable {
+    private static final Gson GSON = new JSON().getGson();
+
+    private final Retrofit _retrofit;
+    private final ResponseBody _body;
+    private final JsonReader _reader;
+    private boolean _started;
+    private boolean _inArray;
+    private boolean _closed;
+
+    ExplorerBoxStream(Retrofit retrofit, ResponseBody body) {
+        _retrofit = retrofit;
+        _body = body;
+        _reader = new JsonReader(body.charStream());
+        // allows multiple top-level objects
+        _reader.setLenient(true);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (_closed) return false;
+        try {
+            if (!_started) {
+                _started = true;
+                if (_reader.peek() == JsonToken.BEGIN_ARRAY) {
+                    _reader.beginArray();
+                    _inArray = true;
+                }
+            }
+            boolean hasNext = _inArray ? _reader.hasNext() : _reader.peek() != JsonToken.END_DOCUMENT;
+            if (!hasNext) {
+                close();
+            }
+            return hasNext;
+        } catch (IOException e) {
+            close();
+            throw ApiFacade.clientError(_retrofit, e);
+        }
+    }
+
+    @Override
+    public OutputInfo next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        try {
+            return GSON.fromJson(_reader, OutputInfo.class);
+        } catch (JsonParseException e) {
+            close();
+            throw ApiFacade.clientError(_retrofit, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (!_closed) {
+            _closed = true;
+            _body.close();
+        }
+    }
+}
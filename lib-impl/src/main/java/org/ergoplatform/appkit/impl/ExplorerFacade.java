@@ -4,14 +4,19 @@ import org.ergoplatform.appkit.ErgoClientException;
 import org.ergoplatform.explorer.client.DefaultApi;
 import org.ergoplatform.explorer.client.model.Items;
 import org.ergoplatform.explorer.client.model.ItemsA;
+import org.ergoplatform.explorer.client.model.ListOutputInfo;
 import org.ergoplatform.explorer.client.model.OutputInfo;
 import org.ergoplatform.explorer.client.model.TransactionInfo;
 
+import okhttp3.Request;
+import retrofit2.Call;
+import retrofit2.Response;
 import retrofit2.Retrofit;
 import retrofit2.RetrofitUtil;
 
 import java.lang.reflect.Method;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * This class implements typed facade with Ergo Explorer API invocation methods.
@@ -39,6 +44,73 @@ public class ExplorerFacade extends ApiFacade {
         });
     }
 
+    /**
+     * Get unspent boxes containing given address asynchronously.
+     *
+     * @see #transactionsBoxesByAddressUnspentIdGet(Retrofit, String, Integer, Integer)
+     */
+    static public CompletableFuture<List<OutputInfo>> transactionsBoxesByAddressUnspentIdGetAsync(
+            Retrofit r, String id, Integer offset, Integer limit) {
+        return executeAsync(r, () -> {
+            Method method = DefaultApi.class.getMethod(
+              "getApiV1BoxesUnspentByaddressP1", String.class, Integer.class, Integer.class, String.class);
+            return RetrofitUtil.<ItemsA>invokeServiceMethod(r, method, new Object[]{id, offset, limit, "asc"});
+        }, response -> getSuccessfulBody(response).getItems());
+    }
+
+    /**
+     * Get unspent boxes with the ErgoTree template of the given hash
+     * @GET("api/v1/boxes/unspent/byErgoTreeTemplateHash/{p1}")
+     *
+     * @param templateHash hash of the ErgoTree template encoded in Base16 (required)
+     * @param offset       optional zero based offset of the first box in the list, default = 0
+     * @param limit        optional number of boxes to retrieve (default = 20)
+     * @return page of requested outputs with the total number of outputs
+     */
+    static public ItemsA boxesUnspentByErgoTreeTemplateHash(
+            Retrofit r, String templateHash, Integer offset, Integer limit) throws ErgoClientException {
+        return execute(r, () -> {
+            Method method = DefaultApi.class.getMethod(
+                "getApiV1BoxesUnspentByergotreetemplatehashP1", String.class, Integer.class, Integer.class);
+            Response<ItemsA> response = RetrofitUtil.<ItemsA>invokeServiceMethod(r, method,
+                new Object[]{templateHash, offset, limit}).execute();
+            return getSuccessfulBody(response);
+        });
+    }
+
+    /**
+     * Get unspent boxes with the ErgoTree template of the given hash asynchronously.
+     *
+     * @see #boxesUnspentByErgoTreeTemplateHash(Retrofit, String, Integer, Integer)
+     */
+    static public CompletableFuture<ItemsA> boxesUnspentByErgoTreeTemplateHashAsync(
+            Retrofit r, String templateHash, Integer offset, Integer limit) {
+        return executeAsync(r, () -> {
+            Method method = DefaultApi.class.getMethod(
+                "getApiV1BoxesUnspentByergotreetemplatehashP1", String.class, Integer.class, Integer.class);
+            return RetrofitUtil.<ItemsA>invokeServiceMethod(r, method, new Object[]{templateHash, offset, limit});
+        }, ApiFacade::getSuccessfulBody);
+    }
+
+    /**
+     * Get unspent boxes containing the given token @GET("api/v1/boxes/unspent/byTokenId/{p1}")
+     *
+     * @param tokenId id of the token encoded in Base16 (required)
+     * @param offset  optional zero based offset of the first box in the list, default = 0
+     * @param limit   optional number of boxes to retrieve (default = 20)
+     * @return page of requested outputs with the total number of outputs
+     */
+    static public ItemsA boxesUnspentByTokenId(
+            Retrofit r, String tokenId, Integer offset, Integer limit) throws ErgoClientException {
+        return execute(r, () -> {
+            Method method = DefaultApi.class.getMethod(
+                "getApiV1BoxesUnspentBytokenidP1", String.class, Integer.class, Integer.class);
+            Response<ItemsA> response = RetrofitUtil.<ItemsA>invokeServiceMethod(r, method,
+                new Object[]{tokenId, offset, limit}).execute();
+            return getSuccessfulBody(response);
+        });
+    }
+
     public static List<TransactionInfo> getApiV1MempoolTransactionsByaddressP1(Retrofit r, String address, int offset, int limit) {
         return execute(r, () -> {
             Method method = DefaultApi.class.getMethod(
@@ -50,4 +122,77 @@ public class ExplorerFacade extends ApiFacade {
         });
     }
 
+    /**
+     * Stream unspent boxes created in the given range of heights
+     * @GET("api/v1/boxes/unspent/stream")
+     *
+     * @param minHeight min inclusion height of the boxes (required)
+     * @param maxHeight max inclusion height of the boxes (required)
+     * @return iterator over the boxes of the response, see {@link ExplorerBoxStream}
+     */
+    static public ExplorerBoxStream streamUnspentBoxes(
+            Retrofit r, int minHeight, int maxHeight) throws ErgoClientException {
+        return openStream(r, () -> {
+            Method method = DefaultApi.class.getMethod(
+                "getApiV1BoxesUnspentStream", Integer.class, Integer.class);
+            return RetrofitUtil.<ListOutputInfo>invokeServiceMethod(r, method, new Object[]{minHeight, maxHeight});
+        });
+    }
+
+    /**
+     * Stream unspent boxes created in the given number of last epochs
+     * @GET("api/v1/boxes/unspent/byLastEpochs/stream")
+     *
+     * @param lastEpochs number of last epochs (required)
+     * @return iterator over the boxes of the response, see {@link ExplorerBoxStream}
+     */
+    static public ExplorerBoxStream streamUnspentBoxesByLastEpochs(
+            Retrofit r, int lastEpochs) throws ErgoClientException {
+        return openStream(r, () -> {
+            Method method = DefaultApi.class.getMethod("getApiV1BoxesUnspentBylastepochsStream", Integer.class);
+            return RetrofitUtil.<ListOutputInfo>invokeServiceMethod(r, method, new Object[]{lastEpochs});
+        });
+    }
+
+    /**
+     * Stream unspent boxes with the ErgoTree template of the given hash created in the given
+     * range of heights
+     * @GET("api/v1/boxes/unspent/byErgoTreeTemplateHash/{p1}/stream")
+     *
+     * @param templateHash hash of the ErgoTree template encoded in Base16 (required)
+     * @param minHeight    min inclusion height of the boxes (required)
+     * @param maxHeight    max inclusion height of the boxes (required)
+     * @return iterator over the boxes of the response, see {@link ExplorerBoxStream}
+     */
+    static public ExplorerBoxStream streamUnspentBoxesByErgoTreeTemplateHash(
+            Retrofit r, String templateHash, int minHeight, int maxHeight) throws ErgoClientException {
+        return openStream(r, () -> {
+            Method method = DefaultApi.class.getMethod(
+                "getApiV1BoxesUnspentByergotreetemplatehashP1Stream", String.class, Integer.class, Integer.class);
+            return RetrofitUtil.<ListOutputInfo>invokeServiceMethod(r, method,
+                new Object[]{templateHash, minHeight, maxHeight});
+        });
+    }
+
+    /**
+     * Sends the request of the call created by the given supplier and returns the iterator
+     * over the boxes of the response body. The generated API methods of the stream endpoints
+     * would read the whole response into memory, so only the request is taken from them and
+     * executed by the HTTP client of the given Retrofit instance, which reads the response
+     * body incrementally.
+     */
+    private static ExplorerBoxStream openStream(Retrofit r, CallSupplier<ListOutputInfo> callSupplier) {
+        return execute(r, () -> {
+            Call<ListOutputInfo> call = callSupplier.get();
+            Request request = call.request();
+            okhttp3.Response response = r.callFactory().newCall(request).execute();
+            if (!response.isSuccessful()) {
+                String error = response.body() != null ? response.body().string() : "Server returned error";
+                response.close();
+                throw new ErgoClientException(response.code() + ": " + error, null);
+            }
+            return new ExplorerBoxStream(r, response.body());
+        });
+    }
+
 }
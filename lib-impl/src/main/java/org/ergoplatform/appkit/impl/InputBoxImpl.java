@@ -7,6 +7,7 @@ import org.ergoplatform.restapi.client.ErgoTransactionOutput;
 import org.ergoplatform.restapi.client.JSON;
 import sigmastate.Values;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -17,8 +18,11 @@ public class InputBoxImpl implements InputBox {
     private final BlockchainContextBase _ctx;
     private final ErgoId _id;
     private final ErgoBox _ergoBox;
-    private final ErgoTransactionOutput _boxData;
+    // created lazily when the box is created from ErgoBox (e.g. taken from BoxCache)
+    private ErgoTransactionOutput _boxData;
     private ContextExtension _extension;
+    // created lazily by getTokens
+    private List<ErgoToken> _tokens;
 
     public InputBoxImpl(BlockchainContextBase ctx, ErgoTransactionOutput boxData) {
         _ctx = ctx;
@@ -32,7 +36,6 @@ public class InputBoxImpl implements InputBox {
         _ctx = ctx;
         _ergoBox = ergoBox;
         _id = new ErgoId(ergoBox.id());
-        _boxData = ScalaBridge.isoErgoTransactionOutput().from(ergoBox);
         _extension = ContextExtension.empty();
     }
 
@@ -53,7 +56,12 @@ public class InputBoxImpl implements InputBox {
 
     @Override
     public List<ErgoToken> getTokens() {
-        List<ErgoToken> tokens = Iso.isoTokensListToPairsColl().from(_ergoBox.additionalTokens());
+        // the tokens of the box never change, so the list is converted once
+        List<ErgoToken> tokens = _tokens;
+        if (tokens == null) {
+            tokens = Collections.unmodifiableList(Iso.isoTokensListToPairsColl().from(_ergoBox.additionalTokens()));
+            _tokens = tokens;
+        }
         return tokens;
     }
 
@@ -85,15 +93,22 @@ public class InputBoxImpl implements InputBox {
     @Override
     public String toJson(boolean prettyPrint, boolean formatJson) {
     	Gson gson = (prettyPrint || formatJson) ? JSON.createGson().setPrettyPrinting().create() : _ctx.getApiClient().getGson();
-    	ErgoTransactionOutput data = _boxData;
+    	ErgoTransactionOutput data = getBoxData();
     	if (prettyPrint) {
-    		data = _ctx.getApiClient().cloneDataObject(_boxData);
+    		data = _ctx.getApiClient().cloneDataObject(data);
     		data.ergoTree(_ergoBox.ergoTree().toString());
     	}
     	String json = gson.toJson(data);
     	return json;
     }
 
+    private ErgoTransactionOutput getBoxData() {
+        if (_boxData == null) {
+            _boxData = ScalaBridge.isoErgoTransactionOutput().from(_ergoBox);
+        }
+        return _boxData;
+    }
+
     public ErgoBox getErgoBox() {
         return _ergoBox;
     }
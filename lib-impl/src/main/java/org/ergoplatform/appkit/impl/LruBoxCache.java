@@ -0,0 +1,103 @@
+package org.ergoplatform.appkit.impl;
+
+import org.ergoplatform.ErgoBox;
+import org.ergoplatform.appkit.ErgoId;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+/**
+ * {@link BoxCache} which keeps up to the given number of boxes and evicts the least
+ * recently used box when the cache is full.
+ * All the methods are thread-safe, so one instance can be shared by all the clients of
+ * the process (see {@link #shared()}).
+ */
+public class LruBoxCache implements BoxCache {
+    /** Maximum number of boxes in the {@link #shared() shared} cache. */
+    public static final int DEFAULT_MAX_SIZE = 10_000;
+
+    private static volatile LruBoxCache _shared;
+
+    private final int _maxSize;
+    private final LinkedHashMap<ErgoId, ErgoBox> _boxes;
+    private long _hitCount = 0;
+    private long _missCount = 0;
+    private long _evictionCount = 0;
+
+    /**
+     * @param maxSize maximum number of boxes kept in the cache
+     */
+    public LruBoxCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Maximum size of the cache must be > 0");
+        }
+        _maxSize = maxSize;
+        // access order, so that the eldest entry is the least recently used one
+        _boxes = new LinkedHashMap<ErgoId, ErgoBox>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ErgoId, ErgoBox> eldest) {
+                if (size() > _maxSize) {
+                    _evictionCount++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the cache shared by the process, which is created on first call with
+     * {@link #DEFAULT_MAX_SIZE}.
+     */
+    public static LruBoxCache shared() {
+        if (_shared == null) {
+            synchronized (LruBoxCache.class) {
+                if (_shared == null) {
+                    _shared = new LruBoxCache(DEFAULT_MAX_SIZE);
+                }
+            }
+        }
+        return _shared;
+    }
+
+    public int getMaxSize() {
+        return _maxSize;
+    }
+
+    @Nullable
+    @Override
+    public synchronized ErgoBox get(ErgoId boxId) {
+        ErgoBox box = _boxes.get(boxId);
+        if (box != null) {
+            _hitCount++;
+        } else {
+            _missCount++;
+        }
+        return box;
+    }
+
+    @Override
+    public void put(ErgoBox box) {
+        ErgoId boxId = new ErgoId(box.id());
+        synchronized (this) {
+            _boxes.put(boxId, box);
+        }
+    }
+
+    @Override
+    public synchronized void invalidate(ErgoId boxId) {
+        _boxes.remove(boxId);
+    }
+
+    @Override
+    public synchronized void clear() {
+        _boxes.clear();
+    }
+
+    @Override
+    public synchronized BoxCacheStats getStats() {
+        return new BoxCacheStats(_hitCount, _missCount, _evictionCount, _boxes.size());
+    }
+}
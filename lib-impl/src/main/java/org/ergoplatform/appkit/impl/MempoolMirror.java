@@ -0,0 +1,310 @@
+package org.ergoplatform.appkit.impl;
+
+import org.ergoplatform.appkit.Address;
+import org.ergoplatform.appkit.ErgoId;
+import org.ergoplatform.restapi.client.Asset;
+import org.ergoplatform.restapi.client.ErgoTransaction;
+import org.ergoplatform.restapi.client.ErgoTransactionInput;
+import org.ergoplatform.restapi.client.ErgoTransactionOutput;
+import org.ergoplatform.restapi.client.Transactions;
+import retrofit2.Retrofit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+
+/**
+ * In-process mirror of the mempool of a node. The mirror is synchronized with the node by
+ * {@link #sync()}, either explicitly or on a schedule (see {@link #startSync}), and answers
+ * the queries about unconfirmed transactions from memory, without requests to the node:
+ * whether a box is spent by an unconfirmed transaction, and which unconfirmed outputs
+ * belong to an address, an ErgoTree or contain a token.
+ * <br>
+ * Synchronization is incremental: the ids of the pool's transactions are loaded, then only
+ * the new transactions are loaded and indexed and the transactions which left the pool are
+ * removed from the indexes. With nodes which don't list the ids of the pool's transactions
+ * the whole pool is loaded, but still only the changes are indexed.
+ * The queries read concurrent indexes, so they are thread-safe and never wait for a
+ * running synchronization (but can see the changes of a running synchronization which are
+ * already indexed).
+ */
+public class MempoolMirror {
+    /** Number of unconfirmed transactions requested from the node at once. */
+    static final int PAGE_SIZE = 1000;
+
+    @Nullable
+    private final Retrofit _retrofit;
+    // the fields below are modified under lock of this object
+    // transactions of the last synchronized pool by id
+    private final LinkedHashMap<String, PoolTransaction> _transactions = new LinkedHashMap<>();
+    // all the outputs of the pool's transactions (including spent ones) by id
+    private final Map<ErgoId, ErgoTransactionOutput> _poolOutputs = new HashMap<>();
+    private final Map<ErgoId, String> _spendingTxIds = new ConcurrentHashMap<>();
+    // unspent outputs of the pool, the lists are immutable and replaced on change
+    private final Map<ErgoId, ErgoTransactionOutput> _outputsById = new ConcurrentHashMap<>();
+    private final Map<String, List<ErgoTransactionOutput>> _outputsByErgoTree = new ConcurrentHashMap<>();
+    private final Map<ErgoId, List<ErgoTransactionOutput>> _outputsByToken = new ConcurrentHashMap<>();
+    private volatile int _transactionCount = 0;
+    private volatile RuntimeException _lastSyncError;
+
+    /**
+     * @param retrofit client of the node to load unconfirmed transactions from by
+     *                 {@link #sync()}
+     */
+    public MempoolMirror(Retrofit retrofit) {
+        _retrofit = retrofit;
+    }
+
+    /**
+     * Creates a mirror which is synchronized by {@link #sync(Retrofit)} with the client given
+     * on each call.
+     */
+    public MempoolMirror() {
+        _retrofit = null;
+    }
+
+    /**
+     * Synchronizes the mirror with the node given to the constructor.
+     *
+     * @see #sync(Retrofit)
+     */
+    public void sync() {
+        if (_retrofit == null) {
+            throw new IllegalStateException("No node client is given to the constructor, use sync(Retrofit)");
+        }
+        sync(_retrofit);
+    }
+
+    /**
+     * Loads the unconfirmed transactions which are not yet in the mirror from the given node
+     * and updates the indexes. The transactions which left the pool are removed.
+     */
+    public synchronized void sync(Retrofit retrofit) {
+        Set<String> poolTxIds;
+        List<ErgoTransaction> newTransactions = new ArrayList<>();
+        List<String> txIds = ErgoNodeFacade.getUnconfirmedTransactionIds(retrofit);
+        if (txIds != null) {
+            poolTxIds = new HashSet<>(txIds);
+            List<String> newTxIds = new ArrayList<>();
+            for (String txId : txIds) {
+                if (!_transactions.containsKey(txId)) newTxIds.add(txId);
+            }
+            for (int from = 0; from < newTxIds.size(); from += PAGE_SIZE) {
+                // the transactions which left the pool meanwhile are not returned
+                newTransactions.addAll(ErgoNodeFacade.getUnconfirmedTransactionsByIds(
+                    retrofit, newTxIds.subList(from, Math.min(newTxIds.size(), from + PAGE_SIZE))));
+            }
+        } else {
+            // the node doesn't list the ids, so the whole pool is loaded
+            poolTxIds = new HashSet<>();
+            for (int offset = 0; ; offset += PAGE_SIZE) {
+                Transactions page = ErgoNodeFacade.getUnconfirmedTransactions(retrofit, PAGE_SIZE, offset);
+                for (ErgoTransaction tx : page) {
+                    poolTxIds.add(tx.getId());
+                    if (!_transactions.containsKey(tx.getId())) newTransactions.add(tx);
+                }
+                if (page.size() < PAGE_SIZE) break;
+            }
+        }
+
+        List<PoolTransaction> removed = new ArrayList<>();
+        for (PoolTransaction tx : _transactions.values()) {
+            if (!poolTxIds.contains(tx.id)) removed.add(tx);
+        }
+        for (PoolTransaction tx : removed) {
+            removeTransaction(tx);
+        }
+        for (ErgoTransaction tx : newTransactions) {
+            if (!_transactions.containsKey(tx.getId())) addTransaction(new PoolTransaction(tx));
+        }
+        _transactionCount = _transactions.size();
+        _lastSyncError = null;
+    }
+
+    private void addTransaction(PoolTransaction tx) {
+        _transactions.put(tx.id, tx);
+        for (ErgoId inputId : tx.inputIds) {
+            _spendingTxIds.put(inputId, tx.id);
+            ErgoTransactionOutput spentOutput = _poolOutputs.get(inputId);
+            if (spentOutput != null) unindexOutput(inputId, spentOutput);
+        }
+        for (int i = 0; i < tx.outputs.length; i++) {
+            _poolOutputs.put(tx.outputIds[i], tx.outputs[i]);
+            if (!_spendingTxIds.containsKey(tx.outputIds[i])) indexOutput(tx.outputIds[i], tx.outputs[i]);
+        }
+    }
+
+    private void removeTransaction(PoolTransaction tx) {
+        _transactions.remove(tx.id);
+        for (int i = 0; i < tx.outputs.length; i++) {
+            _poolOutputs.remove(tx.outputIds[i]);
+            unindexOutput(tx.outputIds[i], tx.outputs[i]);
+        }
+        for (ErgoId inputId : tx.inputIds) {
+            if (_spendingTxIds.remove(inputId, tx.id)) {
+                // the output of another pool transaction is unspent again
+                ErgoTransactionOutput output = _poolOutputs.get(inputId);
+                if (output != null) indexOutput(inputId, output);
+            }
+        }
+    }
+
+    private void indexOutput(ErgoId outputId, ErgoTransactionOutput output) {
+        _outputsById.put(outputId, output);
+        _outputsByErgoTree.compute(output.getErgoTree(), (k, outputs) -> withOutput(outputs, output));
+        for (ErgoId tokenId : tokenIds(output)) {
+            _outputsByToken.compute(tokenId, (k, outputs) -> withOutput(outputs, output));
+        }
+    }
+
+    private void unindexOutput(ErgoId outputId, ErgoTransactionOutput output) {
+        if (_outputsById.remove(outputId) == null) return;
+        _outputsByErgoTree.computeIfPresent(output.getErgoTree(), (k, outputs) -> withoutOutput(outputs, output));
+        for (ErgoId tokenId : tokenIds(output)) {
+            _outputsByToken.computeIfPresent(tokenId, (k, outputs) -> withoutOutput(outputs, output));
+        }
+    }
+
+    private static List<ErgoTransactionOutput> withOutput(@Nullable List<ErgoTransactionOutput> outputs,
+                                                          ErgoTransactionOutput output) {
+        List<ErgoTransactionOutput> res = outputs == null ? new ArrayList<>(1) : new ArrayList<>(outputs);
+        res.add(output);
+        return Collections.unmodifiableList(res);
+    }
+
+    @Nullable
+    private static List<ErgoTransactionOutput> withoutOutput(List<ErgoTransactionOutput> outputs,
+                                                             ErgoTransactionOutput output) {
+        List<ErgoTransactionOutput> res = new ArrayList<>(outputs);
+        res.removeIf(o -> o == output);
+        // the entry is removed when null is returned
+        return res.isEmpty() ? null : Collections.unmodifiableList(res);
+    }
+
+    /** Distinct ids of the tokens of the given output, as it can contain several entries of a token. */
+    private static Set<ErgoId> tokenIds(ErgoTransactionOutput output) {
+        List<Asset> assets = output.getAssets();
+        if (assets == null || assets.isEmpty()) return Collections.emptySet();
+        Set<ErgoId> res = new LinkedHashSet<>();
+        for (Asset asset : assets) {
+            res.add(ErgoId.create(asset.getTokenId()));
+        }
+        return res;
+    }
+
+    /**
+     * Starts synchronization of this mirror with the given period, the first one is started
+     * immediately. Failed synchronizations don't stop the schedule, the last error is
+     * available from {@link #getLastSyncError()}. The mirror must be created with the client
+     * of the node to synchronize with.
+     *
+     * @return future which can be used to stop the synchronization
+     */
+    public ScheduledFuture<?> startSync(ScheduledExecutorService scheduler, long periodMillis) {
+        return scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                sync();
+            } catch (RuntimeException e) {
+                _lastSyncError = e;
+            }
+        }, 0, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Error of the last scheduled synchronization or null if it was successful.
+     */
+    @Nullable
+    public RuntimeException getLastSyncError() {
+        return _lastSyncError;
+    }
+
+    /** Number of unconfirmed transactions in the mirror. */
+    public int getTransactionCount() {
+        return _transactionCount;
+    }
+
+    /**
+     * Returns true if the box with the given id is spent by an unconfirmed transaction.
+     */
+    public boolean isSpent(ErgoId boxId) {
+        return _spendingTxIds.containsKey(boxId);
+    }
+
+    /**
+     * Returns id of the unconfirmed transaction spending the given box or null if the box is
+     * not spent in the pool.
+     */
+    @Nullable
+    public String getSpendingTransactionId(ErgoId boxId) {
+        return _spendingTxIds.get(boxId);
+    }
+
+    /**
+     * Returns the output of an unconfirmed transaction with the given id, or null if there is
+     * no such output or it is spent by another unconfirmed transaction.
+     */
+    @Nullable
+    public ErgoTransactionOutput getOutput(ErgoId boxId) {
+        return _outputsById.get(boxId);
+    }
+
+    /**
+     * Returns the outputs of unconfirmed transactions protected by the given address, which
+     * are not spent by other unconfirmed transactions.
+     */
+    public List<ErgoTransactionOutput> getOutputsFor(Address address) {
+        String ergoTree = ScalaBridge.isoStringToErgoTree().from(address.getErgoAddress().script());
+        return getOutputsByErgoTree(ergoTree);
+    }
+
+    /**
+     * Returns unspent outputs of unconfirmed transactions with the given ErgoTree
+     * (encoded in Base16).
+     */
+    public List<ErgoTransactionOutput> getOutputsByErgoTree(String ergoTree) {
+        return _outputsByErgoTree.getOrDefault(ergoTree, Collections.emptyList());
+    }
+
+    /**
+     * Returns unspent outputs of unconfirmed transactions containing the given token.
+     */
+    public List<ErgoTransactionOutput> getOutputsByToken(ErgoId tokenId) {
+        return _outputsByToken.getOrDefault(tokenId, Collections.emptyList());
+    }
+
+    /**
+     * Unconfirmed transaction with decoded ids, decoding is done once per transaction.
+     */
+    private static class PoolTransaction {
+        final String id;
+        final ErgoId[] inputIds;
+        final ErgoTransactionOutput[] outputs;
+        final ErgoId[] outputIds;
+
+        PoolTransaction(ErgoTransaction tx) {
+            id = tx.getId();
+            List<ErgoTransactionInput> inputs = tx.getInputs();
+            inputIds = new ErgoId[inputs.size()];
+            for (int i = 0; i < inputIds.length; i++) {
+                inputIds[i] = ErgoId.create(inputs.get(i).getBoxId());
+            }
+            outputs = tx.getOutputs().toArray(new ErgoTransactionOutput[0]);
+            outputIds = new ErgoId[outputs.length];
+            for (int i = 0; i < outputs.length; i++) {
+                outputIds[i] = ErgoId.create(outputs[i].getBoxId());
+            }
+        }
+    }
+}
@@ -1,7 +1,7 @@
 package org.ergoplatform.appkit.impl
 
 import _root_.org.ergoplatform.restapi.client._
-import org.ergoplatform.explorer.client.model.{AdditionalRegister, AdditionalRegisters => ERegisters, AssetInfo => EAsset}
+import org.ergoplatform.explorer.client.model.{AdditionalRegister, AssetInstanceInfo, OutputInfo, AdditionalRegisters => ERegisters, AssetInfo => EAsset}
 
 import java.util
 import java.util.List
@@ -90,6 +90,12 @@ object ScalaBridge {
   }
 
 
+  implicit val isoExplorerAssetInstanceToPair: Iso[AssetInstanceInfo, (TokenId, Long)] = new Iso[AssetInstanceInfo, (TokenId, Long)] {
+    override def to(a: AssetInstanceInfo) = (Digest32 @@ a.getTokenId.toBytes, a.getAmount)
+    override def from(t: (TokenId, Long)): AssetInstanceInfo =
+      new AssetInstanceInfo().tokenId(ErgoAlgos.encode(t._1)).amount(t._2)
+  }
+
   implicit val isoStringToErgoTree: Iso[String, ErgoTree] = new Iso[String, ErgoTree] {
     override def to(treeStr: String): ErgoTree = {
       val treeBytes = ErgoAlgos.decodeUnsafe(treeStr)
@@ -170,6 +176,22 @@ object ScalaBridge {
     }
   }
 
+  /** Creates boxes from the outputs returned by Explorer API, without requests to the node. */
+  implicit val isoExplOutputInfo: Iso[OutputInfo, ErgoBox] = new Iso[OutputInfo, ErgoBox] {
+    override def to(boxData: OutputInfo): ErgoBox = {
+      val tree = boxData.getErgoTree.convertTo[ErgoTree]
+      val tokens = boxData.getAssets.convertTo[Coll[(TokenId, Long)]]
+      val regs = boxData.getAdditionalRegisters.convertTo[AdditionalRegisters]
+      new ErgoBox(boxData.getValue, tree,
+        tokens, regs,
+        ModifierId @@ boxData.getTransactionId,
+        boxData.getIndex.shortValue,
+        boxData.getCreationHeight)
+    }
+
+    override def from(box: ErgoBox): OutputInfo = ???
+  }
+
 //  implicit val isoExplTransactionOutput: Iso[TransactionOutput, ErgoBox] = new Iso[TransactionOutput, ErgoBox] {
 //    override def to(boxData: TransactionOutput): ErgoBox = {
 //      val tree = boxData.getErgoTree.convertTo[ErgoTree]
@@ -0,0 +1,176 @@
+package org.ergoplatform.appkit.impl;
+
+import org.ergoplatform.appkit.Address;
+import org.ergoplatform.appkit.BlockchainContext;
+import org.ergoplatform.appkit.BoxOperations;
+import org.ergoplatform.appkit.ErgoToken;
+import org.ergoplatform.appkit.InputBox;
+import org.ergoplatform.restapi.client.EqualsPredicate;
+import org.ergoplatform.restapi.client.Scan;
+import org.ergoplatform.restapi.client.ScanningPredicate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.Nonnull;
+
+/**
+ * {@link BoxOperations.IUnspentBoxesLoader} implementation to be used with
+ * {@link BoxOperations#withInputBoxesLoader(BoxOperations.IUnspentBoxesLoader)}
+ * <p>
+ * Instead of Explorer, this one loads the unspent boxes from the Scan API of the node
+ * connected to, so it can be used with deployments without Explorer.
+ * The scans are given by {@link #withScan(Address, int)}, or looked up among the scans
+ * registered on the node by their tracking rule (see {@link ScanningPredicates#address}).
+ * The loader never registers scans, they can be registered with
+ * {@link BlockchainContextImpl#registerScan}.
+ * <p>
+ * Note, the node only tracks boxes created after a scan is registered, so the boxes of an
+ * address which were created earlier are not found by a new scan. Thus, when Explorer is
+ * configured, the pages of the scan are followed by the pages loaded from Explorer
+ * (see {@link #withExplorerFallback(boolean)}), and the addresses without a scan are
+ * loaded from Explorer.
+ */
+public class ScanUnspentBoxesLoader implements BoxOperations.IUnspentBoxesLoader {
+    private final Map<Address, Integer> scanIds = new ConcurrentHashMap<>();
+    // boxes of the scans loaded for the current call, by address
+    private final Map<Address, List<InputBox>> loadedBoxes = new ConcurrentHashMap<>();
+    private int minConfirmations = 0;
+    private int pageSize = BlockchainContext.DEFAULT_LIMIT_FOR_API;
+    private boolean explorerFallback = true;
+
+    /**
+     * Uses the scan with the given id, which is already registered on the node, to load the
+     * boxes of the given address.
+     */
+    public ScanUnspentBoxesLoader withScan(Address address, int scanId) {
+        scanIds.put(address, scanId);
+        return this;
+    }
+
+    /**
+     * Only the boxes with at least the given number of confirmations are loaded, default 0,
+     * i.e. boxes created by unconfirmed transactions are loaded as well.
+     */
+    public ScanUnspentBoxesLoader withMinConfirmations(int minConfirmations) {
+        this.minConfirmations = minConfirmations;
+        return this;
+    }
+
+    /**
+     * Number of boxes returned by {@link #loadBoxesPage} (from the scan or Explorer), default
+     * {@link BlockchainContext#DEFAULT_LIMIT_FOR_API}.
+     */
+    public ScanUnspentBoxesLoader withPageSize(int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("pageSize should be positive: " + pageSize);
+        }
+        this.pageSize = pageSize;
+        return this;
+    }
+
+    /**
+     * If true (the default), the boxes of an address are loaded from Explorer after the boxes
+     * of its scan, when Explorer is configured. This finds the boxes created before the scan
+     * was registered, so it should be disabled only once the scans track all the boxes of
+     * the addresses.
+     */
+    public ScanUnspentBoxesLoader withExplorerFallback(boolean explorerFallback) {
+        this.explorerFallback = explorerFallback;
+        return this;
+    }
+
+    /**
+     * Returns id of the scan used to load the boxes of the given address, or null if there
+     * is no scan.
+     */
+    public Integer getScanId(Address address) {
+        return scanIds.get(address);
+    }
+
+    @Override
+    public int getPageSize() {
+        // the last page of a scan can be short and followed by the pages of Explorer
+        return explorerFallback ? 0 : pageSize;
+    }
+
+    @Override
+    public void prepare(@Nonnull BlockchainContext ctx, List<Address> addresses, long grossAmount, @Nonnull List<ErgoToken> tokensToSpend) {
+        if (!(ctx instanceof BlockchainContextImpl)) {
+            throw new IllegalArgumentException("This loader needs to be used with BlockchainContextImpl");
+        }
+
+        BlockchainContextImpl ctxImpl = (BlockchainContextImpl) ctx;
+        List<Scan> scans = null;
+        for (Address address : addresses) {
+            if (scanIds.containsKey(address)) continue;
+            if (scans == null) {
+                scans = ctxImpl.getScans();
+            }
+            Integer scanId = findScan(scans, address);
+            if (scanId != null) {
+                scanIds.put(address, scanId);
+            }
+        }
+        loadedBoxes.clear();
+    }
+
+    /**
+     * Returns id of the scan tracking the boxes of the given address, or null if there is
+     * no such scan.
+     */
+    private static Integer findScan(List<Scan> scans, Address address) {
+        EqualsPredicate addressRule = (EqualsPredicate) ScanningPredicates.address(address);
+        for (Scan scan : scans) {
+            ScanningPredicate rule = scan.getTrackingRule();
+            if (rule instanceof EqualsPredicate) {
+                EqualsPredicate equalsRule = (EqualsPredicate) rule;
+                // the register is optional, R1 (the script of the box) is the default
+                boolean sameRegister = equalsRule.getRegister() == null
+                    || equalsRule.getRegister().equals(addressRule.getRegister());
+                if (sameRegister && addressRule.getBytes().equalsIgnoreCase(equalsRule.getBytes())) {
+                    return scan.getScanId();
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void prepareForAddress(Address address) {
+        loadedBoxes.remove(address);
+    }
+
+    @Nonnull
+    @Override
+    public List<InputBox> loadBoxesPage(@Nonnull BlockchainContext ctx, @Nonnull Address address, @Nonnull Integer page) {
+        BlockchainContextImpl ctxImpl = (BlockchainContextImpl) ctx;
+        // the node returns all the boxes of a scan at once, they are loaded on first request
+        // and then returned page by page
+        List<InputBox> boxes = loadedBoxes.computeIfAbsent(address, a -> {
+            Integer scanId = scanIds.get(a);
+            return scanId == null
+                ? Collections.<InputBox>emptyList()
+                : ctxImpl.getUnspentBoxesForScan(scanId, minConfirmations);
+        });
+        int scanPages = (boxes.size() + pageSize - 1) / pageSize;
+        if (page < scanPages) {
+            int from = page * pageSize;
+            return new ArrayList<>(boxes.subList(from, Math.min(boxes.size(), from + pageSize)));
+        }
+        boolean useExplorer = ctxImpl.getRetrofitExplorer() != null
+            && (explorerFallback || !scanIds.containsKey(address));
+        if (!useExplorer) {
+            if (!scanIds.containsKey(address)) {
+                throw new IllegalStateException("No scan for address " + address + " and Explorer is not configured");
+            }
+            return new ArrayList<>();
+        }
+        // the boxes which are already returned from the scan are skipped by BoxOperations
+        int explorerPage = page - scanPages;
+        return ctx.getUnspentBoxesFor(address, explorerPage * pageSize, pageSize);
+    }
+}
@@ -0,0 +1,75 @@
+package org.ergoplatform.appkit.impl;
+
+import org.ergoplatform.appkit.Address;
+import org.ergoplatform.appkit.ErgoId;
+import org.ergoplatform.restapi.client.AndPredicate;
+import org.ergoplatform.restapi.client.ContainsAssetPredicate;
+import org.ergoplatform.restapi.client.EqualsPredicate;
+import org.ergoplatform.restapi.client.OrPredicate;
+import org.ergoplatform.restapi.client.ScanningPredicate;
+import sigmastate.Values;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Factory methods of the tracking rules for the node Scan API
+ * (see {@link BlockchainContextImpl#registerScan}).
+ */
+public final class ScanningPredicates {
+    /** Register of a box holding its serialized ErgoTree. */
+    private static final String SCRIPT_REGISTER = "R1";
+
+    private ScanningPredicates() {
+    }
+
+    /**
+     * Rule selecting the boxes with the given ErgoTree (encoded in Base16).
+     */
+    public static ScanningPredicate ergoTree(String ergoTreeHex) {
+        EqualsPredicate res = new EqualsPredicate().register(SCRIPT_REGISTER).bytes(ergoTreeHex);
+        res.setPredicate("equals");
+        return res;
+    }
+
+    /**
+     * Rule selecting the boxes with the given ErgoTree.
+     */
+    public static ScanningPredicate ergoTree(Values.ErgoTree ergoTree) {
+        return ergoTree(ScalaBridge.isoStringToErgoTree().from(ergoTree));
+    }
+
+    /**
+     * Rule selecting the boxes protected by the given address.
+     */
+    public static ScanningPredicate address(Address address) {
+        return ergoTree(address.getErgoAddress().script());
+    }
+
+    /**
+     * Rule selecting the boxes containing the given token.
+     */
+    public static ScanningPredicate token(ErgoId tokenId) {
+        ContainsAssetPredicate res = new ContainsAssetPredicate().assetId(tokenId.toString());
+        res.setPredicate("containsAsset");
+        return res;
+    }
+
+    /**
+     * Rule selecting the boxes satisfying any of the given rules.
+     */
+    public static ScanningPredicate anyOf(ScanningPredicate... rules) {
+        OrPredicate res = new OrPredicate().args(new ArrayList<>(Arrays.asList(rules)));
+        res.setPredicate("or");
+        return res;
+    }
+
+    /**
+     * Rule selecting the boxes satisfying all the given rules.
+     */
+    public static ScanningPredicate allOf(ScanningPredicate... rules) {
+        AndPredicate res = new AndPredicate().args(new ArrayList<>(Arrays.asList(rules)));
+        res.setPredicate("and");
+        return res;
+    }
+}
@@ -0,0 +1,128 @@
+package org.ergoplatform.appkit.impl;
+
+import com.google.common.base.Preconditions;
+import org.ergoplatform.appkit.Address;
+import org.ergoplatform.appkit.BlockchainContext;
+import org.ergoplatform.appkit.BoxOperations;
+import org.ergoplatform.appkit.ErgoClient;
+import org.ergoplatform.appkit.ErgoToken;
+import org.ergoplatform.appkit.InputBox;
+import org.ergoplatform.explorer.client.model.AssetInstanceInfo;
+import org.ergoplatform.explorer.client.model.ItemsA;
+import org.ergoplatform.explorer.client.model.OutputInfo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.Nonnull;
+
+/**
+ * {@link BoxOperations.IUnspentBoxesLoader} implementation to be used with
+ * {@link BoxOperations#withInputBoxesLoader(BoxOperations.IUnspentBoxesLoader)}
+ * <p>
+ * When tokens are to be spent, the default loader pages through all the unspent boxes of an
+ * address until the boxes with the tokens are found, which takes many requests for
+ * addresses with many boxes without tokens. Instead, this loader first finds the boxes of
+ * the address by the ids of the tokens to spend (Explorer's
+ * {@code boxes/unspent/byTokenId}) and returns them as the first pages. The following
+ * pages are the unspent boxes of the address loaded as usual, which cover the rest of the
+ * amount (the boxes which were already returned are skipped by
+ * {@link BoxOperations#getCoveringBoxesFor}).
+ * <p>
+ * The boxes of a token are searched until the needed amount of the token is found, or up
+ * to {@link #withMaxTokenPages(int) the given number of pages}, so that popular tokens
+ * don't cause more requests than the default loader.
+ */
+public class TokenFirstUnspentBoxesLoader extends BoxOperations.ExplorerApiUnspentLoader {
+    /** Number of boxes requested from Explorer in one page of boxes of a token. */
+    static final int TOKEN_PAGE_SIZE = 100;
+
+    private BlockchainContextImpl ctx;
+    private List<ErgoToken> tokensToSpend = Collections.emptyList();
+    private int maxTokenPages = 10;
+    // boxes of the tokens by address, loaded by prepareForAddress
+    private final Map<Address, List<InputBox>> tokenBoxes = new ConcurrentHashMap<>();
+
+    /**
+     * Sets the max number of pages (of {@value TOKEN_PAGE_SIZE} boxes) loaded for a token,
+     * default 10.
+     */
+    public TokenFirstUnspentBoxesLoader withMaxTokenPages(int maxTokenPages) {
+        if (maxTokenPages < 1) {
+            throw new IllegalArgumentException("maxTokenPages should be positive: " + maxTokenPages);
+        }
+        this.maxTokenPages = maxTokenPages;
+        return this;
+    }
+
+    @Override
+    public void prepare(@Nonnull BlockchainContext ctx, List<Address> addresses, long grossAmount, @Nonnull List<ErgoToken> tokensToSpend) {
+        if (!(ctx instanceof BlockchainContextImpl)) {
+            throw new IllegalArgumentException("This loader needs to be used with BlockchainContextImpl");
+        }
+        this.ctx = (BlockchainContextImpl) ctx;
+        Preconditions.checkNotNull(this.ctx.getRetrofitExplorer(), ErgoClient.explorerUrlNotSpecifiedMessage);
+        this.tokensToSpend = tokensToSpend;
+        tokenBoxes.clear();
+    }
+
+    @Override
+    public void prepareForAddress(Address address) {
+        String ergoTree = ScalaBridge.isoStringToErgoTree().from(address.getErgoAddress().script());
+        // a box can contain several of the tokens, so it is added once
+        LinkedHashMap<String, OutputInfo> found = new LinkedHashMap<>();
+        for (ErgoToken token : tokensToSpend) {
+            findTokenBoxes(token, ergoTree, found);
+        }
+        tokenBoxes.put(address, found.isEmpty()
+            ? Collections.emptyList()
+            : ctx.getInputBoxes(new ArrayList<>(found.values())));
+    }
+
+    /**
+     * Adds the boxes with the given ErgoTree containing the given token to found, until the
+     * amount of the token is covered.
+     */
+    private void findTokenBoxes(ErgoToken token, String ergoTree, Map<String, OutputInfo> found) {
+        String tokenId = token.getId().toString();
+        long amountFound = 0;
+        for (int page = 0; page < maxTokenPages && amountFound < token.getValue(); page++) {
+            ItemsA boxes = ExplorerFacade.boxesUnspentByTokenId(
+                ctx.getRetrofitExplorer(), tokenId, page * TOKEN_PAGE_SIZE, TOKEN_PAGE_SIZE);
+            List<OutputInfo> items = BlockchainContextImpl.itemsOf(boxes);
+            for (OutputInfo box : items) {
+                if (!ergoTree.equals(box.getErgoTree())) continue;
+                found.putIfAbsent(box.getBoxId(), box);
+                for (AssetInstanceInfo asset : box.getAssets()) {
+                    if (tokenId.equals(asset.getTokenId())) {
+                        amountFound += asset.getAmount();
+                    }
+                }
+            }
+            if (items.size() < TOKEN_PAGE_SIZE) break;
+        }
+    }
+
+    @Nonnull
+    @Override
+    public List<InputBox> loadBoxesPage(@Nonnull BlockchainContext ctx, @Nonnull Address address, @Nonnull Integer page) {
+        // the pages depend only on the page number, so they can be loaded in any order
+        List<InputBox> boxes = tokenBoxes.getOrDefault(address, Collections.emptyList());
+        int tokenPages = (boxes.size() + BlockchainContext.DEFAULT_LIMIT_FOR_API - 1) / BlockchainContext.DEFAULT_LIMIT_FOR_API;
+        if (page < tokenPages) {
+            int from = page * BlockchainContext.DEFAULT_LIMIT_FOR_API;
+            return new ArrayList<>(boxes.subList(from, Math.min(boxes.size(), from + BlockchainContext.DEFAULT_LIMIT_FOR_API)));
+        }
+        return super.loadBoxesPage(ctx, address, page - tokenPages);
+    }
+
+    @Override
+    public int getPageSize() {
+        // the last page of token boxes may be short and is followed by the pages of Explorer
+        return 0;
+    }
+}
@@ -6,7 +6,6 @@ import org.ergoplatform._
 import org.ergoplatform.appkit.{Iso, _}
 import org.ergoplatform.wallet.protocol.context.ErgoLikeStateContext
 import org.ergoplatform.wallet.transactions.TransactionBuilder
-import org.ergoplatform.wallet.boxes.DefaultBoxSelector
 import special.collection.Coll
 import special.sigma.Header
 import java.util._
@@ -15,6 +14,10 @@ import java.util.stream.Collectors
 import org.ergoplatform.appkit.Parameters.{MinChangeValue, MinFee}
 import scorex.crypto.authds.ADDigest
 import org.ergoplatform.appkit.JavaHelpers._
+import org.ergoplatform.appkit.BoxSelectorsJavaHelpers.AllInputsBoxSelector
+
+import scala.collection.JavaConverters._
+import scala.collection.mutable
 
 class UnsignedTransactionBuilderImpl(val _ctx: BlockchainContextImpl) extends UnsignedTransactionBuilder {
   private[impl] var _inputs: List[UnsignedInput] = _
@@ -28,6 +31,7 @@ class UnsignedTransactionBuilderImpl(val _ctx: BlockchainContextImpl) extends Un
   private var _feeAmount: Option[Long] = None
   private var _changeAddress: Option[ErgoAddress] = None
   private var _ph: Option[PreHeaderImpl] = None
+  private var _boxSelector: Option[BoxSelector] = None
 
   override def preHeader(ph: PreHeader): UnsignedTransactionBuilder = {
     require(_ph.isEmpty, "PreHeader is already specified")
@@ -43,6 +47,12 @@ class UnsignedTransactionBuilderImpl(val _ctx: BlockchainContextImpl) extends Un
     this
   }
 
+  override def withBoxSelector(selector: BoxSelector): UnsignedTransactionBuilder = {
+    require(_boxSelector.isEmpty, "Box selector is already specified")
+    _boxSelector = Some(selector)
+    this
+  }
+
   override def withDataInputs(inputBoxes: List[InputBox]): UnsignedTransactionBuilder = {
     require(_dataInputBoxes.isEmpty, "dataInputs list is already specified")
     _dataInputs = inputBoxes
@@ -100,8 +110,11 @@ class UnsignedTransactionBuilderImpl(val _ctx: BlockchainContextImpl) extends Un
   }
 
   override def build: UnsignedTransaction = {
-    val inputBoxes = getInputBoxesImpl
     val outputCandidates = getNonEmpty(_outputCandidates, "Output boxes are not specified")
+    val inputBoxes = _boxSelector match {
+      case Some(selector) => selectInputBoxes(selector, getInputBoxesImpl, outputCandidates)
+      case None => getInputBoxesImpl
+    }
     val boxesToSpend = inputBoxes
       .map(b => ExtendedInputBox(b.getErgoBox, b.getExtension))
     val dataInputBoxes = _dataInputBoxes
@@ -127,7 +140,7 @@ class UnsignedTransactionBuilderImpl(val _ctx: BlockchainContextImpl) extends Un
       changeAddress = changeAddress, minChangeValue = MinChangeValue,
       minerRewardDelay = rewardDelay,
       burnTokens = burnTokens,
-      boxSelector = DefaultBoxSelector).get
+      boxSelector = AllInputsBoxSelector).get
 
     // the method above don't accept ContextExtension along with inputs, thus, after the
     // transaction has been built we need to zip with the extensions that have been
@@ -141,6 +154,38 @@ class UnsignedTransactionBuilderImpl(val _ctx: BlockchainContextImpl) extends Un
     new UnsignedTransactionImpl(txWithExtensions, boxesToSpend, dataInputBoxes, stateContext)
   }
 
+  /**
+   * Selects the boxes to spend among the candidates using the given selector, see
+   * [[UnsignedTransactionBuilder.withBoxSelector]].
+   */
+  private def selectInputBoxes(selector: BoxSelector,
+                               candidates: List[InputBoxImpl],
+                               outputCandidates: List[ErgoBoxCandidate]): List[InputBoxImpl] = {
+    var amountToSpend = _feeAmount.getOrElse(0L)
+    val tokenAmounts = mutable.LinkedHashMap[ErgoId, Long]()
+    def addToken(id: ErgoId, amount: Long): Unit =
+      tokenAmounts.put(id, tokenAmounts.getOrElse(id, 0L) + amount)
+    outputCandidates.asScala.foreach { c =>
+      amountToSpend += c.value
+      c.additionalTokens.toArray.foreach { case (id, amount) => addToken(new ErgoId(id), amount) }
+    }
+    _tokensToBurn.foreach(_.asScala.foreach(t => addToken(t.getId, t.getValue)))
+
+    // the box with the id of a minted token is not selected, but spent as the first input
+    val minted = candidates.asScala.filter(b => tokenAmounts.contains(b.getId))
+    minted.foreach(b => tokenAmounts.remove(b.getId))
+    val tokensToSpend = new util.ArrayList[ErgoToken]()
+    tokenAmounts.foreach { case (id, amount) => tokensToSpend.add(new ErgoToken(id, amount)) }
+
+    val selected = selector.select(new util.ArrayList[InputBox](candidates), amountToSpend, tokensToSpend)
+    val res = new util.ArrayList[InputBoxImpl]()
+    minted.foreach(b => res.add(b))
+    selected.asScala.foreach { b =>
+      if (!minted.exists(_.getId == b.getId)) res.add(b.asInstanceOf[InputBoxImpl])
+    }
+    res
+  }
+
   private def createErgoLikeStateContext: ErgoLikeStateContext = new ErgoLikeStateContext() {
     private val _allHeaders = Iso.JListToColl(
       ScalaBridge.isoBlockHeader,
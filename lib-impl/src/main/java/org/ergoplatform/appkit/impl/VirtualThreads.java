@@ -0,0 +1,57 @@
+package org.ergoplatform.appkit.impl;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Access to virtual threads of Java 21+ while the library is compiled for Java 8.
+ * The executor is obtained by reflection, so the library can be used on older JVMs, where
+ * {@link #isSupported()} returns false.
+ */
+public final class VirtualThreads {
+    private static final Method _newVirtualThreadPerTaskExecutor = findFactoryMethod();
+
+    private VirtualThreads() {
+    }
+
+    private static Method findFactoryMethod() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns true if the current JVM provides virtual threads.
+     */
+    public static boolean isSupported() {
+        return _newVirtualThreadPerTaskExecutor != null;
+    }
+
+    /**
+     * Creates an executor which starts a new virtual thread for each task
+     * (see {@code Executors.newVirtualThreadPerTaskExecutor()}).
+     *
+     * @throws UnsupportedOperationException if virtual threads are not available in the
+     *                                       current JVM
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor() {
+        if (!isSupported()) {
+            throw new UnsupportedOperationException(
+                "Virtual threads are not supported by Java " + System.getProperty("java.version"));
+        }
+        try {
+            return (ExecutorService)_newVirtualThreadPerTaskExecutor.invoke(null);
+        } catch (InvocationTargetException e) {
+            // for example, when virtual threads are a preview feature which is not enabled
+            Throwable cause = e.getCause();
+            throw new UnsupportedOperationException(
+                "Cannot create virtual threads: " + cause.getMessage(), cause);
+        } catch (IllegalAccessException e) {
+            throw new UnsupportedOperationException("Cannot create virtual threads", e);
+        }
+    }
+}
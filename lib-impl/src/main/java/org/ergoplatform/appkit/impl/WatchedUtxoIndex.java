@@ -0,0 +1,654 @@
+package org.ergoplatform.appkit.impl;
+
+import org.ergoplatform.ErgoBox;
+import org.ergoplatform.ErgoBox$;
+import org.ergoplatform.appkit.Address;
+import org.ergoplatform.appkit.BlockchainContext;
+import org.ergoplatform.appkit.BoxOperations;
+import org.ergoplatform.appkit.ErgoClientException;
+import org.ergoplatform.appkit.ErgoId;
+import org.ergoplatform.appkit.InputBox;
+import org.ergoplatform.appkit.JavaHelpers;
+import org.ergoplatform.restapi.client.BlockHeader;
+import org.ergoplatform.restapi.client.ErgoTransaction;
+import org.ergoplatform.restapi.client.ErgoTransactionInput;
+import org.ergoplatform.restapi.client.ErgoTransactionOutput;
+import org.ergoplatform.restapi.client.NodeInfo;
+import retrofit2.Retrofit;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.Nonnull;
+
+import static org.ergoplatform.appkit.BlockchainContext.DEFAULT_LIMIT_FOR_API;
+
+/**
+ * Index of unspent boxes of the watched addresses (ErgoTrees), which follows the blocks of
+ * the node. Once synchronized (see {@link #sync()}), unspent boxes of the watched addresses
+ * are loaded from memory instead of Explorer, either by the contexts created with the index
+ * (see {@link BlockchainContextBuilderImpl#withUtxoIndex}) or by
+ * {@link #newUnspentBoxesLoader() the loader} of {@link BoxOperations}.
+ * <br>
+ * The index is persisted in an append-only file: every applied block is stored as a record
+ * with the watched boxes it created and spent, and the file is read and replayed when the
+ * index is opened. After {@link #COMPACT_AFTER_RECORDS} records the file is rewritten as a
+ * snapshot of the current state (see {@link #compact()}), so that it doesn't grow with
+ * every block. Chain reorganizations are handled by rolling back the blocks which are not
+ * in the best chain of the node anymore (up to {@link #MAX_ROLLBACK_DEPTH} blocks).
+ * <br>
+ * Note, the node doesn't index boxes by address, so the boxes of a watched address are found
+ * only in the blocks applied after the address is watched. Thus the addresses must be
+ * watched before the index is started, either by the first synchronization, which starts
+ * from the current height of the node, or by {@link #startFromHeight(int)}.
+ * <br>
+ * All the methods are thread-safe. The queries don't wait for the requests to the node made
+ * by a running synchronization, only for applying the loaded blocks.
+ */
+public class WatchedUtxoIndex implements Closeable {
+    /** Number of the last blocks which can be rolled back on chain reorganization. */
+    public static final int MAX_ROLLBACK_DEPTH = 100;
+
+    /** Number of headers requested from the node at once while following the chain. */
+    static final int HEADERS_BATCH_SIZE = 100;
+
+    private static final byte RECORD_START = 1;
+    private static final byte RECORD_WATCH = 2;
+    private static final byte RECORD_BLOCK = 3;
+    private static final byte RECORD_ROLLBACK = 4;
+    private static final byte RECORD_SNAPSHOT = 5;
+
+    /** Number of records appended after the last snapshot, which make the store compacted. */
+    public static final int COMPACT_AFTER_RECORDS = 1_000;
+
+    private final Retrofit _retrofit;
+    private final File _storeFile;
+    // serializes synchronizations, which load the blocks without holding the lock of this object
+    private final Object _syncLock = new Object();
+    private DataOutputStream _log;
+    private int _recordsSinceSnapshot = 0;
+
+    private final Set<String> _watchedTrees = new HashSet<>();
+    private final LinkedHashMap<ErgoId, ErgoBox> _unspent = new LinkedHashMap<>();
+    private final HashMap<String, LinkedHashSet<ErgoId>> _unspentByTree = new HashMap<>();
+    // the last applied blocks, which can be rolled back, the last one is the tip of the index
+    private final ArrayDeque<AppliedBlock> _lastBlocks = new ArrayDeque<>();
+    private int _height = -1;
+    private ErgoId _tipId;
+
+    /**
+     * Opens the index stored in the given file (the file is created if it doesn't exist).
+     *
+     * @param retrofit  client of the node to follow
+     * @param storeFile file of the index
+     */
+    public WatchedUtxoIndex(Retrofit retrofit, File storeFile) {
+        _retrofit = retrofit;
+        _storeFile = storeFile;
+        try {
+            replay();
+            _log = openLog();
+        } catch (IOException e) {
+            throw new ErgoClientException("Cannot open UTXO index " + storeFile, e);
+        }
+        if (_recordsSinceSnapshot > COMPACT_AFTER_RECORDS) {
+            compact();
+        }
+    }
+
+    /**
+     * Adds the given address to the watched ones.
+     *
+     * @throws IllegalStateException if the index is already started, as the existing boxes
+     *                               of the address would be missing in the index
+     */
+    public void watch(Address address) {
+        watchErgoTree(treeOf(address));
+    }
+
+    /**
+     * Adds the given ErgoTree (encoded in Base16) to the watched ones.
+     *
+     * @throws IllegalStateException if the index is already started
+     * @see #watch(Address)
+     */
+    public synchronized void watchErgoTree(String ergoTree) {
+        if (_watchedTrees.contains(ergoTree)) {
+            return;
+        }
+        if (_height >= 0) {
+            throw new IllegalStateException(
+                "UTXO index is already started at height " + _height + ", cannot watch new ErgoTree " + ergoTree);
+        }
+        byte[] treeBytes = JavaHelpers.decodeStringToBytes(ergoTree);
+        writeRecord(out -> {
+            out.writeByte(RECORD_WATCH);
+            out.writeInt(treeBytes.length);
+            out.write(treeBytes);
+        });
+        _watchedTrees.add(ergoTree);
+    }
+
+    public synchronized boolean isWatched(Address address) {
+        return _watchedTrees.contains(treeOf(address));
+    }
+
+    /**
+     * Starts following the chain from the given height, the boxes of the watched addresses
+     * created in the blocks after this height are indexed.
+     *
+     * @throws IllegalStateException if the index is already started
+     */
+    public void startFromHeight(int height) {
+        synchronized (_syncLock) {
+            checkNotStarted();
+            List<BlockHeader> headers = ErgoNodeFacade.getChainSlice(_retrofit, height, height);
+            if (headers.isEmpty()) {
+                throw new ErgoClientException("Block at height " + height + " is not found", null);
+            }
+            ErgoId headerId = ErgoId.create(headers.get(0).getId());
+            synchronized (this) {
+                checkNotStarted();
+                writeRecord(out -> {
+                    out.writeByte(RECORD_START);
+                    out.writeInt(height);
+                    out.write(headerId.getBytes());
+                });
+                start(height, headerId);
+            }
+        }
+    }
+
+    private synchronized void checkNotStarted() {
+        if (_height >= 0) {
+            throw new IllegalStateException("UTXO index is already started at height " + _height);
+        }
+    }
+
+    /**
+     * Height of the last block applied to the index, or -1 if the index is not started.
+     */
+    public synchronized int getHeight() {
+        return _height;
+    }
+
+    /** Number of unspent boxes of the watched addresses. */
+    public synchronized int getUnspentCount() {
+        return _unspent.size();
+    }
+
+    /**
+     * Applies the new blocks of the node to the index, rolling back the blocks which are not
+     * in the best chain of the node anymore.
+     *
+     * @return number of applied blocks (negative if more blocks were rolled back)
+     * @throws ErgoClientException if the chain reorganization is deeper than
+     *                             {@link #MAX_ROLLBACK_DEPTH}
+     */
+    public int sync() {
+        // the requests are made without the lock of this object, so that the queries are not
+        // blocked during the synchronization, the state of the chain is changed only here
+        synchronized (_syncLock) {
+            NodeInfo nodeInfo = ErgoNodeFacade.getNodeInfo(_retrofit);
+            int fullHeight = nodeInfo.getFullHeight();
+            if (getHeight() < 0) {
+                startFromHeight(fullHeight);
+                return 0;
+            }
+            int applied = 0;
+            while (true) {
+                int height;
+                ErgoId tipId;
+                synchronized (this) {
+                    height = _height;
+                    tipId = _tipId;
+                }
+                int toHeight = Math.max(height, Math.min(fullHeight, height + HEADERS_BATCH_SIZE));
+                List<BlockHeader> headers = ErgoNodeFacade.getChainSlice(_retrofit, height, toHeight);
+                if (headers.isEmpty() || !ErgoId.create(headers.get(0).getId()).equals(tipId)) {
+                    // the tip of the index is not in the best chain anymore
+                    synchronized (this) {
+                        rollbackBlock();
+                    }
+                    applied--;
+                    continue;
+                }
+                if (headers.size() == 1) {
+                    return applied;
+                }
+                for (BlockHeader header : headers.subList(1, headers.size())) {
+                    List<ErgoTransaction> txs = ErgoNodeFacade
+                        .getBlockTransactionsById(_retrofit, header.getId()).getTransactions();
+                    synchronized (this) {
+                        applyBlock(header.getHeight(), ErgoId.create(header.getId()), txs);
+                        if (_recordsSinceSnapshot > COMPACT_AFTER_RECORDS) {
+                            compact();
+                        }
+                    }
+                    applied++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the unspent boxes of the given watched address, in the order of creation.
+     *
+     * @param ctx    context to create input boxes in
+     * @param offset index of the first returned box
+     * @param limit  maximum number of returned boxes
+     */
+    public synchronized List<InputBox> getUnspentBoxes(
+            BlockchainContext ctx, Address address, int offset, int limit) {
+        LinkedHashSet<ErgoId> ids = _unspentByTree.get(treeOf(address));
+        if (ids == null || offset >= ids.size()) {
+            return new ArrayList<>();
+        }
+        List<InputBox> boxes = new ArrayList<>(Math.min(limit, ids.size() - offset));
+        Iterator<ErgoId> it = ids.iterator();
+        for (int i = 0; i < offset; i++) it.next();
+        while (it.hasNext() && boxes.size() < limit) {
+            boxes.add(new InputBoxImpl((BlockchainContextBase)ctx, _unspent.get(it.next())));
+        }
+        return boxes;
+    }
+
+    /**
+     * Creates a loader of unspent boxes for {@link BoxOperations}, which takes the boxes of
+     * watched addresses from this index and the boxes of other addresses from Explorer.
+     */
+    public BoxOperations.IUnspentBoxesLoader newUnspentBoxesLoader() {
+        return new BoxOperations.ExplorerApiUnspentLoader() {
+            @Nonnull
+            @Override
+            public List<InputBox> loadBoxesPage(@Nonnull BlockchainContext ctx, @Nonnull Address address, @Nonnull Integer page) {
+                if (isWatched(address)) {
+                    return getUnspentBoxes(ctx, address, page * DEFAULT_LIMIT_FOR_API, DEFAULT_LIMIT_FOR_API);
+                }
+                return super.loadBoxesPage(ctx, address, page);
+            }
+        };
+    }
+
+    /**
+     * Rewrites the store file as a snapshot of the current state of the index (the watched
+     * ErgoTrees, the unspent boxes and the blocks which can be rolled back), which replaces
+     * all the records appended before. Done automatically after
+     * {@link #COMPACT_AFTER_RECORDS} records.
+     * <br>
+     * The snapshot is written to a temporary file, which then replaces the store file, so
+     * the store is never left incomplete.
+     */
+    public synchronized void compact() {
+        File tmpFile = new File(_storeFile.getPath() + ".tmp");
+        try {
+            try (FileOutputStream fileOut = new FileOutputStream(tmpFile)) {
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut));
+                for (String ergoTree : _watchedTrees) {
+                    byte[] treeBytes = JavaHelpers.decodeStringToBytes(ergoTree);
+                    out.writeByte(RECORD_WATCH);
+                    out.writeInt(treeBytes.length);
+                    out.write(treeBytes);
+                }
+                if (_height >= 0) {
+                    writeSnapshot(out);
+                }
+                out.flush();
+                fileOut.getFD().sync();
+            }
+            _log.close();
+            try {
+                Files.move(tmpFile.toPath(), _storeFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                _recordsSinceSnapshot = 0;
+            } finally {
+                // appends to the snapshot, or to the old records if it is not moved
+                _log = openLog();
+            }
+        } catch (IOException e) {
+            throw new ErgoClientException("Cannot compact UTXO index " + _storeFile, e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            _log.close();
+        } catch (IOException e) {
+            throw new ErgoClientException("Cannot close UTXO index " + _storeFile, e);
+        }
+    }
+
+    private DataOutputStream openLog() throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(new FileOutputStream(_storeFile, true)));
+    }
+
+    private void writeSnapshot(DataOutputStream out) throws IOException {
+        out.writeByte(RECORD_SNAPSHOT);
+        out.writeInt(_height);
+        out.write(_tipId.getBytes());
+        out.writeInt(_unspent.size());
+        for (ErgoBox box : _unspent.values()) {
+            writeBox(out, box);
+        }
+        out.writeInt(_lastBlocks.size());
+        for (AppliedBlock block : _lastBlocks) {
+            out.write(block.parentId.getBytes());
+            out.writeInt(block.createdIds.size());
+            for (ErgoId boxId : block.createdIds) {
+                out.write(boxId.getBytes());
+            }
+            out.writeInt(block.spentBoxes.size());
+            for (ErgoBox box : block.spentBoxes) {
+                writeBox(out, box);
+            }
+        }
+    }
+
+    private static void writeBox(DataOutputStream out, ErgoBox box) throws IOException {
+        byte[] bytes = ErgoBox$.MODULE$.sigmaSerializer().toBytes(box);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static ErgoBox readBox(DataInputStream in) throws IOException {
+        return ErgoBox$.MODULE$.sigmaSerializer().fromBytes(readBytes(in, in.readInt()));
+    }
+
+    private static String treeOf(Address address) {
+        return ScalaBridge.isoStringToErgoTree().from(address.getErgoAddress().script());
+    }
+
+    private static String treeOf(ErgoBox box) {
+        return ScalaBridge.isoStringToErgoTree().from(box.ergoTree());
+    }
+
+    private void start(int height, ErgoId headerId) {
+        _height = height;
+        _tipId = headerId;
+    }
+
+    /**
+     * Applies the net effect of the transactions of the block: the watched boxes which are
+     * created and spent in the same block are not stored.
+     */
+    private void applyBlock(int height, ErgoId headerId, List<ErgoTransaction> txs) {
+        LinkedHashMap<ErgoId, ErgoBox> created = new LinkedHashMap<>();
+        List<ErgoId> spent = new ArrayList<>();
+        for (ErgoTransaction tx : txs) {
+            for (ErgoTransactionInput input : tx.getInputs()) {
+                ErgoId boxId = ErgoId.create(input.getBoxId());
+                if (created.remove(boxId) == null && _unspent.containsKey(boxId)) {
+                    spent.add(boxId);
+                }
+            }
+            for (ErgoTransactionOutput output : tx.getOutputs()) {
+                if (_watchedTrees.contains(output.getErgoTree())) {
+                    created.put(ErgoId.create(output.getBoxId()),
+                        ScalaBridge.isoErgoTransactionOutput().to(output));
+                }
+            }
+        }
+        writeRecord(out -> {
+            out.writeByte(RECORD_BLOCK);
+            out.writeInt(height);
+            out.write(headerId.getBytes());
+            out.writeInt(created.size());
+            for (ErgoBox box : created.values()) {
+                writeBox(out, box);
+            }
+            out.writeInt(spent.size());
+            for (ErgoId boxId : spent) {
+                out.write(boxId.getBytes());
+            }
+        });
+        apply(height, headerId, created.values(), spent);
+    }
+
+    private void apply(int height, ErgoId headerId, Iterable<ErgoBox> created, List<ErgoId> spent) {
+        AppliedBlock block = new AppliedBlock(_tipId);
+        for (ErgoId boxId : spent) {
+            ErgoBox box = removeUnspent(boxId);
+            if (box != null) block.spentBoxes.add(box);
+        }
+        for (ErgoBox box : created) {
+            block.createdIds.add(addUnspent(box));
+        }
+        _lastBlocks.addLast(block);
+        if (_lastBlocks.size() > MAX_ROLLBACK_DEPTH) {
+            _lastBlocks.removeFirst();
+        }
+        _height = height;
+        _tipId = headerId;
+    }
+
+    private void rollbackBlock() {
+        if (_lastBlocks.isEmpty()) {
+            throw new ErgoClientException(
+                "Chain reorganization is deeper than " + MAX_ROLLBACK_DEPTH +
+                " blocks, UTXO index " + _storeFile + " should be rebuilt", null);
+        }
+        writeRecord(out -> out.writeByte(RECORD_ROLLBACK));
+        rollback();
+    }
+
+    private void rollback() {
+        AppliedBlock block = _lastBlocks.removeLast();
+        for (ErgoId boxId : block.createdIds) {
+            removeUnspent(boxId);
+        }
+        for (ErgoBox box : block.spentBoxes) {
+            addUnspent(box);
+        }
+        _height--;
+        _tipId = block.parentId;
+    }
+
+    private ErgoId addUnspent(ErgoBox box) {
+        ErgoId boxId = new ErgoId(box.id());
+        _unspent.put(boxId, box);
+        _unspentByTree.computeIfAbsent(treeOf(box), k -> new LinkedHashSet<>()).add(boxId);
+        return boxId;
+    }
+
+    private ErgoBox removeUnspent(ErgoId boxId) {
+        ErgoBox box = _unspent.remove(boxId);
+        if (box != null) {
+            LinkedHashSet<ErgoId> ids = _unspentByTree.get(treeOf(box));
+            ids.remove(boxId);
+            if (ids.isEmpty()) _unspentByTree.remove(treeOf(box));
+        }
+        return box;
+    }
+
+    /**
+     * Restores the state of the index from the stored records. A record which is not
+     * completely written (e.g. because the process was killed) is truncated.
+     */
+    private void replay() throws IOException {
+        if (!_storeFile.exists()) return;
+        long validLength = 0;
+        try (CountingInputStream counter = new CountingInputStream(
+                new BufferedInputStream(new FileInputStream(_storeFile)))) {
+            DataInputStream in = new DataInputStream(counter);
+            try {
+                int type;
+                while ((type = in.read()) >= 0) {
+                    replayRecord((byte) type, in, validLength);
+                    validLength = counter.count;
+                    _recordsSinceSnapshot++;
+                }
+            } catch (EOFException e) {
+                // the last record is incomplete
+            }
+        }
+        if (validLength < _storeFile.length()) {
+            try (RandomAccessFile file = new RandomAccessFile(_storeFile, "rw")) {
+                file.setLength(validLength);
+            }
+        }
+    }
+
+    private void replayRecord(byte type, DataInputStream in, long position) throws IOException {
+        switch (type) {
+            case RECORD_START: {
+                int height = in.readInt();
+                start(height, new ErgoId(readBytes(in, 32)));
+                break;
+            }
+            case RECORD_WATCH:
+                _watchedTrees.add(JavaHelpers.Algos().encode(readBytes(in, in.readInt())));
+                break;
+            case RECORD_BLOCK: {
+                int height = in.readInt();
+                ErgoId headerId = new ErgoId(readBytes(in, 32));
+                int numCreated = in.readInt();
+                List<ErgoBox> created = new ArrayList<>();
+                for (int i = 0; i < numCreated; i++) {
+                    created.add(readBox(in));
+                }
+                int numSpent = in.readInt();
+                List<ErgoId> spent = new ArrayList<>();
+                for (int i = 0; i < numSpent; i++) {
+                    spent.add(new ErgoId(readBytes(in, 32)));
+                }
+                apply(height, headerId, created, spent);
+                break;
+            }
+            case RECORD_ROLLBACK:
+                rollback();
+                break;
+            case RECORD_SNAPSHOT:
+                replaySnapshot(in);
+                break;
+            default:
+                throw new ErgoClientException(
+                    "Invalid record " + type + " in UTXO index " + _storeFile + " at " + position, null);
+        }
+    }
+
+    private void replaySnapshot(DataInputStream in) throws IOException {
+        int height = in.readInt();
+        ErgoId tipId = new ErgoId(readBytes(in, 32));
+        int numUnspent = in.readInt();
+        List<ErgoBox> unspent = new ArrayList<>();
+        for (int i = 0; i < numUnspent; i++) {
+            unspent.add(readBox(in));
+        }
+        int numBlocks = in.readInt();
+        List<AppliedBlock> blocks = new ArrayList<>();
+        for (int i = 0; i < numBlocks; i++) {
+            AppliedBlock block = new AppliedBlock(new ErgoId(readBytes(in, 32)));
+            int numCreated = in.readInt();
+            for (int j = 0; j < numCreated; j++) {
+                block.createdIds.add(new ErgoId(readBytes(in, 32)));
+            }
+            int numSpent = in.readInt();
+            for (int j = 0; j < numSpent; j++) {
+                block.spentBoxes.add(readBox(in));
+            }
+            blocks.add(block);
+        }
+        // the state is replaced once the record is completely read
+        _unspent.clear();
+        _unspentByTree.clear();
+        for (ErgoBox box : unspent) {
+            addUnspent(box);
+        }
+        _lastBlocks.clear();
+        _lastBlocks.addAll(blocks);
+        start(height, tipId);
+        _recordsSinceSnapshot = 0;
+    }
+
+    private static byte[] readBytes(DataInputStream in, int length) throws IOException {
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    private interface RecordWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * Appends a record to the store, the record is flushed before the in-memory state is
+     * changed, so the state can always be restored from the file.
+     */
+    private void writeRecord(RecordWriter writer) {
+        try {
+            writer.write(_log);
+            _log.flush();
+            _recordsSinceSnapshot++;
+        } catch (IOException e) {
+            throw new ErgoClientException("Cannot write UTXO index " + _storeFile, e);
+        }
+    }
+
+    /**
+     * Counts the bytes read from the underlying stream, i.e. the position in the file.
+     */
+    private static class CountingInputStream extends FilterInputStream {
+        long count = 0;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int res = super.read();
+            if (res >= 0) count++;
+            return res;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int res = super.read(b, off, len);
+            if (res > 0) count += res;
+            return res;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long res = super.skip(n);
+            count += res;
+            return res;
+        }
+    }
+
+    /**
+     * Changes made by an applied block, which are reverted on rollback.
+     */
+    private static class AppliedBlock {
+        final ErgoId parentId;
+        final List<ErgoId> createdIds = new ArrayList<>();
+        final List<ErgoBox> spentBoxes = new ArrayList<>();
+
+        AppliedBlock(ErgoId parentId) {
+            this.parentId = parentId;
+        }
+    }
+}
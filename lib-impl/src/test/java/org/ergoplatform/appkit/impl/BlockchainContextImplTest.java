@@ -2,10 +2,15 @@ package org.ergoplatform.appkit.impl;
 
 import org.ergoplatform.ApiTestBase;
 import org.ergoplatform.appkit.Address;
+import org.ergoplatform.appkit.BoxOperations;
+import org.ergoplatform.appkit.BlockchainContext;
+import org.ergoplatform.appkit.BoxSelectors;
 import org.ergoplatform.appkit.CoveringBoxes;
+import org.ergoplatform.appkit.ErgoToken;
 import org.ergoplatform.appkit.InputBox;
 import org.ergoplatform.appkit.NetworkType;
 import org.ergoplatform.appkit.Parameters;
+import org.ergoplatform.restapi.client.Asset;
 import org.ergoplatform.restapi.client.BlockHeader;
 import org.ergoplatform.restapi.client.ErgoTransactionOutput;
 import org.ergoplatform.restapi.client.PowSolutions;
@@ -15,8 +20,15 @@ import org.junit.Test;
 
 import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nonnull;
 
 public class BlockchainContextImplTest extends ApiTestBase {
     @Test
@@ -34,12 +46,219 @@ public class BlockchainContextImplTest extends ApiTestBase {
         coveringBoxesFor = bci.getCoveringBoxesFor(Address.create(address), 2 * Parameters.OneErg, new ArrayList<>());
         Assert.assertFalse(coveringBoxesFor.isCovered());
 
-        // add the box again - it should be ignored (isAlreadyAdded() kicks in)
+        // add the box again - it should be ignored (duplicates are skipped by id)
         bci.unspentBoxesMock.add(box);
         coveringBoxesFor = bci.getCoveringBoxesFor(Address.create(address), 2 * Parameters.OneErg, new ArrayList<>());
         Assert.assertFalse(coveringBoxesFor.isCovered());
     }
 
+    @Test
+    public void getCoveringBoxesForWithPrefetchTest() {
+        MockedBlockChainContextImpl bci = new MockedBlockChainContextImpl();
+        AtomicInteger loadedPages = new AtomicInteger();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // every page has a single box of one Erg, the source is never drained
+            CoveringBoxes coveringBoxes = BoxOperations.getCoveringBoxesFor(3 * Parameters.OneErg,
+                new ArrayList<>(), page -> {
+                    loadedPages.incrementAndGet();
+                    ErgoTransactionOutput box = getMockBox(Parameters.OneErg)
+                        .boxId(String.format("%064x", page));
+                    return Collections.singletonList(new InputBoxImpl(bci, box));
+                }, 2, executor);
+            Assert.assertTrue(coveringBoxes.isCovered());
+            Assert.assertEquals(3, coveringBoxes.getBoxes().size());
+            for (int i = 0; i < 3; i++) {
+                Assert.assertEquals(String.format("%064x", i),
+                    coveringBoxes.getBoxes().get(i).getId().toString());
+            }
+            // the pages prefetched after the amount was covered are not all loaded
+            Assert.assertTrue(loadedPages.get() <= 5);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void getCoveringBoxesForWithPrefetchStopsAfterLastPageTest() {
+        MockedBlockChainContextImpl bci = new MockedBlockChainContextImpl();
+        List<Integer> loadedPages = Collections.synchronizedList(new ArrayList<>());
+        // pages of two boxes of one Erg, the second page is short and thus the last one
+        CoveringBoxes coveringBoxes = BoxOperations.getCoveringBoxesFor(10 * Parameters.OneErg,
+            new ArrayList<>(), page -> {
+                loadedPages.add(page);
+                List<InputBox> boxes = new ArrayList<>();
+                for (int i = 0; i < (page == 0 ? 2 : page == 1 ? 1 : 0); i++) {
+                    ErgoTransactionOutput box = getMockBox(Parameters.OneErg)
+                        .boxId(String.format("%064x", page * 2 + i));
+                    boxes.add(new InputBoxImpl(bci, box));
+                }
+                return boxes;
+            }, 3, 2, Runnable::run);
+        Assert.assertFalse(coveringBoxes.isCovered());
+        Assert.assertEquals(3, coveringBoxes.getBoxes().size());
+        // the pages are loaded on scheduling, so no page after the short one is requested
+        Assert.assertEquals(Arrays.asList(0, 1), loadedPages);
+    }
+
+    @Test
+    public void getCoveringBoxesForLoadsPagesAfterShortPageTest() {
+        MockedBlockChainContextImpl bci = new MockedBlockChainContextImpl();
+        // pages of two boxes of one Erg, but the middle page is short (e.g. some of its boxes
+        // are dropped), the covering box is on the last page
+        CoveringBoxes coveringBoxes = BoxOperations.getCoveringBoxesFor(4 * Parameters.OneErg,
+            new ArrayList<>(), page -> {
+                List<InputBox> boxes = new ArrayList<>();
+                for (int i = 0; i < (page == 0 ? 2 : page == 1 ? 1 : page == 2 ? 2 : 0); i++) {
+                    ErgoTransactionOutput box = getMockBox(Parameters.OneErg)
+                        .boxId(String.format("%064x", page * 2 + i));
+                    boxes.add(new InputBoxImpl(bci, box));
+                }
+                return boxes;
+            }, 0, 2, null);
+        Assert.assertTrue(coveringBoxes.isCovered());
+        Assert.assertEquals(4, coveringBoxes.getBoxes().size());
+    }
+
+    @Test
+    public void loadTopWithConcurrentAddressesTest() {
+        MockedBlockChainContextImpl bci = new MockedBlockChainContextImpl();
+        List<Address> senders = Arrays.asList(
+            Address.create(address),
+            Address.create("9f4QF8AD1nQ3nJahQVkMj8hFSVVzVom77b52JU7EW71Zexg6N8v"),
+            Address.create("9fzV11eLdVS1Mxzz59V7ewoar5FTLx7Eqfwh9XDfbL68DYTyfTv"),
+            Address.create("9hQ352ipFLWNA96FjCXPFidQrwp8gF4i9JUkrnxw6b4buVBFjVg"));
+        ConcurrentHashMap<Address, Integer> loadedPages = new ConcurrentHashMap<>();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            // every address has a single box of one Erg with id equal to the index of the address
+            List<InputBox> boxes = BoxOperations.createForSenders(senders)
+                .withAmountToSpend(Parameters.OneErg)
+                .withConcurrentAddresses(2, executor)
+                .withInputBoxesLoader(new BoxOperations.ExplorerApiUnspentLoader() {
+                    @Nonnull
+                    @Override
+                    public List<InputBox> loadBoxesPage(@Nonnull BlockchainContext ctx, @Nonnull Address sender, @Nonnull Integer page) {
+                        loadedPages.merge(sender, 1, Integer::sum);
+                        if (page > 0) return Collections.emptyList();
+                        ErgoTransactionOutput box = getMockBox(Parameters.OneErg)
+                            .boxId(String.format("%064x", senders.indexOf(sender)));
+                        return Collections.singletonList(new InputBoxImpl(bci, box));
+                    }
+                })
+                .loadTop(bci);
+            // one Erg plus fee is covered by the boxes of the first two senders
+            Assert.assertEquals(2, boxes.size());
+            Assert.assertEquals(String.format("%064x", 0), boxes.get(0).getId().toString());
+            Assert.assertEquals(String.format("%064x", 1), boxes.get(1).getId().toString());
+            // the last sender is never loaded because of the concurrency cap
+            Assert.assertFalse(loadedPages.containsKey(senders.get(3)));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void loadTopWithConcurrentAddressesSameAsSequentialTest() {
+        MockedBlockChainContextImpl bci = new MockedBlockChainContextImpl();
+        String tokenId = String.format("%064x", 100);
+        List<Address> senders = Arrays.asList(
+            Address.create(address),
+            Address.create("9f4QF8AD1nQ3nJahQVkMj8hFSVVzVom77b52JU7EW71Zexg6N8v"),
+            Address.create("9fzV11eLdVS1Mxzz59V7ewoar5FTLx7Eqfwh9XDfbL68DYTyfTv"));
+        // the first sender covers the amount and a part of the tokens, the other senders
+        // have boxes without tokens before the boxes with tokens
+        List<List<InputBox>> senderBoxes = new ArrayList<>();
+        for (int i = 0; i < senders.size(); i++) {
+            List<InputBox> boxes = new ArrayList<>();
+            if (i > 0) {
+                boxes.add(new InputBoxImpl(bci, getMockBox(Parameters.OneErg)
+                    .boxId(String.format("%064x", i * 2))));
+            }
+            ErgoTransactionOutput tokenBox = getMockBox(i == 0 ? 2 * Parameters.OneErg : Parameters.OneErg)
+                .boxId(String.format("%064x", i * 2 + 1));
+            tokenBox.addAssetsItem(new Asset().tokenId(tokenId).amount(10L));
+            boxes.add(new InputBoxImpl(bci, tokenBox));
+            senderBoxes.add(boxes);
+        }
+        BoxOperations.IUnspentBoxesLoader loader = new BoxOperations.ExplorerApiUnspentLoader() {
+            @Nonnull
+            @Override
+            public List<InputBox> loadBoxesPage(@Nonnull BlockchainContext ctx, @Nonnull Address sender, @Nonnull Integer page) {
+                return page > 0 ? Collections.emptyList() : senderBoxes.get(senders.indexOf(sender));
+            }
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            List<List<InputBox>> results = new ArrayList<>();
+            for (int maxConcurrentAddresses : new int[] {1, 3}) {
+                results.add(BoxOperations.createForSenders(senders)
+                    .withAmountToSpend(Parameters.OneErg)
+                    .withTokensToSpend(Collections.singletonList(new ErgoToken(tokenId, 25)))
+                    .withConcurrentAddresses(maxConcurrentAddresses, executor)
+                    // all the loaded boxes are returned
+                    .withBoxSelector((boxes, amount, tokens) -> boxes)
+                    .loadTop(bci));
+            }
+            List<String> expectedIds = Arrays.asList(
+                String.format("%064x", 1), String.format("%064x", 3), String.format("%064x", 5));
+            for (List<InputBox> boxes : results) {
+                List<String> ids = new ArrayList<>();
+                for (InputBox box : boxes) {
+                    ids.add(box.getId().toString());
+                }
+                // the boxes without tokens are not needed once the amount is covered
+                Assert.assertEquals(expectedIds, ids);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void boxSelectorsTest() {
+        MockedBlockChainContextImpl bci = new MockedBlockChainContextImpl();
+        long[] values = {5, 17, 3, 8, 40, 12, 1, 6};
+        List<InputBox> boxes = new ArrayList<>();
+        for (int i = 0; i < values.length; i++) {
+            ErgoTransactionOutput box = getMockBox(values[i] * Parameters.MinFee)
+                .boxId(String.format("%064x", i));
+            boxes.add(new InputBoxImpl(bci, box));
+        }
+
+        // the first boxes covering the amount
+        Assert.assertEquals(Arrays.asList(5L, 17L),
+            valuesInErgFee(BoxSelectors.defaultSelector().select(boxes, 20 * Parameters.MinFee, Collections.emptyList())));
+        Assert.assertEquals(Arrays.asList(40L),
+            valuesInErgFee(BoxSelectors.largestFirst().select(boxes, 20 * Parameters.MinFee, Collections.emptyList())));
+        // the smallest single box covering the amount
+        Assert.assertEquals(Arrays.asList(12L),
+            valuesInErgFee(BoxSelectors.minInputs().select(boxes, 10 * Parameters.MinFee, Collections.emptyList())));
+        // no change
+        Assert.assertEquals(Arrays.asList(17L, 3L, 1L),
+            valuesInErgFee(BoxSelectors.exactMatch().select(boxes, 21 * Parameters.MinFee, Collections.emptyList())));
+        // the covering box and the smallest boxes up to 4 inputs
+        Assert.assertEquals(Arrays.asList(40L, 1L, 3L, 5L),
+            valuesInErgFee(BoxSelectors.dustConsolidating(4, 7 * Parameters.MinFee)
+                .select(boxes, 20 * Parameters.MinFee, Collections.emptyList())));
+
+        bci.unspentBoxesMock.addAll(boxes);
+        List<InputBox> selected = BoxOperations.createForSender(Address.create(address))
+            .withAmountToSpend(20 * Parameters.MinFee)
+            .withBoxSelector(BoxSelectors.largestFirst())
+            .loadTop(bci);
+        // selected among the loaded boxes covering the amount and fee
+        Assert.assertEquals(Arrays.asList(17L, 5L), valuesInErgFee(selected));
+    }
+
+    private List<Long> valuesInErgFee(List<InputBox> boxes) {
+        List<Long> values = new ArrayList<>();
+        for (InputBox box : boxes) {
+            values.add(box.getValue() / Parameters.MinFee);
+        }
+        return values;
+    }
+
     private ErgoTransactionOutput getMockBox(long nanoErgs) {
         ErgoTransactionOutput output = new ErgoTransactionOutput();
         output.boxId(boxId).ergoTree(ergoTree).assets(new ArrayList<>())